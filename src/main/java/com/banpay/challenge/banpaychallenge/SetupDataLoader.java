@@ -25,7 +25,8 @@ import java.util.stream.Collectors;
 
 /**
  * SetupDataLoader class is a component which implements ApplicationListener interface.
- * It is designed to be used at application startup - it populates the database with necessary roles and an admin user.
+ * It is designed to be used at application startup - it populates the database with necessary roles and an admin user,
+ * unless a previous run already stored them.
  */
 @Component
 public class SetupDataLoader implements ApplicationListener<ContextRefreshedEvent> {
@@ -79,6 +80,10 @@ public class SetupDataLoader implements ApplicationListener<ContextRefreshedEven
 		}
 
 		User user = getJson("static/admin.json");
+		if (userRepository.findByUsername(user.getUsername()).isPresent()) {
+			alreadySetup = true;
+			return;
+		}
 		user.setPassword(passwordEncoder.encode(user.getPassword()));
 		user.setRoles(user.getRoles().stream().map(u -> {
 					Optional<Role> role = roleRepository.findByName(u.getName());
@@ -0,0 +1,156 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The BinaryFormat enum lists the binary encodings of the JSON responses a client can ask for with the Accept header.
+ * <p>
+ * The three of them encode the same data model as JSON, so any response is written in them by a Jackson mapper over
+ * the matching factory: the {@link BinaryFormatConfig} registers a message converter for each one, and the
+ * {@link CatalogRenderer} encodes the body of every collection in each of them when it is published.
+ * </p>
+ */
+public enum BinaryFormat {
+
+	/**
+	 * Concise Binary Object Representation, RFC 8949.
+	 */
+	CBOR("cbor", List.of(MediaType.APPLICATION_CBOR), new CBORFactory()),
+
+	/**
+	 * The binary JSON of Jackson, which shares the repeated field names and short strings.
+	 */
+	SMILE("smile", List.of(new MediaType("application", "x-jackson-smile")), new SmileFactory()),
+
+	/**
+	 * MessagePack, under its registered type and the "x-" type most clients still send.
+	 */
+	MESSAGE_PACK("msgpack", List.of(new MediaType("application", "msgpack"), new MediaType("application", "x-msgpack")),
+			new MessagePackFactory());
+
+	private final String suffix;
+	private final List<MediaType> mediaTypes;
+	private final ObjectMapper mapper;
+
+	BinaryFormat(String suffix, List<MediaType> mediaTypes, JsonFactory factory) {
+		this.suffix = suffix;
+		this.mediaTypes = mediaTypes;
+		this.mapper = new ObjectMapper(factory);
+	}
+
+	/**
+	 * Gets the suffix identifying the format in the ETags, like "cbor".
+	 *
+	 * @return the suffix of the format
+	 */
+	public String getSuffix() {
+		return suffix;
+	}
+
+	/**
+	 * Gets the media types of the format, the one sent in the Content-Type header first.
+	 *
+	 * @return the media types of the format
+	 */
+	public List<MediaType> getMediaTypes() {
+		return mediaTypes;
+	}
+
+	/**
+	 * Gets the media type sent in the Content-Type header of the responses in this format.
+	 *
+	 * @return the media type of the format
+	 */
+	public MediaType getMediaType() {
+		return mediaTypes.get(0);
+	}
+
+	/**
+	 * Gets a new instance of the factory of the format, to build a mapper configured like another one.
+	 *
+	 * @return a copy of the factory of the format
+	 */
+	public JsonFactory newFactory() {
+		return mapper.getFactory().copy();
+	}
+
+	/**
+	 * Encodes a JSON tree in this format.
+	 * The tree is written as it is, so the result holds exactly what the JSON body of the tree holds.
+	 *
+	 * @param tree the tree to encode
+	 * @return the encoded bytes
+	 * @throws JsonProcessingException if the tree can not be encoded
+	 */
+	public byte[] encode(JsonNode tree) throws JsonProcessingException {
+		return mapper.writeValueAsBytes(tree);
+	}
+
+	/**
+	 * Suffixes an ETag with this format, since the bytes of the response differ from the JSON ones.
+	 *
+	 * @param etag the quoted ETag of the JSON response, weak or strong
+	 * @return the quoted ETag of the response in this format
+	 */
+	public String etag(String etag) {
+		return etag.substring(0, etag.length() - 1) + "-" + suffix + "\"";
+	}
+
+	/**
+	 * Chooses the binary format an Accept header prefers to JSON.
+	 * A format wins over JSON with a higher quality, or with the same quality when it is listed before or named while
+	 * JSON is only accepted through a wildcard, like "application/cbor, *&#47;*".
+	 *
+	 * @param accept the Accept header, may be null
+	 * @return the preferred binary format, or an empty Optional if JSON is preferred or the header is malformed
+	 */
+	public static Optional<BinaryFormat> accepted(String accept) {
+		if (accept == null) {
+			return Optional.empty();
+		}
+		BinaryFormat best = null;
+		double quality = 0;
+		boolean wildcard = true;
+		try {
+			for (MediaType type : MediaType.parseMediaTypes(accept)) {
+				double q = type.getQualityValue();
+				boolean specific = type.isConcrete();
+				if (q < quality || (q == quality && (!wildcard || !specific))) {
+					continue;
+				}
+				BinaryFormat format = of(type);
+				if (format != null || type.includes(MediaType.APPLICATION_JSON)) {
+					best = format;
+					quality = q;
+					wildcard = !specific;
+				}
+			}
+		}
+		catch (InvalidMediaTypeException e) {
+			return Optional.empty();
+		}
+		return quality > 0 ? Optional.ofNullable(best) : Optional.empty();
+	}
+
+	private static BinaryFormat of(MediaType type) {
+		for (BinaryFormat format : values()) {
+			for (MediaType mediaType : format.mediaTypes) {
+				if (mediaType.equalsTypeAndSubtype(type)) {
+					return format;
+				}
+			}
+		}
+		return null;
+	}
+}
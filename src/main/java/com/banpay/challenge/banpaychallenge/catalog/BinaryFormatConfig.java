@@ -0,0 +1,102 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The BinaryFormatConfig class registers a message converter for each {@link BinaryFormat}, so every controller
+ * answers in CBOR, Smile or MessagePack a client asking for it with the Accept header, and reads request bodies sent
+ * in them.
+ * <p>
+ * The mappers are built with the Jackson2ObjectMapperBuilder of Spring Boot, so they are configured like the mapper of
+ * the JSON responses and write the same fields and dates. The CBOR and Smile beans replace the converters Spring MVC
+ * would otherwise create with a default configuration, after the JSON one. The MessagePack converter is added after
+ * every converter of Spring MVC instead of being a bean, since Spring Boot puts the converter beans it does not replace
+ * first: JSON has to stay the first format, the one a client without an Accept header gets.
+ * </p>
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+	private final Jackson2ObjectMapperBuilder builder;
+
+	/**
+	 * Autowires the Jackson2ObjectMapperBuilder, a new one for the MessagePack mapper.
+	 *
+	 * @param builder the builder of the mappers of Spring Boot
+	 */
+	@Autowired
+	public BinaryFormatConfig(Jackson2ObjectMapperBuilder builder) {
+		this.builder = builder;
+	}
+
+	/**
+	 * Creates the converter of the responses in CBOR.
+	 *
+	 * @param builder the builder of the mappers of Spring Boot
+	 * @return the converter for "application/cbor"
+	 */
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(mapper(builder, BinaryFormat.CBOR));
+	}
+
+	/**
+	 * Creates the converter of the responses in Smile.
+	 *
+	 * @param builder the builder of the mappers of Spring Boot
+	 * @return the converter for "application/x-jackson-smile"
+	 */
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2SmileHttpMessageConverter(mapper(builder, BinaryFormat.SMILE));
+	}
+
+	/**
+	 * Adds the converter of the responses in MessagePack, which Spring MVC has no converter for, after the others.
+	 *
+	 * @param converters the converters of Spring MVC
+	 */
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(new MessagePackHttpMessageConverter(mapper(builder, BinaryFormat.MESSAGE_PACK)));
+	}
+
+	/**
+	 * Builds the mapper of a format. UUIDs, like the folio of the responses, are written as text like in JSON instead of
+	 * the 16 bytes the binary formats would write by default, so every format carries the same values.
+	 */
+	private static ObjectMapper mapper(Jackson2ObjectMapperBuilder builder, BinaryFormat format) {
+		return builder.factory(format.newFactory())
+				.postConfigurer(mapper -> mapper.configOverride(UUID.class).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.STRING)))
+				.build();
+	}
+
+	/**
+	 * This class reads and writes MessagePack with a Jackson mapper, like the CBOR and Smile converters of Spring MVC.
+	 */
+	public static class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+		/**
+		 * Creates a converter with a mapper over a MessagePack factory.
+		 *
+		 * @param objectMapper the mapper writing MessagePack
+		 */
+		public MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+			super(objectMapper, BinaryFormat.MESSAGE_PACK.getMediaTypes().toArray(MediaType[]::new));
+		}
+	}
+}
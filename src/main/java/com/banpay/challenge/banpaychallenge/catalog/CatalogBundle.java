@@ -0,0 +1,42 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This record represents several collections of the catalog served in a single response, like every collection a
+ * caller is allowed to read at page load.
+ * The entities are the JSON trees kept by each {@link RenderedCatalog}, so the models are not serialized again.
+ *
+ * @param collections the entities of each collection, keyed by the name of the resource in the order of
+ *                    {@link CatalogResource#values()}
+ * @param etag        the strong ETag of the bundle, derived from the resources and the content hash of each one
+ */
+public record CatalogBundle(Map<String, List<ObjectNode>> collections, String etag) {
+
+	/**
+	 * Bundles rendered collections.
+	 * The ETag changes when a collection is added, removed or changed, and stays the same otherwise.
+	 *
+	 * @param rendered the rendered collections keyed by resource
+	 * @return the bundle of the collections
+	 */
+	public static CatalogBundle of(Map<CatalogResource<?>, RenderedCatalog> rendered) {
+		Map<String, List<ObjectNode>> collections = new LinkedHashMap<>();
+		StringBuilder hashes = new StringBuilder();
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			RenderedCatalog collection = rendered.get(resource);
+			if (collection != null) {
+				collections.put(resource.getName(), collection.nodes());
+				hashes.append(resource.getName()).append(':').append(collection.hash()).append('\n');
+			}
+		}
+		String etag = "\"" + Digests.sha256(hashes.toString().getBytes(StandardCharsets.UTF_8)) + "-bundle\"";
+		return new CatalogBundle(Collections.unmodifiableMap(collections), etag);
+	}
+}
@@ -0,0 +1,294 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The CatalogCache class keeps the collections of the Studio Ghibli API in memory.
+ * <p>
+ * Each resource lives for its configured time to live. Once it expires the cache keeps serving the stale
+ * collection and refreshes it in the background, so callers only wait on the API the very first time
+ * a resource is requested.
+ * </p>
+ * <p>
+ * The collections are held in an immutable {@link CatalogSnapshot} swapped atomically, so readers never block and never
+ * see a partially updated catalog. The {@link CatalogRefresher} keeps the snapshot up to date in the background.
+ * </p>
+ * <p>
+ * Fetches of the same resource go through a {@link SingleFlight}, so concurrent misses and refreshes share a single
+ * request to the API. A miss or a refresh publishes its entry inside the shared fetch, so the callers that joined it
+ * do not publish the same entry again, and publishing an entry already served is skipped. The number of fetches and of coalesced callers is published as the
+ * "catalog.fetch.executions" and "catalog.fetch.coalesced" metrics, tagged by resource.
+ * </p>
+ * <p>
+ * Before the application starts serving requests the last versions kept by the {@link CatalogStore} are loaded,
+ * and they are used again whenever a missing collection can not be fetched from the API.
+ * Every swap is announced with a {@link CatalogPublishedEvent}. Swaps are serialized with their announcement, so the
+ * listeners get the versions one at a time and in order.
+ * </p>
+ */
+@Component
+public class CatalogCache implements SmartInitializingSingleton {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogCache.class);
+
+	private final CatalogClient client;
+	private final CatalogStore store;
+	private final CatalogProperties properties;
+	private final Executor refreshExecutor;
+	private final ApplicationEventPublisher eventPublisher;
+	private final Clock clock;
+
+	private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.empty());
+	private final Set<CatalogResource<?>> refreshing = ConcurrentHashMap.newKeySet();
+	private final SingleFlight<CatalogResource<?>, CatalogEntry<?>> fetches = new SingleFlight<>();
+	/**
+	 * Held from the swap of a snapshot until its event is handled, so the events are not delivered out of order.
+	 */
+	private final ReentrantLock publishLock = new ReentrantLock();
+
+	/**
+	 * Autowires the CatalogClient, the CatalogStore, the CatalogProperties, the executor for background refreshes,
+	 * the MeterRegistry and the ApplicationEventPublisher.
+	 *
+	 * @param client          client used to reach the Studio Ghibli API
+	 * @param store           store of the last good versions of the catalog
+	 * @param properties      configuration of the catalog
+	 * @param refreshExecutor executor that runs the background refreshes
+	 * @param meterRegistry   registry the fetch counters are published to
+	 * @param eventPublisher  publisher of the CatalogPublishedEvent
+	 */
+	@Autowired
+	public CatalogCache(CatalogClient client,
+						CatalogStore store,
+						CatalogProperties properties,
+						@Qualifier("catalogRefreshExecutor") Executor refreshExecutor,
+						MeterRegistry meterRegistry,
+						ApplicationEventPublisher eventPublisher) {
+		this(client, store, properties, refreshExecutor, meterRegistry, eventPublisher, Clock.systemUTC());
+	}
+
+	CatalogCache(CatalogClient client,
+				 CatalogStore store,
+				 CatalogProperties properties,
+				 Executor refreshExecutor,
+				 MeterRegistry meterRegistry,
+				 ApplicationEventPublisher eventPublisher,
+				 Clock clock) {
+		this.client = client;
+		this.store = store;
+		this.properties = properties;
+		this.refreshExecutor = refreshExecutor;
+		this.eventPublisher = eventPublisher;
+		this.clock = clock;
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			FunctionCounter.builder("catalog.fetch.executions", fetches, f -> f.getExecutions(resource))
+					.description("Fetches of the resource sent to the Studio Ghibli API")
+					.tag("resource", resource.getName())
+					.register(meterRegistry);
+			FunctionCounter.builder("catalog.fetch.coalesced", fetches, f -> f.getCoalesced(resource))
+					.description("Callers that joined a fetch of the resource already in flight")
+					.tag("resource", resource.getName())
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Loads the versions kept in the database before the application starts serving requests.
+	 * Only the database is read here, the API is reached later by the {@link CatalogRefresher}.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		Map<CatalogResource<?>, CatalogEntry<?>> stored = new HashMap<>();
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			store.load(resource).ifPresent(entry -> stored.put(resource, entry));
+		}
+		if (!stored.isEmpty()) {
+			publish(stored);
+		}
+	}
+
+	/**
+	 * Retrieves a collection of the catalog.
+	 * A missing collection is fetched before returning; an expired one is returned as is while a refresh runs in the background.
+	 *
+	 * @param resource the resource to retrieve
+	 * @param <T>      the model class of the resource
+	 * @return the list of entities of the resource
+	 */
+	public <T> List<T> get(CatalogResource<T> resource) {
+		return getEntry(resource).data();
+	}
+
+	/**
+	 * Retrieves the entry of a collection of the catalog, with the same rules as {@link #get(CatalogResource)}.
+	 *
+	 * @param resource the resource to retrieve
+	 * @param <T>      the model class of the resource
+	 * @return the entry of the resource
+	 */
+	public <T> CatalogEntry<T> getEntry(CatalogResource<T> resource) {
+		CatalogEntry<T> entry = snapshot.get().get(resource);
+		if (entry == null) {
+			return load(resource);
+		}
+		if (entry.isExpired(clock.instant(), properties.getTtl(resource))) {
+			refreshInBackground(resource);
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the snapshot currently served.
+	 *
+	 * @return the current CatalogSnapshot
+	 */
+	public CatalogSnapshot getSnapshot() {
+		return snapshot.get();
+	}
+
+	/**
+	 * Fetches the resource from the API without publishing it.
+	 * Concurrent callers for the same resource share the fetch already in flight.
+	 *
+	 * @param resource the resource to fetch
+	 * @param <T>      the model class of the resource
+	 * @return the new entry of the resource
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CatalogEntry<T> fetch(CatalogResource<T> resource) {
+		return (CatalogEntry<T>) fetches.execute(resource, () -> new CatalogEntry<>(client.fetch(resource), clock.instant()));
+	}
+
+	/**
+	 * Swaps in a new snapshot with the given entries replaced and every other resource kept as is.
+	 * Entries already served are left out, and no snapshot is published when none is left, so an entry fetched once
+	 * is announced once whoever publishes it.
+	 * Readers keep reading the snapshot without a lock; only concurrent publishers wait for the event of the previous
+	 * snapshot to be handled.
+	 *
+	 * @param entries the new entries keyed by resource
+	 * @return the snapshot now served
+	 */
+	public CatalogSnapshot publish(Map<CatalogResource<?>, CatalogEntry<?>> entries) {
+		publishLock.lock();
+		try {
+			CatalogSnapshot current = snapshot.get();
+			Map<CatalogResource<?>, CatalogEntry<?>> changed = new HashMap<>();
+			entries.forEach((resource, entry) -> {
+				if (current.get(resource) != entry) {
+					changed.put(resource, entry);
+				}
+			});
+			if (changed.isEmpty()) {
+				return current;
+			}
+			CatalogSnapshot published = snapshot.updateAndGet(served -> served.with(changed));
+			LOGGER.info("Published catalog snapshot {} with {}", published.getVersion(), changed.keySet());
+			eventPublisher.publishEvent(new CatalogPublishedEvent(published, Set.copyOf(changed.keySet())));
+			return published;
+		}
+		finally {
+			publishLock.unlock();
+		}
+	}
+
+	/**
+	 * Publishes the entry of a resource unless the snapshot already holds one, for a miss that joined a fetch which
+	 * does not publish, like those of the {@link CatalogRefresher}.
+	 *
+	 * @param resource the resource
+	 * @param entry    the entry to publish
+	 */
+	private void publishIfAbsent(CatalogResource<?> resource, CatalogEntry<?> entry) {
+		publishLock.lock();
+		try {
+			if (snapshot.get().get(resource) == null) {
+				publish(Map.of(resource, entry));
+			}
+		}
+		finally {
+			publishLock.unlock();
+		}
+	}
+
+	/**
+	 * Fetches the resource from the API and publishes it, once for all the callers sharing the fetch.
+	 * When the API fails the latest version kept in the database is published instead, if there is one.
+	 *
+	 * @param resource the resource to load
+	 * @param <T>      the model class of the resource
+	 * @return the new entry of the resource
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> CatalogEntry<T> load(CatalogResource<T> resource) {
+		CatalogEntry<T> entry;
+		try {
+			entry = (CatalogEntry<T>) fetches.execute(resource, () -> {
+				CatalogEntry<T> loaded;
+				try {
+					loaded = new CatalogEntry<>(client.fetch(resource), clock.instant());
+				}
+				catch (RuntimeException e) {
+					loaded = store.load(resource).orElseThrow(() -> e);
+					LOGGER.warn("Fetching {} failed, serving the stored version: {}", resource, e.getMessage());
+				}
+				publish(Map.of(resource, loaded));
+				return loaded;
+			});
+		}
+		catch (RuntimeException e) {
+			entry = store.load(resource).orElseThrow(() -> e);
+			LOGGER.warn("Fetching {} failed, serving the stored version: {}", resource, e.getMessage());
+		}
+		publishIfAbsent(resource, entry);
+		return entry;
+	}
+
+	/**
+	 * Schedules a refresh of the resource unless one is already running.
+	 * A failed refresh leaves the stale entry in place, so it is retried on the next read.
+	 *
+	 * @param resource the resource to refresh
+	 */
+	private void refreshInBackground(CatalogResource<?> resource) {
+		if (fetches.isInFlight(resource) || !refreshing.add(resource)) {
+			return;
+		}
+		refreshExecutor.execute(() -> {
+			try {
+				fetches.execute(resource, () -> {
+					CatalogEntry<?> entry = new CatalogEntry<>(client.fetch(resource), clock.instant());
+					publish(Map.of(resource, entry));
+					return entry;
+				});
+			}
+			catch (RuntimeException e) {
+				LOGGER.error("Refresh of {} failed, serving stale data: {}", resource, e.getMessage());
+			}
+			finally {
+				refreshing.remove(resource);
+			}
+		});
+	}
+}
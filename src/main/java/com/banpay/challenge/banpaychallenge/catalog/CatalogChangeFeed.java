@@ -0,0 +1,14 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.Map;
+
+/**
+ * This record represents the changes of the catalog between a version a client already holds and the current one,
+ * as served by the {@link CatalogChangeLog}.
+ *
+ * @param since   the version the changes start from, excluded
+ * @param version the current version, included; the next feed should start from its token
+ * @param changes the changes of each collection, keyed by the name of the resource; collections without changes are left out
+ */
+public record CatalogChangeFeed(CatalogVersion since, CatalogVersion version, Map<String, CatalogChanges> changes) {
+}
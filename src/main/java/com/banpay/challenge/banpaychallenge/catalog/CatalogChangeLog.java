@@ -0,0 +1,226 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * The CatalogChangeLog class records which entities each version of the catalog added, updated or removed.
+ * <p>
+ * Every time a collection is published, the content hash of each of its entities is compared with the one of the
+ * previous version, so a refresh that brings the same data records nothing. The changes of the last versions are kept,
+ * and a client that already holds a version gets only the ids changed since then instead of pulling the whole
+ * collections again. Versions older than the ones kept can not be served and the client has to start over.
+ * </p>
+ * <p>
+ * Versions are the numbers of the {@link CatalogSnapshot}, which start again from 0 when the application restarts, so
+ * the clients get them as {@link CatalogVersion} tokens carrying the epoch of the run: a token of another run is
+ * refused like a version no longer kept. The snapshots are published one at a time by the {@link CatalogCache}, so the
+ * versions are recorded in order. Every version that changed something is announced with a {@link CatalogChangedEvent}.
+ * </p>
+ */
+@Component
+public class CatalogChangeLog {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogChangeLog.class);
+
+	/**
+	 * The kinds of change of an entity.
+	 */
+	private enum Change {
+		ADDED, UPDATED, REMOVED
+	}
+
+	private final CatalogRenderer catalogRenderer;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int retainedVersions;
+	/**
+	 * The identifier of this run of the application, written in every version served.
+	 */
+	private final String epoch = Long.toUnsignedString(UUID.randomUUID().getMostSignificantBits(), 36);
+
+	/**
+	 * The hash of each entity of the last version published, keyed by resource and then by id.
+	 */
+	private final Map<CatalogResource<?>, Map<String, String>> hashes = new HashMap<>();
+	/**
+	 * The changes of each version kept, keyed by version, then by resource and then by id.
+	 */
+	private final NavigableMap<Long, Map<CatalogResource<?>, Map<String, Change>>> versions = new TreeMap<>();
+	/**
+	 * The oldest version a feed can start from.
+	 */
+	private long base;
+	private long version;
+
+	/**
+	 * Autowires the CatalogRenderer, the CatalogProperties and the ApplicationEventPublisher.
+	 *
+	 * @param catalogRenderer renderer holding the hash of each entity
+	 * @param properties      configuration of the catalog
+	 * @param eventPublisher  publisher of the CatalogChangedEvent
+	 */
+	@Autowired
+	public CatalogChangeLog(CatalogRenderer catalogRenderer, CatalogProperties properties, ApplicationEventPublisher eventPublisher) {
+		this.catalogRenderer = catalogRenderer;
+		this.eventPublisher = eventPublisher;
+		this.retainedVersions = Math.max(1, properties.getChanges().getRetainedVersions());
+	}
+
+	/**
+	 * Records the entities changed by a newly published snapshot, and announces them if there are any.
+	 * The event is published once the changes are recorded, so its listeners find them in
+	 * {@link #since(CatalogVersion, Predicate)}.
+	 *
+	 * @param event the event published by the CatalogCache
+	 */
+	@EventListener
+	public void onPublished(CatalogPublishedEvent event) {
+		Map<CatalogResource<?>, CatalogChanges> changes = record(event);
+		if (!changes.isEmpty()) {
+			eventPublisher.publishEvent(new CatalogChangedEvent(version(event.snapshot().getVersion()), changes));
+		}
+	}
+
+	private synchronized Map<CatalogResource<?>, CatalogChanges> record(CatalogPublishedEvent event) {
+		Map<CatalogResource<?>, Map<String, Change>> changes = new HashMap<>();
+		for (CatalogResource<?> resource : event.resources()) {
+			Map<String, String> next = catalogRenderer.render(resource, event.snapshot().get(resource)).hashes();
+			Map<String, String> previous = hashes.put(resource, next);
+			Map<String, Change> diff = diff(previous == null ? Map.of() : previous, next);
+			if (!diff.isEmpty()) {
+				changes.put(resource, diff);
+				LOGGER.info("Version {} of the catalog changed {} {}", event.snapshot().getVersion(), diff.size(), resource);
+			}
+		}
+		versions.put(event.snapshot().getVersion(), changes);
+		version = Math.max(version, event.snapshot().getVersion());
+		while (versions.size() > retainedVersions) {
+			base = versions.pollFirstEntry().getKey();
+		}
+		Map<CatalogResource<?>, CatalogChanges> recorded = new HashMap<>();
+		changes.forEach((resource, diff) -> recorded.put(resource, changes(diff)));
+		return recorded;
+	}
+
+	/**
+	 * Gets the version of the given snapshot number in this run of the application.
+	 *
+	 * @param number the number of a snapshot
+	 * @return the version with the epoch of this run
+	 */
+	public CatalogVersion version(long number) {
+		return new CatalogVersion(epoch, number);
+	}
+
+	/**
+	 * Retrieves the entities changed since a version, in the collections the caller can read.
+	 * Changes of the same entity are merged, so an entity updated twice is listed once.
+	 * A version without an epoch is only accepted for 0, the version of a client without a copy yet.
+	 *
+	 * @param from     the version the client holds
+	 * @param readable tells whether the caller can read a resource
+	 * @return the changes up to the current version, or an empty Optional if the version is of another run of the
+	 * application, older than the versions kept or newer than the current one, in which case the client has to fetch
+	 * the whole collections
+	 */
+	public synchronized Optional<CatalogChangeFeed> since(CatalogVersion from, Predicate<CatalogResource<?>> readable) {
+		long since = from.number();
+		boolean sameRun = from.epoch() == null ? since == 0 : from.epoch().equals(epoch);
+		if (!sameRun || since < base || since > version) {
+			return Optional.empty();
+		}
+		Map<CatalogResource<?>, Map<String, Change>> merged = new HashMap<>();
+		for (Map<CatalogResource<?>, Map<String, Change>> changes : versions.tailMap(since, false).values()) {
+			changes.forEach((resource, diff) -> {
+				Map<String, Change> ids = merged.computeIfAbsent(resource, key -> new TreeMap<>());
+				diff.forEach((id, change) -> ids.compute(id, (key, earlier) -> earlier == null ? change : merge(earlier, change)));
+			});
+		}
+
+		Map<String, CatalogChanges> feed = new LinkedHashMap<>();
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			Map<String, Change> ids = merged.get(resource);
+			if (ids != null && !ids.isEmpty() && readable.test(resource)) {
+				feed.put(resource.getName(), changes(ids));
+			}
+		}
+		return Optional.of(new CatalogChangeFeed(version(since), version(version), feed));
+	}
+
+	/**
+	 * Compares the hashes of the entities of two versions of a collection.
+	 *
+	 * @param previous the hashes of the previous version, keyed by id
+	 * @param next     the hashes of the new version, keyed by id
+	 * @return the change of every entity added, updated or removed, keyed by id
+	 */
+	private static Map<String, Change> diff(Map<String, String> previous, Map<String, String> next) {
+		if (previous == next) {
+			return Map.of();
+		}
+		Map<String, Change> diff = new TreeMap<>();
+		next.forEach((id, hash) -> {
+			String old = previous.get(id);
+			if (old == null) {
+				diff.put(id, Change.ADDED);
+			}
+			else if (!old.equals(hash)) {
+				diff.put(id, Change.UPDATED);
+			}
+		});
+		for (String id : previous.keySet()) {
+			if (!next.containsKey(id)) {
+				diff.put(id, Change.REMOVED);
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * Merges two successive changes of the same entity.
+	 *
+	 * @param earlier the change of the older version
+	 * @param later   the change of the newer version
+	 * @return the change from before the older version to after the newer one, or null if the entity is back to not
+	 * existing
+	 */
+	private static Change merge(Change earlier, Change later) {
+		if (earlier == Change.ADDED) {
+			return later == Change.REMOVED ? null : Change.ADDED;
+		}
+		if (earlier == Change.REMOVED) {
+			return later == Change.ADDED ? Change.UPDATED : later;
+		}
+		return later;
+	}
+
+	private static CatalogChanges changes(Map<String, Change> ids) {
+		List<String> added = new ArrayList<>();
+		List<String> updated = new ArrayList<>();
+		List<String> removed = new ArrayList<>();
+		ids.forEach((id, change) -> (switch (change) {
+			case ADDED -> added;
+			case UPDATED -> updated;
+			case REMOVED -> removed;
+		}).add(id));
+		return new CatalogChanges(added, updated, removed);
+	}
+}
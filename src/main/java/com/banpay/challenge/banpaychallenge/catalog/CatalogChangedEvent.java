@@ -0,0 +1,13 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.Map;
+
+/**
+ * This record represents the event published by the {@link CatalogChangeLog} when a version of the catalog changed
+ * some entities. Versions that brought the same data are not announced.
+ *
+ * @param version the version of the snapshot that made the changes
+ * @param changes the changes of each collection changed, keyed by resource
+ */
+public record CatalogChangedEvent(CatalogVersion version, Map<CatalogResource<?>, CatalogChanges> changes) {
+}
@@ -0,0 +1,14 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.List;
+
+/**
+ * This record represents the entities of a collection changed between two versions of the catalog.
+ * An entity added and then removed within the versions appears in none of the lists.
+ *
+ * @param added   the ids of the entities added, sorted
+ * @param updated the ids of the entities whose content changed, sorted
+ * @param removed the ids of the entities removed, sorted
+ */
+public record CatalogChanges(List<String> added, List<String> updated, List<String> removed) {
+}
@@ -0,0 +1,197 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The CatalogCircuitBreaker class tracks the health of the calls of one resource to one server of the Studio Ghibli
+ * API.
+ * <p>
+ * While closed every call goes through and its outcome is kept in a window of the last calls. Once the window holds
+ * enough calls and either the share of failures or the share of slow calls reaches its threshold, the breaker opens:
+ * calls are rejected at once, without reaching the API, until the open duration has elapsed. The breaker is then
+ * half-open and lets a single probe through; the probe closes it again when it succeeds and reopens it otherwise.
+ * </p>
+ * <p>
+ * Failures are the calls that got no response or an error status from the server, 5xx or "429 Too Many Requests".
+ * Other client errors say nothing about the health of the API and count as successes.
+ * </p>
+ */
+class CatalogCircuitBreaker {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogCircuitBreaker.class);
+
+	/**
+	 * The states of a breaker.
+	 */
+	enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String name;
+	private final CatalogProperties.Breaker properties;
+	private final Clock clock;
+
+	/**
+	 * Outcomes of the last calls, as a ring buffer of {@link CatalogProperties.Breaker#getWindowSize()} slots.
+	 */
+	private final boolean[] failed;
+	private final boolean[] slow;
+	private int next;
+	private int recorded;
+	private int failures;
+	private int slowCalls;
+
+	private State state = State.CLOSED;
+	private Instant openedAt;
+	private boolean probing;
+
+	/**
+	 * Constructs a new closed CatalogCircuitBreaker.
+	 *
+	 * @param name       the name of the calls tracked, used in the logs
+	 * @param properties the thresholds of the breaker
+	 * @param clock      clock timing the open state
+	 */
+	CatalogCircuitBreaker(String name, CatalogProperties.Breaker properties, Clock clock) {
+		this.name = name;
+		this.properties = properties;
+		this.clock = clock;
+		this.failed = new boolean[Math.max(1, properties.getWindowSize())];
+		this.slow = new boolean[failed.length];
+	}
+
+	/**
+	 * Asks to send a call. Every accepted call must be followed by {@link #onResult(boolean, Duration)} or
+	 * {@link #onIgnored()}.
+	 *
+	 * @return true if the call may be sent, false if the breaker rejects it
+	 */
+	synchronized boolean tryAcquire() {
+		if (!properties.isEnabled() || state == State.CLOSED) {
+			return true;
+		}
+		if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(properties.getOpenDuration()))) {
+			transition(State.HALF_OPEN);
+		}
+		if (state == State.HALF_OPEN && !probing) {
+			probing = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records the outcome of an accepted call.
+	 *
+	 * @param failure whether the call failed
+	 * @param elapsed the time the call took
+	 */
+	synchronized void onResult(boolean failure, Duration elapsed) {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		boolean slowCall = elapsed.compareTo(properties.getSlowCallDuration()) >= 0;
+		if (state == State.HALF_OPEN) {
+			probing = false;
+			if (failure || slowCall) {
+				open();
+			}
+			else {
+				transition(State.CLOSED);
+			}
+			return;
+		}
+		if (state == State.OPEN) {
+			return;
+		}
+		record(failure, slowCall);
+		if (recorded >= Math.min(properties.getMinimumCalls(), failed.length)
+				&& (getFailureRate() >= properties.getFailureRateThreshold() || getSlowCallRate() >= properties.getSlowCallRateThreshold())) {
+			open();
+		}
+	}
+
+	/**
+	 * Releases an accepted call that never reached the API, so it does not count either way.
+	 */
+	synchronized void onIgnored() {
+		if (state == State.HALF_OPEN) {
+			probing = false;
+		}
+	}
+
+	synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Retrieves the time left before the breaker lets a probe through.
+	 *
+	 * @return the time left while open, zero otherwise
+	 */
+	synchronized Duration getRetryAfter() {
+		if (state != State.OPEN) {
+			return Duration.ZERO;
+		}
+		Duration left = Duration.between(clock.instant(), openedAt.plus(properties.getOpenDuration()));
+		return left.isNegative() ? Duration.ZERO : left;
+	}
+
+	/**
+	 * Retrieves the share of failures among the calls of the window.
+	 *
+	 * @return a percentage, 0 when the window is empty
+	 */
+	synchronized double getFailureRate() {
+		return recorded == 0 ? 0 : 100.0 * failures / recorded;
+	}
+
+	/**
+	 * Retrieves the share of slow calls among the calls of the window.
+	 *
+	 * @return a percentage, 0 when the window is empty
+	 */
+	synchronized double getSlowCallRate() {
+		return recorded == 0 ? 0 : 100.0 * slowCalls / recorded;
+	}
+
+	private void record(boolean failure, boolean slowCall) {
+		if (recorded == failed.length) {
+			failures -= failed[next] ? 1 : 0;
+			slowCalls -= slow[next] ? 1 : 0;
+		}
+		else {
+			recorded++;
+		}
+		failed[next] = failure;
+		slow[next] = slowCall;
+		failures += failure ? 1 : 0;
+		slowCalls += slowCall ? 1 : 0;
+		next = (next + 1) % failed.length;
+	}
+
+	private void open() {
+		openedAt = clock.instant();
+		transition(State.OPEN);
+	}
+
+	private void transition(State target) {
+		LOGGER.warn("Circuit of {} goes from {} to {} (failures {}%, slow calls {}%)",
+					name, state, target, Math.round(getFailureRate()), Math.round(getSlowCallRate()));
+		state = target;
+		if (target == State.CLOSED) {
+			next = 0;
+			recorded = 0;
+			failures = 0;
+			slowCalls = 0;
+		}
+	}
+}
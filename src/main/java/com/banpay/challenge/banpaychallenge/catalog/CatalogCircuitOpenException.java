@@ -0,0 +1,20 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.time.Duration;
+
+/**
+ * The CatalogCircuitOpenException is thrown instead of calling the Studio Ghibli API while the circuit breaker of the
+ * resource is open. Its retry after is the time left before the breaker lets a call through again.
+ */
+public class CatalogCircuitOpenException extends CatalogUpstreamException {
+
+	/**
+	 * Constructs a new CatalogCircuitOpenException.
+	 *
+	 * @param message    the detail message
+	 * @param retryAfter the time left before the breaker lets a call through again
+	 */
+	public CatalogCircuitOpenException(String message, Duration retryAfter) {
+		super(message, 0, retryAfter, null);
+	}
+}
@@ -0,0 +1,70 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * The CatalogClient class retrieves the collections of the catalog from the configured {@link CatalogSource}.
+ * <p>
+ * When "studio-ghibli.api.url" is an http or https URL the collections come from the Studio Ghibli API. It may also
+ * list the URLs of several mirrors separated by commas, which are then picked by the {@link CatalogMirrors}.
+ * Any other value, either a "file:" URL or a plain path, points to local JSON dumps read by a {@link FileCatalogSource},
+ * which lets the catalog run without network access.
+ * </p>
+ */
+@Component
+public class CatalogClient {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogClient.class);
+
+	private final CatalogSource source;
+
+	/**
+	 * Autowires the CatalogHttpClient, the ObjectMapper, the CatalogProperties and the MeterRegistry.
+	 *
+	 * @param httpClient    client used to reach the Studio Ghibli API
+	 * @param objectMapper  mapper used to read local dumps
+	 * @param properties    configuration of the catalog, including the API url
+	 * @param meterRegistry registry the health of the mirrors is published to
+	 */
+	@Autowired
+	public CatalogClient(CatalogHttpClient httpClient, ObjectMapper objectMapper, CatalogProperties properties, MeterRegistry meterRegistry) {
+		this.source = createSource(httpClient, objectMapper, properties, meterRegistry);
+		LOGGER.info("Reading the catalog from {}", source);
+	}
+
+	/**
+	 * Retrieves a whole collection from the source.
+	 *
+	 * @param resource the resource to retrieve
+	 * @param <T>      the model class of the resource
+	 * @return the list of entities, empty if the source has none
+	 */
+	public <T> List<T> fetch(CatalogResource<T> resource) {
+		LOGGER.info("Fetching {} from {}", resource, source);
+		return source.fetch(resource);
+	}
+
+	private static CatalogSource createSource(CatalogHttpClient httpClient, ObjectMapper objectMapper,
+											  CatalogProperties properties, MeterRegistry meterRegistry) {
+		String url = properties.getUrl().trim();
+		if (url.startsWith("http://") || url.startsWith("https://")) {
+			CatalogMirrors mirrors = new CatalogMirrors(properties.getUrls(), properties.getMirrors(), meterRegistry, Clock.systemUTC());
+			return new HttpCatalogSource(httpClient, objectMapper, mirrors);
+		}
+		Path path = url.startsWith("file:") ? Path.of(URI.create(url)) : Path.of(url);
+		return new FileCatalogSource(path, objectMapper);
+	}
+}
@@ -0,0 +1,128 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This record represents the filters, the sort and the limit of a query over the {@link CatalogColumns}.
+ * <p>
+ * It is read from the raw query string, since comparisons like "rt_score&gt;=90" are not plain name and value pairs.
+ * Every parameter other than "sort", "limit" and the ones of the
+ * {@link com.banpay.challenge.banpaychallenge.payload.request.CatalogQuery} is a condition on a column, written as
+ * the column, one of the operators "=", "!=", "&gt;=", "&lt;=", "&gt;" or "&lt;", and a value. A categorical column
+ * accepts several values separated by commas for "=" and "!=". The sort lists the columns to order by, each one
+ * prefixed with "-" for a descending order, like "sort=-release_date,director".
+ * </p>
+ *
+ * @param conditions the conditions every returned entity must meet
+ * @param sort       the columns to order by, the first one first
+ * @param limit      the maximum number of entities, or null to return all of them
+ */
+public record CatalogColumnQuery(List<Condition> conditions, List<SortKey> sort, Integer limit) {
+
+	/**
+	 * The maximum value of the limit.
+	 */
+	public static final int MAX_LIMIT = 500;
+
+	private static final Set<String> RESERVED = Set.of("page", "size", "cursor", "fields", "expand");
+	private static final String[] OPERATORS = {"!=", ">=", "<=", "=", ">", "<"};
+
+	/**
+	 * Parses the raw query string of a request.
+	 *
+	 * @param queryString the raw query string, may be null
+	 * @return the query, empty if there is nothing to filter, sort or limit
+	 * @throws IllegalArgumentException if a parameter is malformed
+	 */
+	public static CatalogColumnQuery parse(String queryString) {
+		List<Condition> conditions = new ArrayList<>();
+		List<SortKey> sort = new ArrayList<>();
+		Integer limit = null;
+		if (queryString == null || queryString.isEmpty()) {
+			return new CatalogColumnQuery(conditions, sort, null);
+		}
+
+		for (String parameter : queryString.split("&")) {
+			String decoded = URLDecoder.decode(parameter, StandardCharsets.UTF_8);
+			if (decoded.isEmpty()) {
+				continue;
+			}
+			int split = -1;
+			String operator = null;
+			for (String candidate : OPERATORS) {
+				int index = decoded.indexOf(candidate);
+				if (index > 0 && (split < 0 || index < split || index == split && candidate.length() > operator.length())) {
+					split = index;
+					operator = candidate;
+				}
+			}
+			if (operator == null) {
+				throw new IllegalArgumentException("Malformed parameter " + decoded);
+			}
+			String name = decoded.substring(0, split);
+			String value = decoded.substring(split + operator.length());
+			if (RESERVED.contains(name)) {
+				continue;
+			}
+			if (name.equals("sort") && operator.equals("=")) {
+				for (String column : value.split(",")) {
+					if (!column.isBlank()) {
+						sort.add(column.startsWith("-") ? new SortKey(column.substring(1), true) : new SortKey(column, false));
+					}
+				}
+			}
+			else if (name.equals("limit") && operator.equals("=")) {
+				limit = parseLimit(value);
+			}
+			else {
+				conditions.add(new Condition(name, operator, value));
+			}
+		}
+		return new CatalogColumnQuery(List.copyOf(conditions), List.copyOf(sort), limit);
+	}
+
+	/**
+	 * Checks whether the query filters, sorts or limits anything.
+	 *
+	 * @return true if the query has no condition, no sort and no limit, false otherwise
+	 */
+	public boolean isEmpty() {
+		return conditions.isEmpty() && sort.isEmpty() && limit == null;
+	}
+
+	private static int parseLimit(String value) {
+		try {
+			int limit = Integer.parseInt(value);
+			if (limit >= 1 && limit <= MAX_LIMIT) {
+				return limit;
+			}
+		}
+		catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("The limit must be between 1 and " + MAX_LIMIT);
+	}
+
+	/**
+	 * This record represents a condition on a column.
+	 *
+	 * @param column   the name of the column
+	 * @param operator one of "=", "!=", "&gt;=", "&lt;=", "&gt;" or "&lt;"
+	 * @param value    the value to compare with, or the values separated by commas
+	 */
+	public record Condition(String column, String operator, String value) {
+	}
+
+	/**
+	 * This record represents a column to order by.
+	 *
+	 * @param column     the name of the column
+	 * @param descending whether the greatest values go first
+	 */
+	public record SortKey(String column, boolean descending) {
+	}
+}
@@ -0,0 +1,120 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The CatalogColumnStore class keeps the {@link CatalogColumns} of each collection.
+ * <p>
+ * The columns of a collection are built from its rendering every time the collection is published, and swapped in as
+ * a whole, so the numbers are parsed once per version instead of once per comparison, and the {@link CatalogFacets}
+ * of the version are ready before the first request asks for them.
+ * </p>
+ */
+@Component
+public class CatalogColumnStore {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogColumnStore.class);
+
+	/**
+	 * The numeric fields of each resource.
+	 */
+	private static final Map<CatalogResource<?>, List<String>> NUMERIC = Map.of(
+			CatalogResource.FILMS, List.of("rt_score", "running_time", "release_date"),
+			CatalogResource.PEOPLE, List.of("age"),
+			CatalogResource.LOCATIONS, List.of("surface_water"),
+			CatalogResource.SPECIES, List.of(),
+			CatalogResource.VEHICLES, List.of("length"));
+
+	/**
+	 * The categorical fields of each resource.
+	 */
+	private static final Map<CatalogResource<?>, List<String>> CATEGORICAL = Map.of(
+			CatalogResource.FILMS, List.of("director", "producer"),
+			CatalogResource.PEOPLE, List.of("gender", "eye_color", "hair_color", "species"),
+			CatalogResource.LOCATIONS, List.of("climate", "terrain"),
+			CatalogResource.SPECIES, List.of("classification", "eye_color", "hair_color"),
+			CatalogResource.VEHICLES, List.of("vehicle_class"));
+
+	private final CatalogRenderer catalogRenderer;
+	private final Map<CatalogResource<?>, CatalogColumns> columns = new ConcurrentHashMap<>();
+
+	/**
+	 * Autowires the CatalogRenderer.
+	 *
+	 * @param catalogRenderer renderer holding the JSON trees of each collection
+	 */
+	@Autowired
+	public CatalogColumnStore(CatalogRenderer catalogRenderer) {
+		this.catalogRenderer = catalogRenderer;
+	}
+
+	/**
+	 * Builds the columns of the resources of a newly published snapshot ahead of the queries.
+	 *
+	 * @param event the event published by the CatalogCache
+	 */
+	@EventListener
+	public void onPublished(CatalogPublishedEvent event) {
+		for (CatalogResource<?> resource : event.resources()) {
+			get(resource, event.snapshot().get(resource));
+		}
+	}
+
+	/**
+	 * Retrieves the columns of an entry, building them if the current ones belong to another entry.
+	 *
+	 * @param resource the resource of the entry
+	 * @param entry    the entry
+	 * @return the columns of the entry
+	 */
+	public CatalogColumns get(CatalogResource<?> resource, CatalogEntry<?> entry) {
+		CatalogColumns current = columns.get(resource);
+		if (current != null && current.getEntry() == entry) {
+			return current;
+		}
+		return columns.compute(resource, (key, previous) ->
+				previous != null && previous.getEntry() == entry ? previous : build(resource, entry));
+	}
+
+	private CatalogColumns build(CatalogResource<?> resource, CatalogEntry<?> entry) {
+		List<ObjectNode> nodes = catalogRenderer.render(resource, entry).nodes();
+		Map<String, CatalogColumns.Column> built = new HashMap<>();
+		for (String field : NUMERIC.get(resource)) {
+			built.put(field, CatalogColumns.intColumn(texts(nodes, field)));
+		}
+		for (String field : CATEGORICAL.get(resource)) {
+			try {
+				built.put(field, CatalogColumns.dictionaryColumn(texts(nodes, field)));
+			}
+			catch (IllegalArgumentException e) {
+				LOGGER.warn("Skipping the column {} of {}: {}", field, resource, e.getMessage());
+			}
+		}
+		LOGGER.info("Built {} columns over {} {}", built.size(), nodes.size(), resource);
+		return new CatalogColumns(entry, nodes.size(), built);
+	}
+
+	private static List<String> texts(List<ObjectNode> nodes, String field) {
+		List<String> texts = new ArrayList<>(nodes.size());
+		for (ObjectNode node : nodes) {
+			JsonNode value = node.get(field);
+			texts.add(value == null || value.isNull() ? null : value.asText());
+		}
+		return texts;
+	}
+}
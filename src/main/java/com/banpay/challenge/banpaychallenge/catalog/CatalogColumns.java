@@ -0,0 +1,338 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * The CatalogColumns class holds the filterable fields of a collection as primitive columns.
+ * <p>
+ * The API sends numbers like "rt_score" or "release_date" as strings. Here they are parsed once into an {@code int[]},
+ * and categorical fields like "director" are dictionary encoded into a {@code short[]} of codes over a sorted
+ * dictionary, so the order of the codes is the order of the values. Filters and sorts then compare primitives only:
+ * each sort key is packed with the position of the row into a {@code long} and the keys are sorted as a
+ * {@code long[]}, one stable pass per column from the last one to the first.
+ * The {@link CatalogFacets} are aggregated from the same columns when they are built.
+ * </p>
+ */
+public final class CatalogColumns {
+
+	private static final int MISSING = Integer.MIN_VALUE;
+	private static final int ROW_BITS = 24;
+	private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+
+	private final CatalogEntry<?> entry;
+	private final int rows;
+	private final Map<String, Column> columns;
+	private final CatalogFacets facets;
+
+	CatalogColumns(CatalogEntry<?> entry, int rows, Map<String, Column> columns) {
+		if (rows > ROW_MASK) {
+			throw new IllegalArgumentException("Too many rows for a columnar view: " + rows);
+		}
+		this.entry = entry;
+		this.rows = rows;
+		this.columns = Map.copyOf(columns);
+		this.facets = aggregate(rows, new TreeMap<>(columns));
+	}
+
+	/**
+	 * Builds an integer column from the text of each row.
+	 * The leading integer of the text is kept, ignoring thousands separators, so "1,000" gives 1000 and
+	 * "11 (in 1988)" gives 11. Rows without a number are missing.
+	 *
+	 * @param texts the text of each row, may contain nulls
+	 * @return the column
+	 */
+	static Column intColumn(List<String> texts) {
+		int[] values = new int[texts.size()];
+		for (int row = 0; row < values.length; row++) {
+			values[row] = parseLeadingInt(texts.get(row));
+		}
+		return new IntColumn(values);
+	}
+
+	/**
+	 * Builds a dictionary encoded column from the text of each row.
+	 *
+	 * @param texts the text of each row, may contain nulls
+	 * @return the column
+	 * @throws IllegalArgumentException if there are more distinct values than a short can encode
+	 */
+	static Column dictionaryColumn(List<String> texts) {
+		TreeMap<String, Short> codes = new TreeMap<>();
+		texts.stream().filter(text -> text != null && !text.isBlank()).forEach(text -> codes.put(text, (short) 0));
+		if (codes.size() > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many distinct values for a dictionary: " + codes.size());
+		}
+		String[] dictionary = codes.keySet().toArray(String[]::new);
+		for (short code = 0; code < dictionary.length; code++) {
+			codes.put(dictionary[code], code);
+		}
+		short[] values = new short[texts.size()];
+		for (int row = 0; row < values.length; row++) {
+			String text = texts.get(row);
+			values[row] = text == null || text.isBlank() ? -1 : codes.get(text);
+		}
+		return new DictionaryColumn(dictionary, values);
+	}
+
+	public CatalogEntry<?> getEntry() {
+		return entry;
+	}
+
+	public CatalogFacets getFacets() {
+		return facets;
+	}
+
+	/**
+	 * Selects the rows meeting every condition, in the order of the sort, up to the limit.
+	 *
+	 * @param query the conditions, the sort and the limit
+	 * @return the positions of the selected rows in the collection
+	 * @throws IllegalArgumentException if a column does not exist or a condition does not suit its column
+	 */
+	public int[] select(CatalogColumnQuery query) {
+		IntPredicate filter = row -> true;
+		for (CatalogColumnQuery.Condition condition : query.conditions()) {
+			filter = filter.and(column(condition.column()).condition(condition));
+		}
+
+		int[] selected = new int[rows];
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			if (filter.test(row)) {
+				selected[count++] = row;
+			}
+		}
+		selected = Arrays.copyOf(selected, count);
+
+		List<CatalogColumnQuery.SortKey> sort = query.sort();
+		for (int i = sort.size() - 1; i >= 0; i--) {
+			selected = sort(selected, column(sort.get(i).column()), sort.get(i).descending());
+		}
+		return query.limit() != null && query.limit() < selected.length ? Arrays.copyOf(selected, query.limit()) : selected;
+	}
+
+	/**
+	 * Sorts the rows by a column, keeping the current order of rows with the same key.
+	 * Missing values go last whatever the direction.
+	 */
+	private static int[] sort(int[] selected, Column column, boolean descending) {
+		long[] packed = new long[selected.length];
+		for (int position = 0; position < selected.length; position++) {
+			int key = column.key(selected[position]);
+			long ordered = key == MISSING ? 1L << 33 : descending ? -(long) key : key;
+			packed[position] = (ordered + (1L << 31)) << ROW_BITS | position;
+		}
+		Arrays.sort(packed);
+		int[] sorted = new int[selected.length];
+		for (int i = 0; i < packed.length; i++) {
+			sorted[i] = selected[(int) (packed[i] & ROW_MASK)];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Counts the rows of every value of the dictionary columns and averages the int columns over them, in one pass
+	 * over the codes per pair of columns.
+	 */
+	private static CatalogFacets aggregate(int rows, TreeMap<String, Column> columns) {
+		Map<String, IntColumn> numeric = new LinkedHashMap<>();
+		Map<String, DictionaryColumn> categorical = new LinkedHashMap<>();
+		columns.forEach((name, column) -> {
+			if (column instanceof IntColumn intColumn) {
+				numeric.put(name, intColumn);
+			}
+			else if (column instanceof DictionaryColumn dictionaryColumn) {
+				categorical.put(name, dictionaryColumn);
+			}
+		});
+
+		Map<String, CatalogFacets.Stats> stats = new LinkedHashMap<>();
+		numeric.forEach((name, column) -> {
+			int count = 0;
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			long sum = 0;
+			for (int value : column.values()) {
+				if (value != MISSING) {
+					count++;
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+					sum += value;
+				}
+			}
+			stats.put(name, count == 0
+					? new CatalogFacets.Stats(0, null, null, null)
+					: new CatalogFacets.Stats(count, min, max, round((double) sum / count)));
+		});
+
+		Map<String, List<CatalogFacets.Facet>> facets = new LinkedHashMap<>();
+		categorical.forEach((name, column) -> {
+			int size = column.dictionary().length;
+			int[] counts = new int[size];
+			for (short code : column.codes()) {
+				if (code >= 0) {
+					counts[code]++;
+				}
+			}
+			List<Map<String, Double>> averages = new ArrayList<>();
+			for (int code = 0; code < size; code++) {
+				averages.add(new LinkedHashMap<>());
+			}
+			numeric.forEach((measure, values) -> {
+				long[] sums = new long[size];
+				int[] present = new int[size];
+				for (int row = 0; row < rows; row++) {
+					short code = column.codes()[row];
+					int value = values.values()[row];
+					if (code >= 0 && value != MISSING) {
+						sums[code] += value;
+						present[code]++;
+					}
+				}
+				for (int code = 0; code < size; code++) {
+					if (present[code] > 0) {
+						averages.get(code).put(measure, round((double) sums[code] / present[code]));
+					}
+				}
+			});
+			List<CatalogFacets.Facet> values = new ArrayList<>(size);
+			for (int code = 0; code < size; code++) {
+				values.add(new CatalogFacets.Facet(column.dictionary()[code], counts[code], Collections.unmodifiableMap(averages.get(code))));
+			}
+			values.sort(Comparator.comparingInt(CatalogFacets.Facet::count).reversed());
+			facets.put(name, List.copyOf(values));
+		});
+		return new CatalogFacets(rows, Collections.unmodifiableMap(stats), Collections.unmodifiableMap(facets));
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	private Column column(String name) {
+		Column column = columns.get(name);
+		if (column == null) {
+			throw new IllegalArgumentException("Unknown column " + name + ", expected one of " + new TreeMap<>(columns).keySet());
+		}
+		return column;
+	}
+
+	private static int parseLeadingInt(String text) {
+		if (text == null) {
+			return MISSING;
+		}
+		String trimmed = text.strip();
+		boolean negative = trimmed.startsWith("-");
+		long value = 0;
+		int digits = 0;
+		for (int i = negative ? 1 : 0; i < trimmed.length(); i++) {
+			char c = trimmed.charAt(i);
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				if (++digits > 9) {
+					return MISSING;
+				}
+			}
+			else if (c != ',' || digits == 0) {
+				break;
+			}
+		}
+		return digits == 0 ? MISSING : (int) (negative ? -value : value);
+	}
+
+	/**
+	 * This interface represents a column of the collection.
+	 */
+	sealed interface Column permits IntColumn, DictionaryColumn {
+
+		/**
+		 * Returns the key the row is sorted by.
+		 *
+		 * @param row the position of the row
+		 * @return the key of the row, or {@link #MISSING} if the row has no value
+		 */
+		int key(int row);
+
+		/**
+		 * Compiles a condition into a predicate over the rows.
+		 *
+		 * @param condition the condition
+		 * @return the predicate
+		 * @throws IllegalArgumentException if the condition does not suit the column
+		 */
+		IntPredicate condition(CatalogColumnQuery.Condition condition);
+	}
+
+	/**
+	 * This record represents a numeric column.
+	 *
+	 * @param values the value of each row, {@link #MISSING} for rows without a number
+	 */
+	record IntColumn(int[] values) implements Column {
+
+		@Override
+		public int key(int row) {
+			return values[row];
+		}
+
+		@Override
+		public IntPredicate condition(CatalogColumnQuery.Condition condition) {
+			int value;
+			try {
+				value = Integer.parseInt(condition.value().trim());
+			}
+			catch (NumberFormatException e) {
+				throw new IllegalArgumentException("The column " + condition.column() + " only compares with integers");
+			}
+			return switch (condition.operator()) {
+				case "=" -> row -> values[row] != MISSING && values[row] == value;
+				case "!=" -> row -> values[row] != MISSING && values[row] != value;
+				case ">=" -> row -> values[row] != MISSING && values[row] >= value;
+				case "<=" -> row -> values[row] != MISSING && values[row] <= value;
+				case ">" -> row -> values[row] != MISSING && values[row] > value;
+				case "<" -> row -> values[row] != MISSING && values[row] < value;
+				default -> throw new IllegalArgumentException("Unknown operator " + condition.operator());
+			};
+		}
+	}
+
+	/**
+	 * This record represents a dictionary encoded column.
+	 *
+	 * @param dictionary the distinct values, sorted
+	 * @param codes      the position in the dictionary of the value of each row, -1 for rows without a value
+	 */
+	record DictionaryColumn(String[] dictionary, short[] codes) implements Column {
+
+		@Override
+		public int key(int row) {
+			return codes[row] < 0 ? MISSING : codes[row];
+		}
+
+		@Override
+		public IntPredicate condition(CatalogColumnQuery.Condition condition) {
+			boolean[] accepted = new boolean[dictionary.length];
+			for (String value : condition.value().split(",")) {
+				for (int code = 0; code < dictionary.length; code++) {
+					if (dictionary[code].equalsIgnoreCase(value.trim())) {
+						accepted[code] = true;
+					}
+				}
+			}
+			return switch (condition.operator()) {
+				case "=" -> row -> codes[row] >= 0 && accepted[codes[row]];
+				case "!=" -> row -> codes[row] < 0 || !accepted[codes[row]];
+				default -> throw new IllegalArgumentException("The column " + condition.column() + " only accepts = and !=");
+			};
+		}
+	}
+}
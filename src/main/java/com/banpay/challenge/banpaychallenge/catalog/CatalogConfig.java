@@ -0,0 +1,62 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The CatalogConfig class registers the beans shared by the Studio Ghibli catalog.
+ */
+@Configuration
+@EnableConfigurationProperties(CatalogProperties.class)
+public class CatalogConfig {
+
+	/**
+	 * Creates the executor that runs the background refreshes of the catalog.
+	 * Refreshes spend most of their time waiting on the network, so each one runs on its own virtual thread.
+	 *
+	 * @return an ExecutorService backed by virtual threads
+	 */
+	@Bean
+	public ExecutorService catalogRefreshExecutor() {
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	/**
+	 * Creates the executor that runs the catalog requests of the RoleController.
+	 * A request may wait for the Studio Ghibli API on a cache miss, so each one runs on its own virtual thread instead
+	 * of holding a servlet thread.
+	 *
+	 * @return an ExecutorService backed by virtual threads
+	 */
+	@Bean
+	public ExecutorService catalogRequestExecutor() {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("catalog-request-", 0).factory());
+	}
+
+	/**
+	 * Creates the executor that sends the catalog updates to the subscribed clients.
+	 * Each subscriber gets a virtual thread that waits for its next update, so idle subscribers only cost a parked thread.
+	 *
+	 * @return an ExecutorService backed by virtual threads
+	 */
+	@Bean
+	public ExecutorService catalogStreamExecutor() {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("catalog-stream-", 0).factory());
+	}
+
+	/**
+	 * Creates the scheduler that triggers the periodic refresh of the catalog.
+	 * The scheduler only times the refreshes, the fetches themselves run on {@link #catalogRefreshExecutor()}.
+	 *
+	 * @return a single threaded ScheduledExecutorService
+	 */
+	@Bean
+	public ScheduledExecutorService catalogRefreshScheduler() {
+		return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("catalog-refresh").daemon().factory());
+	}
+}
@@ -0,0 +1,31 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * This record represents a collection of the catalog held in memory.
+ * Each CatalogEntry contains the immutable list of entities and the instant they were fetched at.
+ *
+ * @param data      the entities of the collection
+ * @param fetchedAt the instant the collection was retrieved from the Studio Ghibli API
+ * @param <T>       the model class of the entities
+ */
+public record CatalogEntry<T>(List<T> data, Instant fetchedAt) {
+
+	public CatalogEntry {
+		data = List.copyOf(data);
+	}
+
+	/**
+	 * Checks whether the entry outlived its time to live.
+	 *
+	 * @param now the current instant
+	 * @param ttl the time to live of the resource
+	 * @return true if the entry is older than the time to live, false otherwise
+	 */
+	public boolean isExpired(Instant now, Duration ttl) {
+		return fetchedAt.plus(ttl).isBefore(now);
+	}
+}
@@ -0,0 +1,15 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.Set;
+
+/**
+ * This record represents some rows of a rendered collection to be written as newline delimited JSON.
+ * It is the body of an export response, written by the {@link CatalogExportHttpMessageConverter} while the response
+ * is sent.
+ *
+ * @param rendered the rendered collection
+ * @param rows     the positions of the rows to write in order, or null for the whole collection
+ * @param fields   the fields to keep, or null for every field
+ */
+public record CatalogExport(RenderedCatalog rendered, int[] rows, Set<String> fields) {
+}
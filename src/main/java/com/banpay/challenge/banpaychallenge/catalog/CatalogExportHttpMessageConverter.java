@@ -0,0 +1,57 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * The CatalogExportHttpMessageConverter class writes a {@link CatalogExport} as newline delimited JSON.
+ * <p>
+ * Spring Boot registers every converter bean with Spring MVC, so a handler only has to return a ResponseEntity with a
+ * CatalogExport body, synchronously or in a CompletableFuture, and the entities are streamed by
+ * {@link CatalogRenderer#writeNdjson(RenderedCatalog, int[], java.util.Set, java.io.OutputStream)} straight to the
+ * response.
+ * </p>
+ */
+@Component
+public class CatalogExportHttpMessageConverter extends AbstractHttpMessageConverter<CatalogExport> {
+
+	private final CatalogRenderer catalogRenderer;
+
+	/**
+	 * Autowires the CatalogRenderer.
+	 *
+	 * @param catalogRenderer renderer writing the entities
+	 */
+	@Autowired
+	public CatalogExportHttpMessageConverter(CatalogRenderer catalogRenderer) {
+		super(MediaType.APPLICATION_NDJSON);
+		this.catalogRenderer = catalogRenderer;
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return CatalogExport.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected CatalogExport readInternal(Class<? extends CatalogExport> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("A catalog export can not be read", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(CatalogExport export, HttpOutputMessage outputMessage) throws IOException {
+		catalogRenderer.writeNdjson(export.rendered(), export.rows(), export.fields(), outputMessage.getBody());
+	}
+}
@@ -0,0 +1,39 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This record represents the aggregations of a collection, computed once when its columns are built.
+ * <p>
+ * For every categorical field it counts the entities of each value and averages the numeric fields over them, like
+ * the films of each director with their average rt_score, and for every numeric field it keeps the overall figures.
+ * </p>
+ *
+ * @param total  the number of entities in the collection
+ * @param stats  the overall figures of each numeric field
+ * @param facets the values of each categorical field, the most frequent first
+ */
+public record CatalogFacets(int total, Map<String, Stats> stats, Map<String, List<Facet>> facets) {
+
+	/**
+	 * This record represents the overall figures of a numeric field.
+	 *
+	 * @param count   the number of entities with a value
+	 * @param min     the smallest value, null if no entity has a value
+	 * @param max     the largest value, null if no entity has a value
+	 * @param average the average value, null if no entity has a value
+	 */
+	public record Stats(int count, Integer min, Integer max, Double average) {
+	}
+
+	/**
+	 * This record represents a value of a categorical field.
+	 *
+	 * @param value    the value
+	 * @param count    the number of entities with the value
+	 * @param averages the average of each numeric field over the entities with the value that have one
+	 */
+	public record Facet(String value, int count, Map<String, Double> averages) {
+	}
+}
@@ -0,0 +1,174 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * The CatalogGraph class resolves the references between the collections of the catalog.
+ * <p>
+ * The entities of the Studio Ghibli API point to each other with URLs, like the "people" of a film or the "pilot" of
+ * a vehicle. Expanding a relation replaces each URL with the entity it points to, looked up in the index by id of the
+ * current rendering of the target collection. URLs that do not name a single entity, like "/people/", are kept as is.
+ * </p>
+ * <p>
+ * A relation is only expanded when the caller can read its target collection; otherwise its URLs are left untouched.
+ * </p>
+ */
+@Component
+public class CatalogGraph {
+
+	/**
+	 * The relations of each resource, keyed by the JSON property holding the URLs.
+	 */
+	private static final Map<CatalogResource<?>, Map<String, CatalogResource<?>>> RELATIONS = Map.of(
+			CatalogResource.FILMS, Map.of("people", CatalogResource.PEOPLE,
+										  "species", CatalogResource.SPECIES,
+										  "locations", CatalogResource.LOCATIONS,
+										  "vehicles", CatalogResource.VEHICLES),
+			CatalogResource.PEOPLE, Map.of("films", CatalogResource.FILMS,
+										   "species", CatalogResource.SPECIES),
+			CatalogResource.LOCATIONS, Map.of("residents", CatalogResource.PEOPLE,
+											  "films", CatalogResource.FILMS),
+			CatalogResource.SPECIES, Map.of("people", CatalogResource.PEOPLE,
+											"films", CatalogResource.FILMS),
+			CatalogResource.VEHICLES, Map.of("pilot", CatalogResource.PEOPLE,
+											 "films", CatalogResource.FILMS));
+
+	private final CatalogCache catalogCache;
+	private final CatalogRenderer catalogRenderer;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Autowires the CatalogCache, the CatalogRenderer and the ObjectMapper.
+	 *
+	 * @param catalogCache    cache holding the current snapshot
+	 * @param catalogRenderer renderer holding the index by id of each collection
+	 * @param objectMapper    mapper used to build the expanded entities
+	 */
+	@Autowired
+	public CatalogGraph(CatalogCache catalogCache, CatalogRenderer catalogRenderer, ObjectMapper objectMapper) {
+		this.catalogCache = catalogCache;
+		this.catalogRenderer = catalogRenderer;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Returns the relations of a resource that can be expanded.
+	 *
+	 * @param resource the resource
+	 * @return the target resource of each relation, keyed by the JSON property holding the URLs
+	 */
+	public Map<String, CatalogResource<?>> getRelations(CatalogResource<?> resource) {
+		return RELATIONS.get(resource);
+	}
+
+	/**
+	 * Expands the relations of every entity of a page.
+	 * The ETag of the page is derived again, since the expanded entities belong to other collections.
+	 *
+	 * @param resource the resource of the page
+	 * @param page     the page to expand
+	 * @param expand   the relations to expand
+	 * @param readable tells whether the caller can read a resource
+	 * @return a new page with the relations expanded
+	 * @throws IllegalArgumentException if the resource has no relation with one of the given names
+	 */
+	public CatalogPage expand(CatalogResource<?> resource, CatalogPage page, Set<String> expand,
+							  Predicate<CatalogResource<?>> readable) {
+		Map<CatalogResource<?>, RenderedCatalog> targets = targets(resource, expand, readable);
+		List<JsonNode> data = new ArrayList<>(page.data().size());
+		for (JsonNode node : page.data()) {
+			data.add(expand(resource, (ObjectNode) node, expand, targets));
+		}
+
+		StringBuilder fingerprint = new StringBuilder(page.etag());
+		targets.keySet().stream().sorted(Comparator.comparing(CatalogResource::getName)).forEach(target ->
+				fingerprint.append(';').append(target.getName()).append('=').append(targets.get(target).hash()));
+		String etag = "W/\"" + Digests.sha256(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+		return new CatalogPage(data, page.total(), page.nextCursor(), etag);
+	}
+
+	/**
+	 * Expands the relations of a single entity.
+	 *
+	 * @param resource the resource of the entity
+	 * @param node     the entity as a JSON tree
+	 * @param expand   the relations to expand
+	 * @param readable tells whether the caller can read a resource
+	 * @return a copy of the entity with the relations expanded
+	 * @throws IllegalArgumentException if the resource has no relation with one of the given names
+	 */
+	public ObjectNode expand(CatalogResource<?> resource, ObjectNode node, Set<String> expand,
+							 Predicate<CatalogResource<?>> readable) {
+		return expand(resource, node, expand, targets(resource, expand, readable));
+	}
+
+	/**
+	 * Retrieves the current rendering of the target of each relation the caller can read.
+	 */
+	private Map<CatalogResource<?>, RenderedCatalog> targets(CatalogResource<?> resource, Set<String> expand,
+															 Predicate<CatalogResource<?>> readable) {
+		Map<String, CatalogResource<?>> relations = getRelations(resource);
+		if (!relations.keySet().containsAll(expand)) {
+			Set<String> unknown = new LinkedHashSet<>(expand);
+			unknown.removeAll(relations.keySet());
+			throw new IllegalArgumentException("Unknown relations " + unknown + " for " + resource
+					+ ", expected some of " + new TreeMap<>(relations).keySet());
+		}
+
+		Map<CatalogResource<?>, RenderedCatalog> targets = new HashMap<>();
+		for (String relation : expand) {
+			CatalogResource<?> target = relations.get(relation);
+			if (readable.test(target) && !targets.containsKey(target)) {
+				targets.put(target, catalogRenderer.render(target, catalogCache.getEntry(target)));
+			}
+		}
+		return targets;
+	}
+
+	private ObjectNode expand(CatalogResource<?> resource, ObjectNode node, Set<String> expand,
+							  Map<CatalogResource<?>, RenderedCatalog> targets) {
+		ObjectNode expanded = objectMapper.createObjectNode();
+		expanded.setAll(node);
+		for (String relation : expand) {
+			RenderedCatalog target = targets.get(getRelations(resource).get(relation));
+			JsonNode value = node.get(relation);
+			if (target == null || value == null) {
+				continue;
+			}
+			if (value.isArray()) {
+				ArrayNode entities = objectMapper.createArrayNode();
+				value.forEach(url -> entities.add(resolve(target, url)));
+				expanded.set(relation, entities);
+			}
+			else {
+				expanded.set(relation, resolve(target, value));
+			}
+		}
+		return expanded;
+	}
+
+	/**
+	 * Resolves a URL to the entity it points to, or keeps the URL if it names no single entity of the target.
+	 */
+	private static JsonNode resolve(RenderedCatalog target, JsonNode url) {
+		String text = url.asText();
+		String id = text.substring(text.lastIndexOf('/') + 1);
+		return target.node(id).<JsonNode>map(node -> node).orElse(url);
+	}
+}
@@ -0,0 +1,492 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The CatalogHttpClient class sends the requests of the catalog to the Studio Ghibli API.
+ * <p>
+ * It wraps a single JDK {@link HttpClient}, which keeps its connections alive and reuses them across requests, and
+ * offers HTTP/2 so a single connection can carry every request when the API supports it. The number of requests in
+ * flight is bounded by a semaphore sized like the pool, acting as a bulkhead: a call waits at most the configured
+ * maximum wait for a free slot and is rejected after that, so a slow API can not pile up waiting callers.
+ * </p>
+ * <p>
+ * Every call has three deadlines: the connect timeout, the read timeout until the response headers arrive, and a
+ * total timeout covering the wait for a slot and the whole body. Each call is timed in the
+ * "catalog.upstream.requests" metric, tagged with the resource and the outcome.
+ * </p>
+ * <p>
+ * The calls of each resource go through a {@link CatalogCircuitBreaker} per mirror, told apart by its base URL, so
+ * a failing mirror does not shut out the others, even one served by the same host. While it is open they fail at
+ * once with a {@link CatalogCircuitOpenException}, and the {@link CatalogCache} keeps serving the collections it
+ * already holds. The state of each breaker is published as the "catalog.upstream.circuit.state" metric, 1 for the
+ * current state and 0 for the others, next to its failure and slow call rates.
+ * </p>
+ * <p>
+ * GET requests are idempotent, so a call failing with an I/O error, a read timeout, "429 Too Many Requests", "502 Bad
+ * Gateway", "503 Service Unavailable" or "504 Gateway Timeout" is sent again, within the total timeout. Each retry
+ * waits a random time between zero and an exponentially growing bound, or the Retry-After of the response when it
+ * is longer, and takes a token from a {@link CatalogRetryBudget} shared by every resource. Retries are counted in
+ * the "catalog.upstream.retries" metric and the tokens left in "catalog.upstream.retry.budget".
+ * </p>
+ * <p>
+ * When hedging is enabled, an attempt that has not answered within a percentile of the recent latencies of its
+ * resource on that mirror gets a twin request. The first successful response wins and the other request is
+ * cancelled. A win of the hedge is recorded in the latencies as the time since the first request was sent, since
+ * that is how long the first one took at least and how long the caller waited; recording the hedge alone would
+ * drag the percentile down and hedge ever more requests. Hedges take a token from a second budget, so they can not
+ * double the load, and are counted in the "catalog.upstream.hedges" metric.
+ * </p>
+ */
+@Component
+public class CatalogHttpClient implements AutoCloseable {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogHttpClient.class);
+
+	private final HttpClient httpClient;
+	private final Semaphore permits;
+	private final Duration readTimeout;
+	private final Duration timeout;
+	private final Duration maxWait;
+	private final CatalogProperties.Retry retry;
+	private final CatalogRetryBudget retryBudget;
+	private final CatalogProperties.Hedge hedge;
+	private final CatalogRetryBudget hedgeBudget;
+	private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+	private final MeterRegistry meterRegistry;
+	private final Clock clock;
+	private final CatalogProperties.Breaker breakerProperties;
+	private final Map<String, CatalogCircuitBreaker> breakers = new ConcurrentHashMap<>();
+	private final Map<String, CatalogLatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	/**
+	 * Autowires the CatalogProperties and the MeterRegistry.
+	 *
+	 * @param properties    configuration of the catalog, including the timeouts, the size of the pool, the breakers
+	 *                      the retries and the hedges
+	 * @param meterRegistry registry of the metrics of the calls
+	 */
+	@Autowired
+	public CatalogHttpClient(CatalogProperties properties, MeterRegistry meterRegistry) {
+		this(properties, meterRegistry, Clock.systemUTC());
+	}
+
+	CatalogHttpClient(CatalogProperties properties, MeterRegistry meterRegistry, Clock clock) {
+		CatalogProperties.Http http = properties.getHttp();
+		this.httpClient = HttpClient.newBuilder()
+				.version(http.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+				.connectTimeout(http.getConnectTimeout())
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+		this.permits = new Semaphore(http.getMaxConnections(), true);
+		this.readTimeout = http.getReadTimeout();
+		this.timeout = http.getTimeout();
+		this.maxWait = http.getMaxWait();
+		this.retry = properties.getRetry();
+		this.retryBudget = new CatalogRetryBudget(retry.getBudgetRatio(), retry.getBudgetCapacity());
+		this.hedge = properties.getHedge();
+		this.hedgeBudget = new CatalogRetryBudget(hedge.getBudgetRatio(), hedge.getBudgetCapacity());
+		this.breakerProperties = properties.getBreaker();
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+		Gauge.builder("catalog.upstream.in-flight", permits, semaphore -> http.getMaxConnections() - semaphore.availablePermits())
+				.description("Requests to the Studio Ghibli API in flight")
+				.register(meterRegistry);
+		Gauge.builder("catalog.upstream.retry.budget", retryBudget, CatalogRetryBudget::getTokens)
+				.description("Retries to the Studio Ghibli API left in the budget")
+				.register(meterRegistry);
+		Gauge.builder("catalog.upstream.hedge.budget", hedgeBudget, CatalogRetryBudget::getTokens)
+				.description("Hedged requests to the Studio Ghibli API left in the budget")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Retrieves the circuit breaker of a resource on a mirror, creating it and its gauges on first use.
+	 *
+	 * @param resource the resource requested
+	 * @param mirror   the base URL of the mirror
+	 * @return the breaker
+	 */
+	private CatalogCircuitBreaker breaker(CatalogResource<?> resource, String mirror) {
+		return breakers.computeIfAbsent(resource.getName() + " " + mirror, key -> {
+			CatalogCircuitBreaker breaker = new CatalogCircuitBreaker(resource + " on " + mirror, breakerProperties, clock);
+			for (CatalogCircuitBreaker.State state : CatalogCircuitBreaker.State.values()) {
+				Gauge.builder("catalog.upstream.circuit.state", breaker, b -> b.getState() == state ? 1 : 0)
+						.description("State of the circuit breaker of the resource on the mirror, 1 for the current one")
+						.tags("resource", resource.getName(), "mirror", mirror, "state", state.name().toLowerCase().replace('_', '-'))
+						.register(meterRegistry);
+			}
+			Gauge.builder("catalog.upstream.circuit.failure-rate", breaker, CatalogCircuitBreaker::getFailureRate)
+					.description("Percentage of failed calls among the last calls of the resource to the mirror")
+					.tags("resource", resource.getName(), "mirror", mirror)
+					.register(meterRegistry);
+			Gauge.builder("catalog.upstream.circuit.slow-call-rate", breaker, CatalogCircuitBreaker::getSlowCallRate)
+					.description("Percentage of slow calls among the last calls of the resource to the mirror")
+					.tags("resource", resource.getName(), "mirror", mirror)
+					.register(meterRegistry);
+			return breaker;
+		});
+	}
+
+	private CatalogLatencyWindow latencies(CatalogResource<?> resource, String mirror) {
+		return latencies.computeIfAbsent(resource.getName() + " " + mirror,
+										 key -> new CatalogLatencyWindow(hedge.getWindowSize(), hedge.getMinimumSamples()));
+	}
+
+	/**
+	 * Starts the total timeout of a call, to be shared by every mirror the call is sent to.
+	 *
+	 * @return the deadline, in {@link System#nanoTime()} units
+	 */
+	long deadline() {
+		return System.nanoTime() + timeout.toNanos();
+	}
+
+	/**
+	 * Sends a GET request to a single server and reads the whole body, retrying the transient failures.
+	 * The scheme and authority of the URI pick the circuit breaker, and the call has the whole total timeout.
+	 *
+	 * @param resource the resource requested, used to tag the metrics and pick the circuit breaker
+	 * @param uri      the URI to request
+	 * @param headers  the headers to send
+	 * @return the response
+	 * @throws CatalogCircuitOpenException if the circuit breaker of the resource is open
+	 * @throws CatalogUpstreamException    if the request fails, misses a deadline or is answered with an error status
+	 */
+	public HttpResponse<byte[]> get(CatalogResource<?> resource, URI uri, Map<String, String> headers) {
+		return get(resource, uri, uri.getScheme() + "://" + uri.getAuthority(), headers, deadline());
+	}
+
+	/**
+	 * Sends the GET request of a resource to a mirror and reads the whole body, retrying the transient failures.
+	 * Responses with a status below 400, including "304 Not Modified", are returned as they are.
+	 *
+	 * @param resource the resource requested, used to tag the metrics and pick the circuit breaker
+	 * @param mirror   the base URL of the mirror, the resource path is appended to it
+	 * @param headers  the headers to send
+	 * @param deadline the deadline of the whole fetch, from {@link #deadline()}
+	 * @return the response
+	 * @throws CatalogCircuitOpenException if the circuit breaker of the resource on the mirror is open
+	 * @throws CatalogUpstreamException    if the request fails, misses the deadline or is answered with an error status
+	 */
+	HttpResponse<byte[]> get(CatalogResource<?> resource, String mirror, Map<String, String> headers, long deadline) {
+		return get(resource, URI.create(mirror + resource.getPath()), mirror, headers, deadline);
+	}
+
+	private HttpResponse<byte[]> get(CatalogResource<?> resource, URI uri, String mirror, Map<String, String> headers, long deadline) {
+		if (System.nanoTime() >= deadline) {
+			throw new CatalogUpstreamException("No time left to request " + uri + " within " + timeout, 0, null);
+		}
+		retryBudget.onCall();
+		hedgeBudget.onCall();
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return attempt(resource, uri, mirror, headers, deadline);
+			}
+			catch (CatalogUpstreamException e) {
+				Duration backoff = backoff(resource, attempt, e, deadline);
+				if (backoff == null) {
+					throw e;
+				}
+				LOGGER.info("Retrying {} in {} ms after: {}", uri, backoff.toMillis(), e.getMessage());
+				try {
+					Thread.sleep(backoff);
+				}
+				catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decides whether a failed attempt is retried, and after how long.
+	 * The wait is drawn at random up to the initial backoff doubled for every previous attempt, capped by the maximum
+	 * backoff, and raised to the Retry-After of the response. The retry is given up when the failure is not transient,
+	 * when the attempts are exhausted, when the wait would miss the deadline or exceed the maximum backoff, or when the
+	 * budget is spent.
+	 *
+	 * @param resource the resource requested, used to tag the metrics
+	 * @param attempt  the number of the failed attempt, from 1
+	 * @param e        the failure of the attempt
+	 * @param deadline the deadline of the whole call, in {@link System#nanoTime()} units
+	 * @return the time to wait before the next attempt, or null if the call is not retried
+	 */
+	private Duration backoff(CatalogResource<?> resource, int attempt, CatalogUpstreamException e, long deadline) {
+		if (!retry.isEnabled() || attempt >= retry.getMaxAttempts() || !isTransient(e)) {
+			return null;
+		}
+		long bound = Math.min(retry.getMaxBackoff().toNanos(), retry.getInitialBackoff().toNanos() << Math.min(attempt - 1, 30));
+		Duration backoff = Duration.ofNanos(bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0);
+		if (e.getRetryAfter().compareTo(backoff) > 0) {
+			backoff = e.getRetryAfter();
+		}
+		if (backoff.compareTo(retry.getMaxBackoff()) > 0 || System.nanoTime() + backoff.toNanos() >= deadline) {
+			return null;
+		}
+		if (!retryBudget.tryRetry()) {
+			meterRegistry.counter("catalog.upstream.retries", "resource", resource.getName(), "result", "budget-exhausted").increment();
+			return null;
+		}
+		meterRegistry.counter("catalog.upstream.retries", "resource", resource.getName(), "result", "retried").increment();
+		return backoff;
+	}
+
+	/**
+	 * Tells whether a failure is worth a retry: an I/O error or a read timeout without response, or a status telling
+	 * the API is overloaded or briefly unavailable. An open circuit, a full bulkhead and a missed deadline are not.
+	 *
+	 * @param e the failure
+	 * @return true if the call may be retried
+	 */
+	private static boolean isTransient(CatalogUpstreamException e) {
+		return switch (e.getStatus()) {
+			case 0 -> e.getCause() instanceof IOException;
+			case 429, 502, 503, 504 -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Runs an attempt of a GET request, hedged when enabled and the resource has enough recent latencies.
+	 * The hedge is sent once the first request has not answered within the configured percentile of those latencies,
+	 * if the budget allows it. The first successful response is returned and the other request is cancelled; when
+	 * both fail, the failure of the first request is thrown. A response of the hedge is recorded in the latencies as
+	 * the time elapsed since the first request was sent, which the cancelled first request took at least.
+	 *
+	 * @param resource the resource requested
+	 * @param uri      the URI to request
+	 * @param mirror   the base URL of the mirror the URI belongs to
+	 * @param headers  the headers to send
+	 * @param deadline the deadline of the whole call, in {@link System#nanoTime()} units
+	 * @return the response
+	 */
+	private HttpResponse<byte[]> attempt(CatalogResource<?> resource, URI uri, String mirror, Map<String, String> headers, long deadline) {
+		Duration delay = hedge.isEnabled() ? latencies(resource, mirror).percentile(hedge.getPercentile()) : null;
+		if (delay == null) {
+			return send(resource, uri, mirror, headers, deadline, false);
+		}
+		if (delay.compareTo(hedge.getMinDelay()) < 0) {
+			delay = hedge.getMinDelay();
+		}
+		ExecutorCompletionService<HttpResponse<byte[]>> race = new ExecutorCompletionService<>(hedgeExecutor);
+		List<Future<HttpResponse<byte[]>>> requests = new ArrayList<>();
+		long start = System.nanoTime();
+		requests.add(race.submit(() -> send(resource, uri, mirror, headers, deadline, false)));
+		try {
+			Future<HttpResponse<byte[]>> first = race.poll(delay.toNanos(), TimeUnit.NANOSECONDS);
+			if (first == null && System.nanoTime() < deadline) {
+				if (hedgeBudget.tryRetry()) {
+					meterRegistry.counter("catalog.upstream.hedges", "resource", resource.getName(), "result", "sent").increment();
+					LOGGER.debug("Hedging {} after {} ms", uri, delay.toMillis());
+					requests.add(race.submit(() -> send(resource, uri, mirror, headers, deadline, true)));
+				}
+				else {
+					meterRegistry.counter("catalog.upstream.hedges", "resource", resource.getName(), "result", "budget-exhausted").increment();
+				}
+			}
+			RuntimeException failure = null;
+			for (int i = 0; i < requests.size(); i++) {
+				Future<HttpResponse<byte[]>> done = i == 0 && first != null ? first : race.take();
+				try {
+					HttpResponse<byte[]> response = done.get();
+					if (done != requests.get(0)) {
+						latencies(resource, mirror).record(Duration.ofNanos(System.nanoTime() - start));
+						meterRegistry.counter("catalog.upstream.hedges", "resource", resource.getName(), "result", "won").increment();
+					}
+					return response;
+				}
+				catch (ExecutionException e) {
+					RuntimeException cause = e.getCause() instanceof RuntimeException r ? r : new CatalogUpstreamException("Request to " + uri + " failed", 0, e.getCause());
+					if (failure == null || done == requests.get(0)) {
+						failure = cause;
+					}
+				}
+			}
+			throw failure;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CatalogUpstreamException("Interrupted while requesting " + uri, 0, e);
+		}
+		finally {
+			requests.forEach(request -> request.cancel(true));
+		}
+	}
+
+	/**
+	 * Sends a single request through the circuit breaker and the bulkhead.
+	 * A hedge does not wait for a slot of the bulkhead, since it is only worth sending while the API has room, and its
+	 * latency is left for the caller to record, measured from the first request.
+	 *
+	 * @param resource the resource requested
+	 * @param uri      the URI to request
+	 * @param mirror   the base URL of the mirror the URI belongs to
+	 * @param headers  the headers to send
+	 * @param deadline the deadline of the whole call, in {@link System#nanoTime()} units
+	 * @param hedged   whether the request is a hedge
+	 * @return the response
+	 */
+	private HttpResponse<byte[]> send(CatalogResource<?> resource, URI uri, String mirror, Map<String, String> headers, long deadline, boolean hedged) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		CatalogCircuitBreaker breaker = breaker(resource, mirror);
+		String outcome = "error";
+		boolean admitted = false;
+		long sent = 0;
+		try {
+			if (!breaker.tryAcquire()) {
+				outcome = "circuit-open";
+				throw new CatalogCircuitOpenException("Circuit of " + resource + " on " + mirror + " is open", breaker.getRetryAfter());
+			}
+			admitted = true;
+			if (!permits.tryAcquire(hedged ? 0 : Math.min(maxWait.toNanos(), deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+				outcome = "saturated";
+				throw new CatalogUpstreamException("No connection to " + uri.getHost() + " freed up within " + maxWait, 0, null);
+			}
+			try {
+				sent = System.nanoTime();
+				HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(readTimeout).GET();
+				headers.forEach(request::header);
+				CompletableFuture<HttpResponse<byte[]>> call = httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+				HttpResponse<byte[]> response;
+				try {
+					response = call.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				}
+				catch (TimeoutException e) {
+					call.cancel(true);
+					outcome = "timeout";
+					throw new CatalogUpstreamException("Request to " + uri + " took longer than " + timeout, 0, e);
+				}
+				catch (InterruptedException e) {
+					call.cancel(true);
+					throw e;
+				}
+				outcome = String.valueOf(response.statusCode());
+				DistributionSummary.builder("catalog.upstream.received")
+						.baseUnit("bytes")
+						.tag("resource", resource.getName())
+						.register(meterRegistry)
+						.record(response.body().length);
+				if (response.statusCode() >= 400) {
+					throw new CatalogUpstreamException("Request to " + uri + " answered " + response.statusCode(),
+													   response.statusCode(), retryAfter(response), null);
+				}
+				return response;
+			}
+			finally {
+				permits.release();
+			}
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			outcome = cause instanceof HttpConnectTimeoutException ? "connect-timeout"
+					: cause instanceof HttpTimeoutException ? "read-timeout"
+					: cause instanceof IOException ? "io-error" : "error";
+			throw new CatalogUpstreamException("Request to " + uri + " failed: " + cause, 0, cause);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			outcome = "interrupted";
+			throw new CatalogUpstreamException("Interrupted while requesting " + uri, 0, e);
+		}
+		finally {
+			if (admitted && (sent == 0 || outcome.equals("interrupted"))) {
+				breaker.onIgnored();
+			}
+			else if (admitted) {
+				Duration latency = Duration.ofNanos(System.nanoTime() - sent);
+				breaker.onResult(isFailure(outcome), latency);
+				if (!hedged && Character.isDigit(outcome.charAt(0)) && Integer.parseInt(outcome) < 400) {
+					latencies(resource, mirror).record(latency);
+				}
+			}
+			sample.stop(meterRegistry.timer("catalog.upstream.requests", "resource", resource.getName(), "outcome", outcome));
+			LOGGER.debug("GET {} -> {}", uri, outcome);
+		}
+	}
+
+	/**
+	 * Reads the Retry-After header of a response, given either as a number of seconds or as an HTTP date.
+	 *
+	 * @param response the response
+	 * @return the time to wait, zero when the header is missing, invalid or in the past
+	 */
+	private Duration retryAfter(HttpResponse<?> response) {
+		String value = response.headers().firstValue("Retry-After").orElse("").trim();
+		if (value.isEmpty()) {
+			return Duration.ZERO;
+		}
+		try {
+			Duration wait = value.chars().allMatch(Character::isDigit)
+					? Duration.ofSeconds(Long.parseLong(value))
+					: Duration.between(clock.instant(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+			return wait.isNegative() ? Duration.ZERO : wait;
+		}
+		catch (RuntimeException e) {
+			LOGGER.debug("Ignoring invalid Retry-After {}", value);
+			return Duration.ZERO;
+		}
+	}
+
+	/**
+	 * Tells whether the outcome of a call that reached the API is a failure for its circuit breaker.
+	 * Only the calls without a response and the server errors count, including "429 Too Many Requests".
+	 *
+	 * @param outcome the outcome of the call, a status or the kind of failure
+	 * @return true if the call failed
+	 */
+	private static boolean isFailure(String outcome) {
+		if (!Character.isDigit(outcome.charAt(0))) {
+			return true;
+		}
+		int status = Integer.parseInt(outcome);
+		return status >= 500 || status == 429;
+	}
+
+	/**
+	 * Closes the connections of the client.
+	 */
+	@Override
+	public void close() {
+		hedgeExecutor.shutdownNow();
+		httpClient.close();
+	}
+}
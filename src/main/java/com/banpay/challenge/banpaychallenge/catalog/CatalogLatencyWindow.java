@@ -0,0 +1,54 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The CatalogLatencyWindow class keeps the latencies of the last successful calls of one resource to the Studio
+ * Ghibli API, so the {@link CatalogHttpClient} knows when a call is slower than usual and deserves a hedge.
+ */
+class CatalogLatencyWindow {
+
+	private final long[] latencies;
+	private final int minimumSamples;
+	private int next;
+	private int recorded;
+
+	/**
+	 * Constructs a new empty CatalogLatencyWindow.
+	 *
+	 * @param size           the number of latencies kept
+	 * @param minimumSamples the number of latencies needed before a percentile is computed
+	 */
+	CatalogLatencyWindow(int size, int minimumSamples) {
+		this.latencies = new long[Math.max(1, size)];
+		this.minimumSamples = Math.max(1, Math.min(minimumSamples, latencies.length));
+	}
+
+	/**
+	 * Records the latency of a successful call, replacing the oldest one once the window is full.
+	 *
+	 * @param latency the latency of the call
+	 */
+	synchronized void record(Duration latency) {
+		latencies[next] = latency.toNanos();
+		next = (next + 1) % latencies.length;
+		recorded = Math.min(recorded + 1, latencies.length);
+	}
+
+	/**
+	 * Computes a percentile of the latencies kept, by the nearest rank.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency below which the given share of the calls answered, or null without enough samples
+	 */
+	synchronized Duration percentile(double percentile) {
+		if (recorded < minimumSamples) {
+			return null;
+		}
+		long[] sorted = Arrays.copyOf(latencies, recorded);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * recorded);
+		return Duration.ofNanos(sorted[Math.max(0, Math.min(recorded, rank) - 1)]);
+	}
+}
@@ -0,0 +1,197 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The CatalogMirrors class keeps the health of the servers of the Studio Ghibli API and ranks them for each fetch.
+ * <p>
+ * For every mirror it tracks an exponentially weighted moving average (EWMA) of the latency of its successful calls
+ * and of its error rate. A mirror is unhealthy while its error rate is at or above the configured threshold and its
+ * last failure is more recent than the cooldown; once the cooldown has elapsed it is tried again. Healthy mirrors
+ * come first, the fastest one leading, and a mirror never measured counts as the fastest so it gets probed. The
+ * unhealthy ones follow by error rate, so the {@link HttpCatalogSource} can still fail over to them. Ties keep the
+ * configured order.
+ * </p>
+ * <p>
+ * The health of each mirror is published as the "catalog.upstream.mirror.latency", "catalog.upstream.mirror.error-rate"
+ * and "catalog.upstream.mirror.healthy" metrics, tagged with the base URL of the mirror, so two mirrors served by the
+ * same host under different paths are told apart.
+ * </p>
+ */
+class CatalogMirrors {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogMirrors.class);
+
+	private final List<Mirror> mirrors;
+	private final CatalogProperties.Mirrors properties;
+	private final Clock clock;
+
+	/**
+	 * Constructs a new CatalogMirrors.
+	 *
+	 * @param urls          the base URLs of the mirrors, in order of preference
+	 * @param properties    the weight of the averages, the error rate threshold and the cooldown
+	 * @param meterRegistry registry the health of the mirrors is published to
+	 * @param clock         clock timing the cooldown
+	 */
+	CatalogMirrors(List<String> urls, CatalogProperties.Mirrors properties, MeterRegistry meterRegistry, Clock clock) {
+		if (urls.isEmpty()) {
+			throw new IllegalArgumentException("At least one URL of the Studio Ghibli API is needed");
+		}
+		this.mirrors = urls.stream().map(Mirror::new).toList();
+		this.properties = properties;
+		this.clock = clock;
+		for (Mirror mirror : mirrors) {
+			Gauge.builder("catalog.upstream.mirror.latency", mirror, m -> m.getLatency() / 1e9)
+					.description("Moving average of the latency of the successful calls to the mirror")
+					.baseUnit("seconds")
+					.tag("mirror", mirror.getUrl())
+					.register(meterRegistry);
+			Gauge.builder("catalog.upstream.mirror.error-rate", mirror, Mirror::getErrorRate)
+					.description("Moving average of the share of failed calls to the mirror")
+					.tag("mirror", mirror.getUrl())
+					.register(meterRegistry);
+			Gauge.builder("catalog.upstream.mirror.healthy", mirror, m -> isHealthy(m) ? 1 : 0)
+					.description("Whether the mirror receives traffic first, 1 when it does")
+					.tag("mirror", mirror.getUrl())
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Ranks the mirrors for a fetch.
+	 *
+	 * @return every mirror, the one to try first leading
+	 */
+	List<Mirror> ranked() {
+		if (mirrors.size() == 1) {
+			return mirrors;
+		}
+		return mirrors.stream()
+				.map(mirror -> isHealthy(mirror) ? new Rank(mirror, false, mirror.getLatency()) : new Rank(mirror, true, mirror.getErrorRate()))
+				.sorted(Comparator.comparing(Rank::unhealthy).thenComparingDouble(Rank::score))
+				.map(Rank::mirror)
+				.toList();
+	}
+
+	/**
+	 * Records a successful call.
+	 *
+	 * @param mirror  the mirror called
+	 * @param latency the time the call took
+	 */
+	void onSuccess(Mirror mirror, Duration latency) {
+		boolean healthy = isHealthy(mirror);
+		mirror.record(false, latency.toNanos(), properties.getEwmaWeight(), clock.instant());
+		if (!healthy && isHealthy(mirror)) {
+			LOGGER.info("Mirror {} is healthy again", mirror.getUrl());
+		}
+	}
+
+	/**
+	 * Records a failed call.
+	 *
+	 * @param mirror the mirror called
+	 */
+	void onFailure(Mirror mirror) {
+		boolean healthy = isHealthy(mirror);
+		mirror.record(true, 0, properties.getEwmaWeight(), clock.instant());
+		if (healthy && !isHealthy(mirror)) {
+			LOGGER.warn("Mirror {} is unhealthy, error rate {}%", mirror.getUrl(), Math.round(mirror.getErrorRate() * 100));
+		}
+	}
+
+	private boolean isHealthy(Mirror mirror) {
+		return mirror.getErrorRate() < properties.getErrorRateThreshold()
+				|| mirror.getLastFailure() == null
+				|| !clock.instant().isBefore(mirror.getLastFailure().plus(properties.getCooldown()));
+	}
+
+	@Override
+	public String toString() {
+		return mirrors.stream().map(Mirror::getUrl).toList().toString();
+	}
+
+	/**
+	 * This record represents a mirror with the health and score it is ranked by, read once per ranking.
+	 *
+	 * @param mirror    the mirror
+	 * @param unhealthy whether the mirror is unhealthy
+	 * @param score     the latency of a healthy mirror or the error rate of an unhealthy one, lower first
+	 */
+	private record Rank(Mirror mirror, boolean unhealthy, double score) {
+	}
+
+	/**
+	 * This class represents a server of the Studio Ghibli API and its moving averages.
+	 */
+	static final class Mirror {
+
+		private final String url;
+		private double latency;
+		private double errorRate;
+		private boolean measured;
+		private Instant lastFailure;
+
+		private Mirror(String url) {
+			if (!url.startsWith("http://") && !url.startsWith("https://")) {
+				throw new IllegalArgumentException("Mirror " + url + " is not an http or https URL");
+			}
+			this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+		}
+
+		private synchronized void record(boolean failure, long latency, double weight, Instant now) {
+			errorRate = weight * (failure ? 1 : 0) + (1 - weight) * errorRate;
+			if (failure) {
+				lastFailure = now;
+			}
+			else {
+				this.latency = measured ? weight * latency + (1 - weight) * this.latency : latency;
+				measured = true;
+			}
+		}
+
+		/**
+		 * Retrieves the base URL of the mirror, without a trailing slash.
+		 *
+		 * @return the base URL
+		 */
+		String getUrl() {
+			return url;
+		}
+
+		/**
+		 * Retrieves the moving average of the latency of the successful calls.
+		 *
+		 * @return the latency in nanoseconds, 0 until a call succeeds
+		 */
+		synchronized double getLatency() {
+			return latency;
+		}
+
+		/**
+		 * Retrieves the moving average of the share of failed calls.
+		 *
+		 * @return the error rate, between 0 and 1
+		 */
+		synchronized double getErrorRate() {
+			return errorRate;
+		}
+
+		synchronized Instant getLastFailure() {
+			return lastFailure;
+		}
+	}
+}
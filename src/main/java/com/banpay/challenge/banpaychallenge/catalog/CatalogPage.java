@@ -0,0 +1,16 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * This record represents a page of a collection cut by the {@link CatalogRenderer}.
+ *
+ * @param data       the entities of the page, limited to the requested fields
+ * @param total      the number of entities in the whole collection
+ * @param nextCursor the cursor of the next page, or null if this is the last one
+ * @param etag       the weak ETag of the page, derived from the content of the collection and the query
+ */
+public record CatalogPage(List<JsonNode> data, int total, String nextCursor, String etag) {
+}
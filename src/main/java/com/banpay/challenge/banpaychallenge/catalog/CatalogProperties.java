@@ -0,0 +1,689 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class holds the configuration of the Studio Ghibli catalog.
+ * The properties are bound from the "studio-ghibli.api" prefix, next to the url of the remote endpoint.
+ */
+@ConfigurationProperties(prefix = "studio-ghibli.api")
+public class CatalogProperties {
+
+	/**
+	 * The URL of the Studio Ghibli API, or the URLs of several mirrors separated by commas, in order of preference.
+	 */
+	private String url;
+	/**
+	 * Time to live applied to the resources without an explicit entry in {@link #ttl}.
+	 */
+	private Duration defaultTtl = Duration.ofMinutes(10);
+	/**
+	 * Time to live of each resource, keyed by the resource name.
+	 */
+	private Map<String, Duration> ttl = new HashMap<>();
+	/**
+	 * Configuration of the background refresh of the whole catalog.
+	 */
+	private final Refresh refresh = new Refresh();
+	/**
+	 * Configuration of the copies of the catalog kept in the database.
+	 */
+	private final Store store = new Store();
+	/**
+	 * Configuration of the HTTP client reaching the Studio Ghibli API.
+	 */
+	private final Http http = new Http();
+	/**
+	 * Configuration of the circuit breakers guarding the calls to the Studio Ghibli API.
+	 */
+	private final Breaker breaker = new Breaker();
+	/**
+	 * Configuration of the retries of the calls to the Studio Ghibli API.
+	 */
+	private final Retry retry = new Retry();
+	/**
+	 * Configuration of the hedged calls to the Studio Ghibli API.
+	 */
+	private final Hedge hedge = new Hedge();
+	/**
+	 * Configuration of the selection among the mirrors of the Studio Ghibli API.
+	 */
+	private final Mirrors mirrors = new Mirrors();
+	/**
+	 * Configuration of the feed of the entities changed by each version of the catalog.
+	 */
+	private final Changes changes = new Changes();
+	/**
+	 * Configuration of the stream of catalog updates pushed to the clients.
+	 */
+	private final Stream stream = new Stream();
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public Duration getDefaultTtl() {
+		return defaultTtl;
+	}
+
+	public void setDefaultTtl(Duration defaultTtl) {
+		this.defaultTtl = defaultTtl;
+	}
+
+	public Map<String, Duration> getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(Map<String, Duration> ttl) {
+		this.ttl = ttl;
+	}
+
+	public Refresh getRefresh() {
+		return refresh;
+	}
+
+	public Store getStore() {
+		return store;
+	}
+
+	public Http getHttp() {
+		return http;
+	}
+
+	public Breaker getBreaker() {
+		return breaker;
+	}
+
+	public Retry getRetry() {
+		return retry;
+	}
+
+	public Hedge getHedge() {
+		return hedge;
+	}
+
+	public Mirrors getMirrors() {
+		return mirrors;
+	}
+
+	public Changes getChanges() {
+		return changes;
+	}
+
+	public Stream getStream() {
+		return stream;
+	}
+
+	/**
+	 * Splits the {@link #url} into the URLs of the mirrors.
+	 *
+	 * @return the URLs, in order of preference
+	 */
+	public List<String> getUrls() {
+		return Arrays.stream(url.split(",")).map(String::trim).filter(value -> !value.isEmpty()).toList();
+	}
+
+	/**
+	 * Retrieves the time to live of the given resource.
+	 *
+	 * @param resource the catalog resource
+	 * @return the configured time to live, or {@link #defaultTtl} when the resource has none
+	 */
+	public Duration getTtl(CatalogResource<?> resource) {
+		return ttl.getOrDefault(resource.getName(), defaultTtl);
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogRefresher}.
+	 */
+	public static class Refresh {
+
+		/**
+		 * Whether the catalog is refreshed in the background.
+		 */
+		private boolean enabled = true;
+		/**
+		 * Time between two refreshes of the catalog.
+		 */
+		private Duration interval = Duration.ofMinutes(30);
+		/**
+		 * Maximum random deviation added to or removed from the interval, so nodes do not refresh in lockstep.
+		 */
+		private Duration jitter = Duration.ofMinutes(1);
+		/**
+		 * Maximum number of resources fetched at the same time.
+		 */
+		private int parallelism = 5;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getInterval() {
+			return interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		public Duration getJitter() {
+			return jitter;
+		}
+
+		public void setJitter(Duration jitter) {
+			this.jitter = jitter;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogStore}.
+	 */
+	public static class Store {
+
+		/**
+		 * Whether the catalog is stored in and loaded from the database.
+		 */
+		private boolean enabled = true;
+		/**
+		 * Number of versions kept per resource.
+		 */
+		private int retainedVersions = 5;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getRetainedVersions() {
+			return retainedVersions;
+		}
+
+		public void setRetainedVersions(int retainedVersions) {
+			this.retainedVersions = retainedVersions;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogHttpClient}.
+	 */
+	public static class Http {
+
+		/**
+		 * Maximum time to open a connection to the API.
+		 */
+		private Duration connectTimeout = Duration.ofSeconds(2);
+		/**
+		 * Maximum time between sending a request and receiving the headers of the response.
+		 */
+		private Duration readTimeout = Duration.ofSeconds(5);
+		/**
+		 * Maximum time of a whole call, from waiting for a free connection to reading the last byte of the body.
+		 */
+		private Duration timeout = Duration.ofSeconds(10);
+		/**
+		 * Maximum number of requests in flight to the API at the same time.
+		 */
+		private int maxConnections = 8;
+		/**
+		 * Maximum time a call waits for one of the {@link #maxConnections} slots before being rejected.
+		 */
+		private Duration maxWait = Duration.ofSeconds(1);
+		/**
+		 * Whether HTTP/2 is offered to the API, falling back to HTTP/1.1 when it does not support it.
+		 */
+		private boolean http2 = true;
+
+		public Duration getConnectTimeout() {
+			return connectTimeout;
+		}
+
+		public void setConnectTimeout(Duration connectTimeout) {
+			this.connectTimeout = connectTimeout;
+		}
+
+		public Duration getReadTimeout() {
+			return readTimeout;
+		}
+
+		public void setReadTimeout(Duration readTimeout) {
+			this.readTimeout = readTimeout;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		public int getMaxConnections() {
+			return maxConnections;
+		}
+
+		public void setMaxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+		}
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+		public boolean isHttp2() {
+			return http2;
+		}
+
+		public void setHttp2(boolean http2) {
+			this.http2 = http2;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogCircuitBreaker}, one per resource.
+	 */
+	public static class Breaker {
+
+		/**
+		 * Whether the calls to the API go through the circuit breakers.
+		 */
+		private boolean enabled = true;
+		/**
+		 * Number of the last calls the failure and slow call rates are computed on.
+		 */
+		private int windowSize = 20;
+		/**
+		 * Minimum number of calls in the window before the breaker may open.
+		 */
+		private int minimumCalls = 10;
+		/**
+		 * Percentage of failed calls from which the breaker opens.
+		 */
+		private int failureRateThreshold = 50;
+		/**
+		 * Duration from which a call counts as slow.
+		 */
+		private Duration slowCallDuration = Duration.ofSeconds(3);
+		/**
+		 * Percentage of slow calls from which the breaker opens.
+		 */
+		private int slowCallRateThreshold = 80;
+		/**
+		 * Time the breaker stays open before letting a probe through.
+		 */
+		private Duration openDuration = Duration.ofSeconds(30);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getWindowSize() {
+			return windowSize;
+		}
+
+		public void setWindowSize(int windowSize) {
+			this.windowSize = windowSize;
+		}
+
+		public int getMinimumCalls() {
+			return minimumCalls;
+		}
+
+		public void setMinimumCalls(int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+		}
+
+		public int getFailureRateThreshold() {
+			return failureRateThreshold;
+		}
+
+		public void setFailureRateThreshold(int failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+		}
+
+		public Duration getSlowCallDuration() {
+			return slowCallDuration;
+		}
+
+		public void setSlowCallDuration(Duration slowCallDuration) {
+			this.slowCallDuration = slowCallDuration;
+		}
+
+		public int getSlowCallRateThreshold() {
+			return slowCallRateThreshold;
+		}
+
+		public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+			this.slowCallRateThreshold = slowCallRateThreshold;
+		}
+
+		public Duration getOpenDuration() {
+			return openDuration;
+		}
+
+		public void setOpenDuration(Duration openDuration) {
+			this.openDuration = openDuration;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the retries of the {@link CatalogHttpClient} and of its
+	 * {@link CatalogRetryBudget}.
+	 */
+	public static class Retry {
+
+		/**
+		 * Whether failed calls are retried.
+		 */
+		private boolean enabled = true;
+		/**
+		 * Maximum number of attempts of a call, the first one included.
+		 */
+		private int maxAttempts = 3;
+		/**
+		 * Upper bound of the random wait before the first retry, doubled for every following one.
+		 */
+		private Duration initialBackoff = Duration.ofMillis(100);
+		/**
+		 * Maximum wait before a retry, also the longest Retry-After honored.
+		 */
+		private Duration maxBackoff = Duration.ofSeconds(2);
+		/**
+		 * Fraction of a retry earned by every call, the share of extra traffic retries may add.
+		 */
+		private double budgetRatio = 0.1;
+		/**
+		 * Maximum number of retries the budget holds, all available at startup.
+		 */
+		private int budgetCapacity = 10;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Duration getInitialBackoff() {
+			return initialBackoff;
+		}
+
+		public void setInitialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		public Duration getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		public void setMaxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		public double getBudgetRatio() {
+			return budgetRatio;
+		}
+
+		public void setBudgetRatio(double budgetRatio) {
+			this.budgetRatio = budgetRatio;
+		}
+
+		public int getBudgetCapacity() {
+			return budgetCapacity;
+		}
+
+		public void setBudgetCapacity(int budgetCapacity) {
+			this.budgetCapacity = budgetCapacity;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the hedged calls of the {@link CatalogHttpClient}.
+	 */
+	public static class Hedge {
+
+		/**
+		 * Whether a second request is sent when the first one is slower than usual.
+		 */
+		private boolean enabled = false;
+		/**
+		 * Percentile of the recent latencies of the resource after which the second request is sent.
+		 */
+		private double percentile = 95;
+		/**
+		 * Minimum wait before sending the second request, whatever the recent latencies.
+		 */
+		private Duration minDelay = Duration.ofMillis(20);
+		/**
+		 * Number of recent latencies kept per resource.
+		 */
+		private int windowSize = 100;
+		/**
+		 * Number of latencies needed before the calls of a resource are hedged.
+		 */
+		private int minimumSamples = 20;
+		/**
+		 * Fraction of a hedge earned by every call, the share of extra traffic hedges may add.
+		 */
+		private double budgetRatio = 0.1;
+		/**
+		 * Maximum number of hedges the budget holds, all available at startup.
+		 */
+		private int budgetCapacity = 5;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public double getPercentile() {
+			return percentile;
+		}
+
+		public void setPercentile(double percentile) {
+			this.percentile = percentile;
+		}
+
+		public Duration getMinDelay() {
+			return minDelay;
+		}
+
+		public void setMinDelay(Duration minDelay) {
+			this.minDelay = minDelay;
+		}
+
+		public int getWindowSize() {
+			return windowSize;
+		}
+
+		public void setWindowSize(int windowSize) {
+			this.windowSize = windowSize;
+		}
+
+		public int getMinimumSamples() {
+			return minimumSamples;
+		}
+
+		public void setMinimumSamples(int minimumSamples) {
+			this.minimumSamples = minimumSamples;
+		}
+
+		public double getBudgetRatio() {
+			return budgetRatio;
+		}
+
+		public void setBudgetRatio(double budgetRatio) {
+			this.budgetRatio = budgetRatio;
+		}
+
+		public int getBudgetCapacity() {
+			return budgetCapacity;
+		}
+
+		public void setBudgetCapacity(int budgetCapacity) {
+			this.budgetCapacity = budgetCapacity;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogMirrors}.
+	 */
+	public static class Mirrors {
+
+		/**
+		 * Weight of the latest call in the moving averages of latency and error rate, between 0 and 1.
+		 */
+		private double ewmaWeight = 0.3;
+		/**
+		 * Error rate from which a mirror is unhealthy and only tried after the healthy ones.
+		 */
+		private double errorRateThreshold = 0.5;
+		/**
+		 * Time after its last failure before an unhealthy mirror is tried first again.
+		 */
+		private Duration cooldown = Duration.ofSeconds(30);
+
+		public double getEwmaWeight() {
+			return ewmaWeight;
+		}
+
+		public void setEwmaWeight(double ewmaWeight) {
+			this.ewmaWeight = ewmaWeight;
+		}
+
+		public double getErrorRateThreshold() {
+			return errorRateThreshold;
+		}
+
+		public void setErrorRateThreshold(double errorRateThreshold) {
+			this.errorRateThreshold = errorRateThreshold;
+		}
+
+		public Duration getCooldown() {
+			return cooldown;
+		}
+
+		public void setCooldown(Duration cooldown) {
+			this.cooldown = cooldown;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogChangeLog}.
+	 */
+	public static class Changes {
+
+		/**
+		 * Number of snapshot versions whose changes are kept; older versions have to resynchronize the whole catalog.
+		 */
+		private int retainedVersions = 100;
+
+		public int getRetainedVersions() {
+			return retainedVersions;
+		}
+
+		public void setRetainedVersions(int retainedVersions) {
+			this.retainedVersions = retainedVersions;
+		}
+	}
+
+	/**
+	 * This class holds the configuration of the {@link CatalogUpdateStream}.
+	 */
+	public static class Stream {
+
+		/**
+		 * Maximum number of clients subscribed at once; further subscriptions are refused.
+		 */
+		private int maxSubscribers = 10000;
+		/**
+		 * Number of updates waiting to be sent to a client; a client falling further behind is dropped.
+		 */
+		private int queueCapacity = 16;
+		/**
+		 * Time without updates after which a comment is sent, keeping the connection open through proxies.
+		 */
+		private Duration heartbeat = Duration.ofSeconds(30);
+		/**
+		 * Time after which a subscription ends and the client has to reconnect.
+		 */
+		private Duration timeout = Duration.ofMinutes(30);
+
+		public int getMaxSubscribers() {
+			return maxSubscribers;
+		}
+
+		public void setMaxSubscribers(int maxSubscribers) {
+			this.maxSubscribers = maxSubscribers;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public Duration getHeartbeat() {
+			return heartbeat;
+		}
+
+		public void setHeartbeat(Duration heartbeat) {
+			this.heartbeat = heartbeat;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+	}
+}
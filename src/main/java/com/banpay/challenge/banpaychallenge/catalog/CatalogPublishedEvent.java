@@ -0,0 +1,12 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.Set;
+
+/**
+ * This record represents the event published by the {@link CatalogCache} every time a new snapshot is swapped in.
+ *
+ * @param snapshot  the snapshot now served
+ * @param resources the resources whose entries were replaced
+ */
+public record CatalogPublishedEvent(CatalogSnapshot snapshot, Set<CatalogResource<?>> resources) {
+}
@@ -0,0 +1,151 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CatalogRefresher class refreshes the whole catalog in the background.
+ * <p>
+ * On every run it fetches "/films", "/people", "/locations", "/species" and "/vehicles" in parallel, bounded by the
+ * configured parallelism, and publishes them to the {@link CatalogCache} as a single snapshot. A resource that fails
+ * to refresh keeps its previous entry. The first run starts with the application, the next ones follow the configured
+ * interval plus or minus a random jitter.
+ * </p>
+ */
+@Component
+public class CatalogRefresher implements SmartLifecycle {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogRefresher.class);
+
+	private final CatalogCache cache;
+	private final CatalogProperties.Refresh properties;
+	private final ScheduledExecutorService scheduler;
+	private final Executor executor;
+	private final Semaphore permits;
+
+	private volatile ScheduledFuture<?> nextRun;
+
+	/**
+	 * Autowires the CatalogCache, the CatalogProperties and the executors that time and run the refreshes.
+	 *
+	 * @param cache      cache the refreshed snapshot is published to
+	 * @param properties configuration of the catalog
+	 * @param scheduler  scheduler that triggers each run
+	 * @param executor   executor that runs the fetches
+	 */
+	@Autowired
+	public CatalogRefresher(CatalogCache cache,
+							CatalogProperties properties,
+							@Qualifier("catalogRefreshScheduler") ScheduledExecutorService scheduler,
+							@Qualifier("catalogRefreshExecutor") Executor executor) {
+		this.cache = cache;
+		this.properties = properties.getRefresh();
+		this.scheduler = scheduler;
+		this.executor = executor;
+		this.permits = new Semaphore(Math.max(1, this.properties.getParallelism()));
+	}
+
+	/**
+	 * Fetches every resource of the catalog and publishes the ones retrieved as a single snapshot.
+	 *
+	 * @return the snapshot served after the refresh
+	 */
+	public CatalogSnapshot refresh() {
+		List<CompletableFuture<CatalogEntry<?>>> fetches = CatalogResource.values().stream()
+				.map(resource -> CompletableFuture.<CatalogEntry<?>>supplyAsync(() -> fetch(resource), executor))
+				.toList();
+
+		Map<CatalogResource<?>, CatalogEntry<?>> entries = new HashMap<>();
+		for (int i = 0; i < fetches.size(); i++) {
+			CatalogResource<?> resource = CatalogResource.values().get(i);
+			try {
+				entries.put(resource, fetches.get(i).join());
+			}
+			catch (RuntimeException e) {
+				LOGGER.error("Refresh of {} failed, keeping the previous entry: {}", resource, e.getMessage());
+			}
+		}
+
+		return entries.isEmpty() ? cache.getSnapshot() : cache.publish(entries);
+	}
+
+	private CatalogEntry<?> fetch(CatalogResource<?> resource) {
+		permits.acquireUninterruptibly();
+		try {
+			return cache.fetch(resource);
+		}
+		finally {
+			permits.release();
+		}
+	}
+
+	private void run() {
+		try {
+			refresh();
+		}
+		catch (RuntimeException e) {
+			LOGGER.error("Catalog refresh failed: {}", e.getMessage());
+		}
+		finally {
+			schedule(nextDelay());
+		}
+	}
+
+	private synchronized void schedule(Duration delay) {
+		if (nextRun != null && !scheduler.isShutdown()) {
+			nextRun = scheduler.schedule(this::run, delay.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Computes the delay until the next run, the interval shifted by a random amount within the jitter.
+	 *
+	 * @return the delay, never negative
+	 */
+	private Duration nextDelay() {
+		long jitter = properties.getJitter().toMillis();
+		long offset = jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0;
+		return Duration.ofMillis(Math.max(0, properties.getInterval().toMillis() + offset));
+	}
+
+	@Override
+	public synchronized void start() {
+		if (!properties.isEnabled() || nextRun != null) {
+			return;
+		}
+		LOGGER.info("Refreshing the catalog every {} (jitter {})", properties.getInterval(), properties.getJitter());
+		nextRun = scheduler.schedule(this::run, 0, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (nextRun != null) {
+			nextRun.cancel(false);
+			nextRun = null;
+		}
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return nextRun != null;
+	}
+}
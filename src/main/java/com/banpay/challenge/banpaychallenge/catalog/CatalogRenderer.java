@@ -0,0 +1,340 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.payload.request.CatalogQuery;
+import com.banpay.challenge.banpaychallenge.payload.response.MessageResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The CatalogRenderer class renders the response body of each collection once per published entry.
+ * <p>
+ * The whole {@link MessageResponse} is serialized to UTF-8 bytes and compressed with gzip when the entry is published,
+ * and its JSON tree encoded in every {@link BinaryFormat}, so serving a collection is only a copy of the bytes already
+ * rendered, whichever format the client asks for. The folio in the body is generated once per rendered entry and
+ * identifies the rendering; the RoleController sends the folio of each response in the "X-Folio" header, see
+ * {@link MessageResponse}.
+ * </p>
+ * <p>
+ * The data is hashed to identify its content: an entry whose content did not change keeps the bodies, the folio and
+ * the ETag of the previous rendering. Each entity is hashed as well, which tells the {@link CatalogChangeLog} and the
+ * {@link CatalogSearchIndex} which entities a new version changed.
+ * </p>
+ * <p>
+ * Requests for a page or for some of the fields are cut from the JSON trees kept with the rendering, see
+ * {@link #slice(CatalogResource, RenderedCatalog, int[], CatalogQuery)}, and exports are streamed from them as
+ * newline delimited JSON, see {@link #writeNdjson(RenderedCatalog, int[], Set, OutputStream)}.
+ * </p>
+ */
+@Component
+public class CatalogRenderer {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogRenderer.class);
+
+	private final ObjectMapper objectMapper;
+	private final Map<CatalogResource<?>, RenderedCatalog> renders = new ConcurrentHashMap<>();
+	private final Map<CatalogResource<?>, Set<String>> fieldNames = new ConcurrentHashMap<>();
+
+	/**
+	 * Autowires the ObjectMapper.
+	 *
+	 * @param objectMapper mapper used to serialize the responses
+	 */
+	@Autowired
+	public CatalogRenderer(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Renders the resources of a newly published snapshot ahead of the requests.
+	 *
+	 * @param event the event published by the CatalogCache
+	 */
+	@EventListener
+	public void onPublished(CatalogPublishedEvent event) {
+		for (CatalogResource<?> resource : event.resources()) {
+			render(resource, event.snapshot().get(resource));
+		}
+	}
+
+	/**
+	 * Retrieves the rendered body of an entry, rendering it if it was not rendered yet.
+	 *
+	 * @param resource the resource of the entry
+	 * @param entry    the entry to render
+	 * @return the rendered body of the entry
+	 */
+	public RenderedCatalog render(CatalogResource<?> resource, CatalogEntry<?> entry) {
+		RenderedCatalog rendered = renders.get(resource);
+		if (rendered != null && rendered.entry() == entry) {
+			return rendered;
+		}
+		return renders.compute(resource, (key, current) -> doRender(resource, entry, current));
+	}
+
+	/**
+	 * Renders an entry, reusing the bodies of the current rendering when the data did not change.
+	 *
+	 * @param resource the resource of the entry
+	 * @param entry    the entry to render
+	 * @param current  the current rendering of the resource, may be null
+	 * @return the rendering of the entry
+	 */
+	private RenderedCatalog doRender(CatalogResource<?> resource, CatalogEntry<?> entry, RenderedCatalog current) {
+		if (current != null && current.entry() == entry) {
+			return current;
+		}
+		if (current != null && current.entry().data() == entry.data()) {
+			return current.withEntry(entry);
+		}
+		try {
+			byte[] data = objectMapper.writeValueAsBytes(entry.data());
+			String hash = Digests.sha256(data);
+			if (current != null && current.hash().equals(hash)) {
+				return current.withEntry(entry);
+			}
+			byte[] json = objectMapper.writeValueAsBytes(
+					new MessageResponse<>("All " + resource.getName() + " obtained", entry.data()));
+
+			JsonNode body = objectMapper.readTree(json);
+			Map<BinaryFormat, byte[]> binaries = new EnumMap<>(BinaryFormat.class);
+			for (BinaryFormat format : BinaryFormat.values()) {
+				binaries.put(format, format.encode(body));
+			}
+
+			List<ObjectNode> nodes = new ArrayList<>();
+			Map<String, Integer> positions = new HashMap<>();
+			Map<String, String> hashes = new HashMap<>();
+			for (JsonNode node : body.path("data")) {
+				String id = node.path("id").asText();
+				if (positions.putIfAbsent(id, nodes.size()) == null) {
+					hashes.put(id, Digests.sha256(objectMapper.writeValueAsBytes(node)));
+				}
+				nodes.add((ObjectNode) node);
+			}
+
+			RenderedCatalog rendered = new RenderedCatalog(entry, hash, json, gzip(json), Collections.unmodifiableMap(binaries),
+					List.copyOf(nodes), Map.copyOf(positions), Map.copyOf(hashes));
+			LOGGER.info("Rendered {} into {} bytes, {} gzipped, {} in CBOR, {} in Smile, {} in MessagePack", resource,
+					rendered.json().length, rendered.gzip().length, rendered.body(BinaryFormat.CBOR).length,
+					rendered.body(BinaryFormat.SMILE).length, rendered.body(BinaryFormat.MESSAGE_PACK).length);
+			return rendered;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Rendering " + resource + " failed", e);
+		}
+	}
+
+	/**
+	 * Cuts a page of a rendered collection, keeping only the requested fields of each entity.
+	 *
+	 * @param resource the resource of the collection
+	 * @param rendered the rendered collection
+	 * @param query    the page, size, cursor and fields requested
+	 * @return the page of the collection
+	 * @throws IllegalArgumentException if a field does not exist or the cursor does not match any entity
+	 * @see #slice(CatalogResource, RenderedCatalog, int[], CatalogQuery)
+	 */
+	public CatalogPage slice(CatalogResource<?> resource, RenderedCatalog rendered, CatalogQuery query) {
+		return slice(resource, rendered, null, query);
+	}
+
+	/**
+	 * Cuts a page of some rows of a rendered collection, keeping only the requested fields of each entity.
+	 * <p>
+	 * The page starts after the entity named by the cursor when there is one, or at the given page otherwise.
+	 * The cursor of the next page is the encoded id of the last entity returned.
+	 * </p>
+	 *
+	 * @param resource the resource of the collection
+	 * @param rendered the rendered collection
+	 * @param rows     the positions of the rows to page through in order, or null for the whole collection
+	 * @param query    the page, size, cursor and fields requested
+	 * @return the page of the rows
+	 * @throws IllegalArgumentException if a field does not exist or the cursor does not match any of the rows
+	 */
+	public CatalogPage slice(CatalogResource<?> resource, RenderedCatalog rendered, int[] rows, CatalogQuery query) {
+		Set<String> fields = query.getFields();
+		checkFields(resource, fields);
+
+		List<ObjectNode> nodes = rendered.nodes();
+		int total = rows == null ? nodes.size() : rows.length;
+		int size = query.getSize() != null ? query.getSize()
+				: query.getPage() != null || query.getCursor() != null ? CatalogQuery.DEFAULT_SIZE : total;
+		int from;
+		if (query.getCursor() != null) {
+			Integer position = rendered.positions().get(decodeCursor(query.getCursor()));
+			int index = position == null ? -1 : rows == null ? position : indexOf(rows, position);
+			if (index < 0) {
+				throw new IllegalArgumentException("The cursor does not match any of the " + resource);
+			}
+			from = index + 1;
+		}
+		else {
+			from = (int) Math.min((long) Optional.ofNullable(query.getPage()).orElse(0) * size, total);
+		}
+		int to = Math.min(from + size, total);
+
+		List<JsonNode> data = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			ObjectNode node = nodes.get(rows == null ? i : rows[i]);
+			data.add(fields == null ? node : project(node, fields));
+		}
+		String nextCursor = to < total && to > from
+				? encodeCursor(nodes.get(rows == null ? to - 1 : rows[to - 1]).path("id").asText())
+				: null;
+		String description = "page=" + query.getPage() + "&size=" + query.getSize() + "&cursor=" + query.getCursor()
+				+ "&fields=" + fields + "&rows=" + (rows == null ? "all" : Arrays.toString(rows));
+		String etag = "W/\"" + Digests.sha256((rendered.hash() + "?" + description).getBytes(StandardCharsets.UTF_8)) + "\"";
+		return new CatalogPage(data, total, nextCursor, etag);
+	}
+
+	/**
+	 * Writes some rows of a rendered collection as newline delimited JSON, one entity per line, keeping only the
+	 * requested fields of each entity.
+	 * <p>
+	 * The entities are written from the JSON trees of the rendering through a streaming generator, without building a
+	 * list or an envelope, so the memory used does not grow with the collection. The first line is flushed as soon as
+	 * it is written so the client starts receiving right away.
+	 * </p>
+	 *
+	 * @param rendered the rendered collection
+	 * @param rows     the positions of the rows to write in order, or null for the whole collection
+	 * @param fields   the fields to keep, or null for every field
+	 * @param out      the stream to write to, left open
+	 * @throws IOException if writing to the stream fails
+	 */
+	public void writeNdjson(RenderedCatalog rendered, int[] rows, Set<String> fields, OutputStream out) throws IOException {
+		List<ObjectNode> nodes = rendered.nodes();
+		int total = rows == null ? nodes.size() : rows.length;
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+			for (int i = 0; i < total; i++) {
+				ObjectNode node = nodes.get(rows == null ? i : rows[i]);
+				if (fields == null) {
+					generator.writeTree(node);
+				}
+				else {
+					generator.writeStartObject();
+					for (String field : fields) {
+						JsonNode value = node.get(field);
+						if (value != null) {
+							generator.writeFieldName(field);
+							generator.writeTree(value);
+						}
+					}
+					generator.writeEndObject();
+				}
+				generator.writeRaw('\n');
+				if (i == 0) {
+					generator.flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that the requested fields are properties of the model of a resource.
+	 *
+	 * @param resource the resource
+	 * @param fields   the requested fields, may be null
+	 * @throws IllegalArgumentException if a field does not exist
+	 */
+	public void checkFields(CatalogResource<?> resource, Set<String> fields) {
+		if (fields != null && !fieldNames(resource).containsAll(fields)) {
+			Set<String> unknown = new LinkedHashSet<>(fields);
+			unknown.removeAll(fieldNames(resource));
+			throw new IllegalArgumentException("Unknown fields " + unknown + " for " + resource);
+		}
+	}
+
+	private static int indexOf(int[] rows, int position) {
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i] == position) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private ObjectNode project(ObjectNode node, Set<String> fields) {
+		ObjectNode projected = objectMapper.createObjectNode();
+		for (String field : fields) {
+			JsonNode value = node.get(field);
+			if (value != null) {
+				projected.set(field, value);
+			}
+		}
+		return projected;
+	}
+
+	/**
+	 * Lists the JSON properties of the model of a resource.
+	 *
+	 * @param resource the resource
+	 * @return the names of the properties
+	 */
+	private Set<String> fieldNames(CatalogResource<?> resource) {
+		return fieldNames.computeIfAbsent(resource, key -> {
+			BeanDescription description = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(key.getType()));
+			Set<String> names = new HashSet<>();
+			description.findProperties().forEach(property -> names.add(property.getName()));
+			return Set.copyOf(names);
+		});
+	}
+
+	private static String encodeCursor(String id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String decodeCursor(String cursor) {
+		try {
+			return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("The cursor is malformed", e);
+		}
+	}
+
+	private static byte[] gzip(byte[] json) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(json);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,82 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.*;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class describes one of the collections exposed by the Studio Ghibli API.
+ * Each CatalogResource instance contains the name of the collection, the model class its entities are mapped to
+ * and the role a user needs to read it.
+ * <p>
+ * It is a typed replacement for an enumeration, so the catalog can hand out {@code List<Films>} or {@code List<People>}
+ * without casts on the caller side.
+ *
+ * @param <T> the model class of the entities in the collection
+ */
+public final class CatalogResource<T> {
+
+	public static final CatalogResource<Films> FILMS = new CatalogResource<>("films", Films.class, ERole.ROLE_FILMS);
+	public static final CatalogResource<People> PEOPLE = new CatalogResource<>("people", People.class, ERole.ROLE_PEOPLE);
+	public static final CatalogResource<Locations> LOCATIONS = new CatalogResource<>("locations", Locations.class, ERole.ROLE_LOCATIONS);
+	public static final CatalogResource<Species> SPECIES = new CatalogResource<>("species", Species.class, ERole.ROLE_SPECIES);
+	public static final CatalogResource<Vehicles> VEHICLES = new CatalogResource<>("vehicles", Vehicles.class, ERole.ROLE_VEHICLES);
+
+	private static final List<CatalogResource<?>> VALUES = List.of(FILMS, PEOPLE, LOCATIONS, SPECIES, VEHICLES);
+
+	private final String name;
+	private final Class<T> type;
+	private final ERole role;
+
+	private CatalogResource(String name, Class<T> type, ERole role) {
+		this.name = name;
+		this.type = type;
+		this.role = role;
+	}
+
+	/**
+	 * Returns all the resources of the catalog in the order the API documents them.
+	 *
+	 * @return an immutable list with every CatalogResource
+	 */
+	public static List<CatalogResource<?>> values() {
+		return VALUES;
+	}
+
+	/**
+	 * Retrieves the resource with the given name.
+	 *
+	 * @param name the name of the resource, for example "films"
+	 * @return an Optional containing the resource, or an empty Optional if no resource has that name
+	 */
+	public static Optional<CatalogResource<?>> fromName(String name) {
+		return VALUES.stream().filter(resource -> resource.name.equals(name)).findFirst();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the path of the resource relative to the Studio Ghibli API url.
+	 *
+	 * @return the path, for example "/films"
+	 */
+	public String getPath() {
+		return "/" + name;
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	public ERole getRole() {
+		return role;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
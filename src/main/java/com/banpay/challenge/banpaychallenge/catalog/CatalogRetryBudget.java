@@ -0,0 +1,54 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+/**
+ * The CatalogRetryBudget class limits the retries sent to the Studio Ghibli API, shared by every resource.
+ * A second instance limits the hedged requests the same way.
+ * <p>
+ * It is a token bucket: every call deposits a fraction of a token, the configured ratio, and every retry withdraws a
+ * whole one. With a ratio of 0.1, retries add at most 10% to the traffic once the initial tokens are spent, so a
+ * failing API is not hammered with a retry for every call. The bucket starts full and never holds more than its
+ * capacity, which bounds the burst of retries after a quiet period.
+ * </p>
+ */
+class CatalogRetryBudget {
+
+	private final double ratio;
+	private final double capacity;
+	private double tokens;
+
+	/**
+	 * Constructs a new full CatalogRetryBudget.
+	 *
+	 * @param ratio    the fraction of a token deposited by every call
+	 * @param capacity the maximum number of tokens held
+	 */
+	CatalogRetryBudget(double ratio, double capacity) {
+		this.ratio = ratio;
+		this.capacity = capacity;
+		this.tokens = capacity;
+	}
+
+	/**
+	 * Records a call, which is not a retry.
+	 */
+	synchronized void onCall() {
+		tokens = Math.min(capacity, tokens + ratio);
+	}
+
+	/**
+	 * Withdraws a token for a retry.
+	 *
+	 * @return true if the retry may be sent, false if the budget is spent
+	 */
+	synchronized boolean tryRetry() {
+		if (tokens < 1) {
+			return false;
+		}
+		tokens -= 1;
+		return true;
+	}
+
+	synchronized double getTokens() {
+		return tokens;
+	}
+}
@@ -0,0 +1,12 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+/**
+ * This record represents an entity of the catalog matching a search.
+ *
+ * @param resource the name of the collection of the entity, like "films"
+ * @param id       the id of the entity
+ * @param name     the title or name of the entity
+ * @param score    the relevance of the entity, higher first
+ */
+public record CatalogSearchHit(String resource, String id, String name, double score) {
+}
@@ -0,0 +1,260 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The CatalogSearchIndex class searches the text of the catalog with an inverted index per collection.
+ * <p>
+ * The index of a collection is built from its rendering every time the collection is published, and swapped in as a
+ * whole. Only the entities whose content hash changed since the previous version are tokenized again; the terms of the
+ * others are reused, and a version with the same content reuses the whole index. Each term points to the entities
+ * containing it, with a weight that favours titles and names over descriptions. A search returns the entities
+ * containing every term of the query, the last one matched as a prefix so results follow the user while typing,
+ * ranked by the weight of the terms and their rarity.
+ * </p>
+ */
+@Component
+public class CatalogSearchIndex {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+	/**
+	 * The searchable fields of each resource with their weight.
+	 */
+	private static final Map<CatalogResource<?>, Map<String, Double>> FIELDS = Map.of(
+			CatalogResource.FILMS, Map.of("title", 3.0,
+										  "original_title", 2.0,
+										  "original_title_romanised", 2.0,
+										  "description", 1.0),
+			CatalogResource.PEOPLE, Map.of("name", 3.0),
+			CatalogResource.LOCATIONS, Map.of("name", 3.0,
+											  "climate", 1.0,
+											  "terrain", 1.0),
+			CatalogResource.SPECIES, Map.of("name", 3.0,
+											"classification", 1.0),
+			CatalogResource.VEHICLES, Map.of("name", 3.0,
+											 "description", 1.0));
+
+	private final CatalogCache catalogCache;
+	private final CatalogRenderer catalogRenderer;
+	private final Map<CatalogResource<?>, Index> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * Autowires the CatalogCache and the CatalogRenderer.
+	 *
+	 * @param catalogCache    cache holding the current snapshot
+	 * @param catalogRenderer renderer holding the JSON trees of each collection
+	 */
+	@Autowired
+	public CatalogSearchIndex(CatalogCache catalogCache, CatalogRenderer catalogRenderer) {
+		this.catalogCache = catalogCache;
+		this.catalogRenderer = catalogRenderer;
+	}
+
+	/**
+	 * Indexes the resources of a newly published snapshot ahead of the searches.
+	 *
+	 * @param event the event published by the CatalogCache
+	 */
+	@EventListener
+	public void onPublished(CatalogPublishedEvent event) {
+		for (CatalogResource<?> resource : event.resources()) {
+			index(resource, event.snapshot().get(resource));
+		}
+	}
+
+	/**
+	 * Searches the collections the caller can read.
+	 * A collection that can not be loaded is left out of the results instead of failing the search.
+	 *
+	 * @param query    the text to search
+	 * @param limit    the maximum number of results
+	 * @param readable tells whether the caller can read a resource
+	 * @return the matching entities, the most relevant first
+	 * @throws IllegalArgumentException if the query has no searchable term
+	 */
+	public List<CatalogSearchHit> search(String query, int limit, Predicate<CatalogResource<?>> readable) {
+		List<CatalogTokenizer.Token> tokens = CatalogTokenizer.query(query);
+		if (tokens.isEmpty()) {
+			throw new IllegalArgumentException("The query has no searchable terms");
+		}
+
+		List<CatalogSearchHit> hits = new ArrayList<>();
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			if (!readable.test(resource)) {
+				continue;
+			}
+			try {
+				hits.addAll(index(resource, catalogCache.getEntry(resource)).search(resource, tokens));
+			}
+			catch (RuntimeException e) {
+				LOGGER.warn("Skipping {} in the search, it could not be loaded: {}", resource, e.getMessage());
+			}
+		}
+		hits.sort(Comparator.comparingDouble(CatalogSearchHit::score).reversed().thenComparing(CatalogSearchHit::name,
+				Comparator.nullsLast(Comparator.naturalOrder())));
+		return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+	}
+
+	/**
+	 * Retrieves the index of an entry, building it if the current one belongs to another entry.
+	 *
+	 * @param resource the resource of the entry
+	 * @param entry    the entry to index
+	 * @return the index of the entry
+	 */
+	private Index index(CatalogResource<?> resource, CatalogEntry<?> entry) {
+		Index index = indexes.get(resource);
+		if (index != null && index.entry() == entry) {
+			return index;
+		}
+		return indexes.compute(resource, (key, current) ->
+				current != null && current.entry() == entry ? current : build(resource, entry, current));
+	}
+
+	/**
+	 * Builds the index of an entry, reusing the terms of the entities the previous index already tokenized.
+	 *
+	 * @param resource the resource of the entry
+	 * @param entry    the entry to index
+	 * @param previous the previous index of the resource, may be null
+	 * @return the index of the entry
+	 */
+	private Index build(CatalogResource<?> resource, CatalogEntry<?> entry, Index previous) {
+		RenderedCatalog rendered = catalogRenderer.render(resource, entry);
+		List<ObjectNode> nodes = rendered.nodes();
+		if (previous != null && previous.nodes() == nodes) {
+			return new Index(entry, nodes, previous.postings(), previous.terms());
+		}
+		Map<String, Map<Integer, Double>> postings = new HashMap<>();
+		Map<String, Map<String, Double>> terms = new HashMap<>();
+		int tokenized = 0;
+		for (int doc = 0; doc < nodes.size(); doc++) {
+			String id = nodes.get(doc).path("id").asText();
+			String hash = Integer.valueOf(doc).equals(rendered.positions().get(id)) ? rendered.hashes().get(id) : null;
+			Map<String, Double> weights = previous == null || hash == null ? null : previous.terms().get(hash);
+			if (weights == null) {
+				weights = terms(resource, nodes.get(doc));
+				tokenized++;
+			}
+			if (hash != null) {
+				terms.put(hash, weights);
+			}
+			for (Map.Entry<String, Double> weight : weights.entrySet()) {
+				postings.computeIfAbsent(weight.getKey(), term -> new HashMap<>()).put(doc, weight.getValue());
+			}
+		}
+		LOGGER.info("Indexed {} {} with {} terms, {} of them tokenized", nodes.size(), resource, postings.size(), tokenized);
+		return new Index(entry, nodes, new TreeMap<>(postings), terms);
+	}
+
+	/**
+	 * Tokenizes the searchable fields of an entity.
+	 *
+	 * @param resource the resource of the entity
+	 * @param node     the entity
+	 * @return the weight of each term in the entity
+	 */
+	private static Map<String, Double> terms(CatalogResource<?> resource, ObjectNode node) {
+		Map<String, Double> weights = new HashMap<>();
+		for (Map.Entry<String, Double> field : FIELDS.get(resource).entrySet()) {
+			JsonNode value = node.get(field.getKey());
+			if (value == null || !value.isTextual()) {
+				continue;
+			}
+			for (CatalogTokenizer.Token token : CatalogTokenizer.index(value.asText())) {
+				weights.merge(token.term(), field.getValue(), Double::sum);
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * This record represents the inverted index of a collection.
+	 *
+	 * @param entry    the entry the index was built from
+	 * @param nodes    the entities of the entry as JSON trees
+	 * @param postings the weight of each term in each entity, keyed by term and then by position of the entity
+	 * @param terms    the weight of each term in each entity, keyed by the content hash of the entity and then by term
+	 */
+	private record Index(CatalogEntry<?> entry, List<ObjectNode> nodes, NavigableMap<String, Map<Integer, Double>> postings,
+						 Map<String, Map<String, Double>> terms) {
+
+		/**
+		 * Finds the entities containing every token, the last one matched as a prefix unless it is a CJK n-gram.
+		 */
+		List<CatalogSearchHit> search(CatalogResource<?> resource, List<CatalogTokenizer.Token> tokens) {
+			Map<Integer, Double> scores = null;
+			for (int i = 0; i < tokens.size(); i++) {
+				CatalogTokenizer.Token token = tokens.get(i);
+				boolean prefix = i == tokens.size() - 1 && !token.cjk();
+				Map<Integer, Double> matches = prefix ? matchPrefix(token.term()) : score(postings.get(token.term()));
+				if (scores == null) {
+					scores = matches;
+				}
+				else {
+					Map<Integer, Double> previous = scores;
+					scores = new HashMap<>();
+					for (Map.Entry<Integer, Double> match : matches.entrySet()) {
+						Double score = previous.get(match.getKey());
+						if (score != null) {
+							scores.put(match.getKey(), score + match.getValue());
+						}
+					}
+				}
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			List<CatalogSearchHit> hits = new ArrayList<>(scores.size());
+			scores.forEach((doc, score) -> {
+				ObjectNode node = nodes.get(doc);
+				JsonNode name = node.has("title") ? node.get("title") : node.get("name");
+				hits.add(new CatalogSearchHit(resource.getName(), node.path("id").asText(),
+						name == null ? null : name.asText(), score));
+			});
+			return hits;
+		}
+
+		private Map<Integer, Double> matchPrefix(String prefix) {
+			Map<Integer, Double> matches = new HashMap<>();
+			for (Map<Integer, Double> docs : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+				score(docs).forEach((doc, score) -> matches.merge(doc, score, Math::max));
+			}
+			return matches;
+		}
+
+		/**
+		 * Weighs the postings of a term by its rarity in the collection.
+		 */
+		private Map<Integer, Double> score(Map<Integer, Double> docs) {
+			if (docs == null) {
+				return Map.of();
+			}
+			double idf = Math.log(1 + (double) nodes.size() / docs.size());
+			Map<Integer, Double> scores = new HashMap<>(docs.size());
+			docs.forEach((doc, weight) -> scores.put(doc, weight * idf));
+			return scores;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class represents an immutable view of the whole catalog at a point in time.
+ * Each CatalogSnapshot instance contains a version and the entry of every resource fetched so far.
+ * <p>
+ * Snapshots are never modified; {@link #with(Map)} returns a new snapshot with a higher version, which lets the
+ * {@link CatalogCache} swap them atomically while readers keep using the one they already hold.
+ * </p>
+ */
+public final class CatalogSnapshot {
+
+	private static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, Map.of());
+
+	private final long version;
+	private final Map<CatalogResource<?>, CatalogEntry<?>> entries;
+
+	private CatalogSnapshot(long version, Map<CatalogResource<?>, CatalogEntry<?>> entries) {
+		this.version = version;
+		this.entries = Map.copyOf(entries);
+	}
+
+	/**
+	 * Returns the snapshot without any resource.
+	 *
+	 * @return the empty snapshot, with version 0
+	 */
+	public static CatalogSnapshot empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Creates the next snapshot, replacing the entries of the given resources and keeping the rest.
+	 *
+	 * @param replacements the new entries keyed by resource
+	 * @return a new snapshot with the version incremented by one
+	 */
+	public CatalogSnapshot with(Map<CatalogResource<?>, CatalogEntry<?>> replacements) {
+		Map<CatalogResource<?>, CatalogEntry<?>> next = new HashMap<>(entries);
+		next.putAll(replacements);
+		return new CatalogSnapshot(version + 1, next);
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Retrieves the entry of a resource.
+	 *
+	 * @param resource the catalog resource
+	 * @param <T>      the model class of the resource
+	 * @return the entry of the resource, or null if it was never fetched
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CatalogEntry<T> get(CatalogResource<T> resource) {
+		return (CatalogEntry<T>) entries.get(resource);
+	}
+}
@@ -0,0 +1,19 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.List;
+
+/**
+ * The CatalogSource interface represents a place the collections of the catalog can be read from.
+ */
+public interface CatalogSource {
+
+	/**
+	 * Reads a whole collection.
+	 * A source may return the very same list as its previous call when the collection did not change.
+	 *
+	 * @param resource the resource to read
+	 * @param <T>      the model class of the resource
+	 * @return the list of entities, empty if the source has none
+	 */
+	<T> List<T> fetch(CatalogResource<T> resource);
+}
@@ -0,0 +1,167 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.CatalogSnapshotRecord;
+import com.banpay.challenge.banpaychallenge.repository.CatalogSnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The CatalogStore class keeps the last good versions of the catalog in the database.
+ * <p>
+ * Every published collection is stored as a versioned jsonb row of the "catalog_snapshots" table, unless its content
+ * is identical to the latest stored version. The {@link CatalogCache} loads the latest versions at boot, so the
+ * catalog can be served before the Studio Ghibli API is reached, and falls back to them when the API fails.
+ * </p>
+ * <p>
+ * The versions of a resource are numbered from the latest stored one, so its writes are serialized by a lock per
+ * resource, and retried when another instance sharing the database took the same version first.
+ * </p>
+ */
+@Component
+public class CatalogStore {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogStore.class);
+
+	/**
+	 * Attempts to store an entry when other writers keep taking its version.
+	 */
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final CatalogSnapshotRepository repository;
+	private final ObjectMapper objectMapper;
+	private final CatalogProperties.Store properties;
+	private final Executor executor;
+	private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+	/**
+	 * Autowires the CatalogSnapshotRepository, the ObjectMapper, the CatalogProperties and the executor for background writes.
+	 *
+	 * @param repository   repository of the stored versions
+	 * @param objectMapper mapper used to serialize the collections
+	 * @param properties   configuration of the catalog
+	 * @param executor     executor that runs the writes off the request threads
+	 */
+	@Autowired
+	public CatalogStore(CatalogSnapshotRepository repository,
+						ObjectMapper objectMapper,
+						CatalogProperties properties,
+						@Qualifier("catalogRefreshExecutor") Executor executor) {
+		this.repository = repository;
+		this.objectMapper = objectMapper;
+		this.properties = properties.getStore();
+		this.executor = executor;
+	}
+
+	/**
+	 * Loads the latest stored version of a resource.
+	 *
+	 * @param resource the resource to load
+	 * @param <T>      the model class of the resource
+	 * @return an Optional containing the stored entry, or an empty Optional if nothing usable is stored
+	 */
+	public <T> Optional<CatalogEntry<T>> load(CatalogResource<T> resource) {
+		if (!properties.isEnabled()) {
+			return Optional.empty();
+		}
+		try {
+			return repository.findFirstByResourceOrderByVersionDesc(resource.getName()).map(record -> toEntry(resource, record));
+		}
+		catch (RuntimeException e) {
+			LOGGER.error("Loading the stored {} failed: {}", resource, e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Stores the resources of a newly published snapshot in the background.
+	 *
+	 * @param event the event published by the CatalogCache
+	 */
+	@EventListener
+	public void onPublished(CatalogPublishedEvent event) {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		for (CatalogResource<?> resource : event.resources()) {
+			CatalogEntry<?> entry = event.snapshot().get(resource);
+			executor.execute(() -> save(resource, entry));
+		}
+	}
+
+	/**
+	 * Stores an entry as the next version of the resource and prunes the versions beyond the retention.
+	 * Nothing is written when the content matches the latest stored version, or when the latest stored version was
+	 * fetched after the entry, since the writes of two snapshots published in a row may run in any order.
+	 *
+	 * @param resource the resource of the entry
+	 * @param entry    the entry to store
+	 */
+	void save(CatalogResource<?> resource, CatalogEntry<?> entry) {
+		ReentrantLock lock = locks.computeIfAbsent(resource.getName(), name -> new ReentrantLock());
+		lock.lock();
+		try {
+			String payload = objectMapper.writeValueAsString(entry.data());
+			String hash = Digests.sha256(payload.getBytes(StandardCharsets.UTF_8));
+			for (int attempt = 1; ; attempt++) {
+				try {
+					store(resource, entry, payload, hash);
+					return;
+				}
+				catch (DataIntegrityViolationException e) {
+					if (attempt == MAX_ATTEMPTS) {
+						throw e;
+					}
+					LOGGER.warn("Another writer stored the same version of {}, retrying", resource);
+				}
+			}
+		}
+		catch (JsonProcessingException | RuntimeException e) {
+			LOGGER.error("Storing {} failed: {}", resource, e.getMessage());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void store(CatalogResource<?> resource, CatalogEntry<?> entry, String payload, String hash) {
+		Optional<CatalogSnapshotRecord> latest = repository.findFirstByResourceOrderByVersionDesc(resource.getName());
+		if (latest.isPresent()
+				&& (latest.get().getContentHash().equals(hash) || latest.get().getFetchedAt().isAfter(entry.fetchedAt()))) {
+			return;
+		}
+
+		long version = latest.map(CatalogSnapshotRecord::getVersion).orElse(0L) + 1;
+		repository.save(new CatalogSnapshotRecord(resource.getName(), version, entry.fetchedAt(), hash, payload));
+		repository.deleteByResourceAndVersionLessThan(resource.getName(), version - properties.getRetainedVersions() + 1);
+		LOGGER.info("Stored version {} of {}", version, resource);
+	}
+
+	private <T> CatalogEntry<T> toEntry(CatalogResource<T> resource, CatalogSnapshotRecord record) {
+		try {
+			List<T> data = objectMapper.readValue(record.getPayload(),
+					objectMapper.getTypeFactory().constructCollectionType(List.class, resource.getType()));
+			return new CatalogEntry<>(data, record.getFetchedAt());
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Stored version " + record.getVersion() + " of " + resource + " is unreadable", e);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The CatalogTokenizer class splits the text of the catalog into the terms of the {@link CatalogSearchIndex}.
+ * <p>
+ * Text is normalized with NFKC, lowercased and stripped of diacritics, so "Tenkū" and "TENKU" give the same term.
+ * Latin text is split into words. Chinese, Japanese and Korean text has no spaces, so each run of those scripts is
+ * split into overlapping bigrams, plus single characters when indexing, so "天空の城" matches a search for "天空" or "城".
+ * </p>
+ */
+final class CatalogTokenizer {
+
+	private CatalogTokenizer() {
+	}
+
+	/**
+	 * Splits a text into the terms to index.
+	 * Runs of CJK characters give both their bigrams and their single characters.
+	 *
+	 * @param text the text to index, may be null
+	 * @return the terms, with repetitions
+	 */
+	static List<Token> index(String text) {
+		return tokenize(text, true);
+	}
+
+	/**
+	 * Splits a search query into the terms to look up.
+	 * Runs of CJK characters give their bigrams, or the single character when the run is one character long.
+	 *
+	 * @param query the search query, may be null
+	 * @return the terms, with repetitions
+	 */
+	static List<Token> query(String query) {
+		return tokenize(query, false);
+	}
+
+	private static List<Token> tokenize(String text, boolean indexing) {
+		List<Token> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		StringBuilder word = new StringBuilder();
+		List<Integer> cjk = new ArrayList<>();
+		for (int i = 0; i < normalized.length(); ) {
+			int codePoint = normalized.codePointAt(i);
+			i += Character.charCount(codePoint);
+			if (isCjk(codePoint)) {
+				flushWord(word, tokens);
+				cjk.add(codePoint);
+			}
+			else if (Character.isLetterOrDigit(codePoint)) {
+				flushCjk(cjk, tokens, indexing);
+				word.appendCodePoint(codePoint);
+			}
+			else if (Character.getType(codePoint) != Character.NON_SPACING_MARK) {
+				flushWord(word, tokens);
+				flushCjk(cjk, tokens, indexing);
+			}
+		}
+		flushWord(word, tokens);
+		flushCjk(cjk, tokens, indexing);
+		return tokens;
+	}
+
+	private static void flushWord(StringBuilder word, List<Token> tokens) {
+		if (!word.isEmpty()) {
+			String stripped = Normalizer.normalize(word, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+			tokens.add(new Token(stripped, false));
+			word.setLength(0);
+		}
+	}
+
+	private static void flushCjk(List<Integer> run, List<Token> tokens, boolean indexing) {
+		if (run.isEmpty()) {
+			return;
+		}
+		if (indexing || run.size() == 1) {
+			for (int codePoint : run) {
+				tokens.add(new Token(Character.toString(codePoint), true));
+			}
+		}
+		for (int i = 0; i + 1 < run.size(); i++) {
+			tokens.add(new Token(Character.toString(run.get(i)) + Character.toString(run.get(i + 1)), true));
+		}
+		run.clear();
+	}
+
+	private static boolean isCjk(int codePoint) {
+		Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+		return script == Character.UnicodeScript.HAN
+				|| script == Character.UnicodeScript.HIRAGANA
+				|| script == Character.UnicodeScript.KATAKANA
+				|| script == Character.UnicodeScript.HANGUL
+				|| codePoint == 'ー';
+	}
+
+	/**
+	 * This record represents a term produced by the tokenizer.
+	 *
+	 * @param term the normalized term
+	 * @param cjk  whether the term is a CJK n-gram, which is never matched by prefix
+	 */
+	record Token(String term, boolean cjk) {
+	}
+}
@@ -0,0 +1,28 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.List;
+
+/**
+ * This record represents the data of an event pushed by the {@link CatalogUpdateStream}: the entities of a collection
+ * changed by a version of the catalog.
+ *
+ * @param resource the name of the collection, like "films"
+ * @param version  the version of the catalog holding the changes
+ * @param added    the ids of the entities added, sorted
+ * @param updated  the ids of the entities whose content changed, sorted
+ * @param removed  the ids of the entities removed, sorted
+ */
+public record CatalogUpdate(String resource, CatalogVersion version, List<String> added, List<String> updated, List<String> removed) {
+
+	/**
+	 * Creates the update of a collection.
+	 *
+	 * @param resource the resource of the collection
+	 * @param version  the version of the catalog holding the changes
+	 * @param changes  the changes of the collection
+	 * @return the update of the collection
+	 */
+	static CatalogUpdate of(CatalogResource<?> resource, CatalogVersion version, CatalogChanges changes) {
+		return new CatalogUpdate(resource.getName(), version, changes.added(), changes.updated(), changes.removed());
+	}
+}
@@ -0,0 +1,277 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * The CatalogUpdateStream class pushes the changes of the catalog to the clients subscribed with server-sent events.
+ * <p>
+ * Every version that changed entities is sent as one "catalog" event per changed collection the client can read, with
+ * the token of the {@link CatalogVersion} as the event id and a {@link CatalogUpdate} as the data. A client reconnecting
+ * with a Last-Event-ID header, or subscribing from a known version, first receives what it missed from the
+ * {@link CatalogChangeLog}, or a "resync" event when those changes are no longer kept, or were made by another run of
+ * the application, and the collections have to be fetched again.
+ * </p>
+ * <p>
+ * Each subscriber has a bounded queue and a virtual thread sending from it, so a publish only offers the updates to
+ * the queues and never waits on a connection, and an idle subscriber only costs a parked thread. A subscriber whose
+ * queue is full is too slow and is dropped; its client reconnects and catches up from its last event id. Without
+ * updates a comment is sent at every heartbeat, which keeps proxies from closing the connection and detects the clients
+ * gone. The number of subscribers is published as the "catalog.stream.subscribers" metric and the slow subscribers
+ * dropped as "catalog.stream.dropped".
+ * </p>
+ */
+@Component
+public class CatalogUpdateStream {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogUpdateStream.class);
+
+	private final CatalogChangeLog catalogChangeLog;
+	private final CatalogProperties.Stream properties;
+	private final Executor executor;
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger subscribed = new AtomicInteger();
+	private final Counter dropped;
+
+	/**
+	 * Autowires the CatalogChangeLog, the CatalogProperties, the executor sending the events and the MeterRegistry.
+	 *
+	 * @param catalogChangeLog log of the changes a reconnecting client missed
+	 * @param properties       configuration of the catalog
+	 * @param executor         executor running the thread of each subscriber
+	 * @param meterRegistry    registry the subscribers are counted in
+	 */
+	@Autowired
+	public CatalogUpdateStream(CatalogChangeLog catalogChangeLog,
+							   CatalogProperties properties,
+							   @Qualifier("catalogStreamExecutor") Executor executor,
+							   MeterRegistry meterRegistry) {
+		this.catalogChangeLog = catalogChangeLog;
+		this.properties = properties.getStream();
+		this.executor = executor;
+		Gauge.builder("catalog.stream.subscribers", subscribed, AtomicInteger::get)
+				.description("Clients subscribed to the catalog updates")
+				.register(meterRegistry);
+		this.dropped = Counter.builder("catalog.stream.dropped")
+				.description("Subscribers dropped because they did not keep up with the updates")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Subscribes a client to the updates of the collections it can read.
+	 *
+	 * @param readable    tells whether the client can read a resource
+	 * @param lastEventId the Last-Event-ID header of a reconnecting client, may be null or not a version
+	 * @param since       the token of the version the client already holds, used when it does not send a
+	 *                    Last-Event-ID, may be null
+	 * @return the emitter of the events, or an empty Optional if the maximum number of subscribers is reached
+	 */
+	public Optional<SseEmitter> subscribe(Predicate<CatalogResource<?>> readable, String lastEventId, String since) {
+		if (subscribed.incrementAndGet() > properties.getMaxSubscribers()) {
+			subscribed.decrementAndGet();
+			LOGGER.warn("Refusing a subscription to the catalog updates, {} clients are subscribed", properties.getMaxSubscribers());
+			return Optional.empty();
+		}
+		Subscriber subscriber = new Subscriber(new SseEmitter(properties.getTimeout().toMillis()), readable,
+											   new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())));
+		subscriber.emitter.onTimeout(subscriber.emitter::complete);
+		subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+		subscriber.emitter.onError(error -> unsubscribe(subscriber));
+		subscribers.add(subscriber);
+
+		CatalogVersion from = CatalogVersion.parse(lastEventId);
+		if (from == null) {
+			from = CatalogVersion.parse(since);
+		}
+		if (from != null) {
+			replay(subscriber, from);
+		}
+		executor.execute(() -> send(subscriber));
+		return Optional.of(subscriber.emitter);
+	}
+
+	/**
+	 * Offers the changes of a new version to every subscriber that can read them, dropping the ones that are too slow.
+	 *
+	 * @param event the event published by the CatalogChangeLog
+	 */
+	@EventListener
+	public void onChanged(CatalogChangedEvent event) {
+		List<Map.Entry<CatalogResource<?>, Event>> events = new ArrayList<>();
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			CatalogChanges changes = event.changes().get(resource);
+			if (changes != null) {
+				events.add(Map.entry(resource, Event.update(CatalogUpdate.of(resource, event.version(), changes))));
+			}
+		}
+		for (Subscriber subscriber : subscribers) {
+			List<Event> readable = new ArrayList<>(events.size());
+			for (Map.Entry<CatalogResource<?>, Event> update : events) {
+				if (subscriber.readable.test(update.getKey())) {
+					readable.add(update.getValue());
+				}
+			}
+			if (!readable.isEmpty() && !subscriber.offer(event.version().number(), readable, false)) {
+				drop(subscriber);
+			}
+		}
+	}
+
+	/**
+	 * Queues the changes a subscriber missed since a version, or a "resync" event if they are no longer kept.
+	 * The changes are queued even when a live update of the same version was queued first; the client gets the same ids
+	 * twice rather than missing the older ones.
+	 */
+	private void replay(Subscriber subscriber, CatalogVersion from) {
+		Optional<CatalogChangeFeed> feed = catalogChangeLog.since(from, subscriber.readable);
+		if (feed.isEmpty()) {
+			subscriber.queue.offer(Event.RESYNC);
+			return;
+		}
+		List<Event> events = new ArrayList<>();
+		feed.get().changes().forEach((name, changes) -> CatalogResource.fromName(name)
+				.ifPresent(resource -> events.add(Event.update(CatalogUpdate.of(resource, feed.get().version(), changes)))));
+		if (!subscriber.offer(feed.get().version().number(), events, true)) {
+			drop(subscriber);
+		}
+	}
+
+	/**
+	 * Sends the events queued for a subscriber until it is closed, on the thread of the subscriber.
+	 */
+	private void send(Subscriber subscriber) {
+		subscriber.thread = Thread.currentThread();
+		try {
+			while (!subscriber.closed) {
+				Event event = subscriber.queue.poll(properties.getHeartbeat().toMillis(), TimeUnit.MILLISECONDS);
+				if (event == null) {
+					subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+				}
+				else {
+					SseEmitter.SseEventBuilder builder = SseEmitter.event();
+					if (event.update() != null) {
+						builder.id(event.update().version().toString()).name(event.name()).data(event.update(), MediaType.APPLICATION_JSON);
+					}
+					else {
+						builder.name(event.name()).data("");
+					}
+					subscriber.emitter.send(builder);
+				}
+			}
+		}
+		catch (IOException | IllegalStateException e) {
+			LOGGER.debug("Subscriber of the catalog updates gone: {}", e.getMessage());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			unsubscribe(subscriber);
+			subscriber.emitter.complete();
+		}
+	}
+
+	private void drop(Subscriber subscriber) {
+		if (subscribers.contains(subscriber)) {
+			dropped.increment();
+			LOGGER.warn("Dropping a subscriber of the catalog updates, {} updates are waiting", subscriber.queue.size());
+			unsubscribe(subscriber);
+			subscriber.emitter.complete();
+		}
+	}
+
+	private void unsubscribe(Subscriber subscriber) {
+		subscriber.closed = true;
+		if (subscribers.remove(subscriber)) {
+			subscribed.decrementAndGet();
+		}
+		Thread thread = subscriber.thread;
+		if (thread != null && thread != Thread.currentThread()) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * This record represents an event waiting in the queue of a subscriber, shared by every subscriber it is sent to.
+	 *
+	 * @param name   the name of the event
+	 * @param update the changes sent, or null for a "resync" event
+	 */
+	private record Event(String name, CatalogUpdate update) {
+
+		static final Event RESYNC = new Event("resync", null);
+
+		static Event update(CatalogUpdate update) {
+			return new Event("catalog", update);
+		}
+	}
+
+	/**
+	 * This class represents a client subscribed to the updates.
+	 */
+	private static final class Subscriber {
+
+		private final SseEmitter emitter;
+		private final Predicate<CatalogResource<?>> readable;
+		private final BlockingQueue<Event> queue;
+		private volatile Thread thread;
+		private volatile boolean closed;
+		/**
+		 * The last version queued, so a version replayed is not queued again when it is published meanwhile.
+		 */
+		private long version = -1;
+
+		private Subscriber(SseEmitter emitter, Predicate<CatalogResource<?>> readable, BlockingQueue<Event> queue) {
+			this.emitter = emitter;
+			this.readable = readable;
+			this.queue = queue;
+		}
+
+		/**
+		 * Queues the events of a version. A live version already queued by a replay is skipped.
+		 *
+		 * @param version the version of the events
+		 * @param events  the events to queue
+		 * @param replay  whether the events are replayed, and queued whatever the versions already queued
+		 * @return false if the queue is full, true otherwise
+		 */
+		private synchronized boolean offer(long version, List<Event> events, boolean replay) {
+			if (!replay && version <= this.version) {
+				return true;
+			}
+			this.version = Math.max(this.version, version);
+			for (Event event : events) {
+				if (!queue.offer(event)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.time.Duration;
+
+/**
+ * The CatalogUpstreamException is thrown when a call to the Studio Ghibli API does not return a usable response,
+ * because it failed, timed out, or was answered with an error status.
+ */
+public class CatalogUpstreamException extends RuntimeException {
+
+	/**
+	 * The status of the response, or 0 if no response was received.
+	 */
+	private final int status;
+	/**
+	 * The time to wait before calling again, from the Retry-After header of the response, or zero if unknown.
+	 */
+	private final Duration retryAfter;
+
+	/**
+	 * Constructs a new CatalogUpstreamException.
+	 *
+	 * @param message the detail message
+	 * @param status  the status of the response, or 0 if no response was received
+	 * @param cause   the cause, may be null
+	 */
+	public CatalogUpstreamException(String message, int status, Throwable cause) {
+		this(message, status, Duration.ZERO, cause);
+	}
+
+	/**
+	 * Constructs a new CatalogUpstreamException with the time to wait before calling again.
+	 *
+	 * @param message    the detail message
+	 * @param status     the status of the response, or 0 if no response was received
+	 * @param retryAfter the time to wait before calling again, zero if unknown
+	 * @param cause      the cause, may be null
+	 */
+	public CatalogUpstreamException(String message, int status, Duration retryAfter, Throwable cause) {
+		super(message, cause);
+		this.status = status;
+		this.retryAfter = retryAfter;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
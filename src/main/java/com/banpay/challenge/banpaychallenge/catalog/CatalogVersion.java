@@ -0,0 +1,50 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * This record represents a version of the catalog as the clients see it: the number of a {@link CatalogSnapshot}
+ * within the run of the application that published it.
+ * <p>
+ * Snapshot numbers start again from 0 when the application restarts, so a number alone would let a client holding
+ * version 5 of the previous run miss the changes of versions 1 to 5 of the new one. The epoch, drawn once per run,
+ * tells the runs apart: it is written with the number as a token like "k3v9x2.5", the token the clients send back.
+ * </p>
+ *
+ * @param epoch  the identifier of the run of the application, or null for a bare number sent by a client
+ * @param number the number of the snapshot within the run
+ */
+public record CatalogVersion(String epoch, long number) {
+
+	/**
+	 * Parses a token sent by a client, like "k3v9x2.5". A bare number like "0" is parsed without an epoch.
+	 *
+	 * @param token the token, may be null
+	 * @return the version, or null if the token is missing or malformed
+	 */
+	public static CatalogVersion parse(String token) {
+		if (token == null) {
+			return null;
+		}
+		String trimmed = token.trim();
+		int dot = trimmed.lastIndexOf('.');
+		try {
+			long number = Long.parseLong(trimmed.substring(dot + 1));
+			return number < 0 || dot == 0 ? null : new CatalogVersion(dot < 0 ? null : trimmed.substring(0, dot), number);
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the token of the version, the value the clients get in the JSON bodies and the event ids.
+	 *
+	 * @return the epoch and the number separated by a dot, or the number alone without an epoch
+	 */
+	@JsonValue
+	@Override
+	public String toString() {
+		return epoch == null ? String.valueOf(number) : epoch + "." + number;
+	}
+}
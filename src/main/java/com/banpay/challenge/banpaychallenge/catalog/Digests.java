@@ -0,0 +1,29 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The Digests class computes the content hashes used to detect whether a collection of the catalog changed.
+ */
+final class Digests {
+
+	private Digests() {
+	}
+
+	/**
+	 * Computes the SHA-256 hash of the given bytes.
+	 *
+	 * @param bytes the content to hash
+	 * @return the hash as a lowercase hexadecimal string
+	 */
+	static String sha256(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FileCatalogSource class reads the collections of the catalog from local JSON dumps instead of the API.
+ * <p>
+ * The path may be a directory holding one dump per resource, like "films.json" or "people.json", each containing the
+ * array returned by the API, or a single file holding an object with one array per resource name.
+ * The dumps are memory-mapped and read with a streaming parser, one entity at a time, so they are never loaded whole
+ * into a String.
+ * </p>
+ */
+public class FileCatalogSource implements CatalogSource {
+
+	private final Path path;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Constructs a new FileCatalogSource for the given directory or file.
+	 *
+	 * @param path         the directory with one dump per resource, or a single dump with every resource
+	 * @param objectMapper mapper used to bind the entities
+	 */
+	public FileCatalogSource(Path path, ObjectMapper objectMapper) {
+		this.path = path;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public <T> List<T> fetch(CatalogResource<T> resource) {
+		boolean directory = Files.isDirectory(path);
+		Path dump = directory ? path.resolve(resource.getName() + ".json") : path;
+
+		try (FileChannel channel = FileChannel.open(dump, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			try (JsonParser parser = objectMapper.getFactory().createParser(new ByteBufferBackedInputStream(buffer))) {
+				if (!directory && !moveToField(parser, resource.getName())) {
+					return List.of();
+				}
+				return readArray(parser, resource);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Reading " + resource + " from " + dump + " failed", e);
+		}
+	}
+
+	/**
+	 * Advances the parser to the value of a top level field.
+	 *
+	 * @param parser the parser positioned before the root object
+	 * @param name   the name of the field
+	 * @return true if the field was found, false otherwise
+	 */
+	private static boolean moveToField(JsonParser parser, String name) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("Expected an object with one array per resource");
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			parser.nextToken();
+			if (field.equals(name)) {
+				return true;
+			}
+			parser.skipChildren();
+		}
+		return false;
+	}
+
+	private <T> List<T> readArray(JsonParser parser, CatalogResource<T> resource) throws IOException {
+		if (parser.currentToken() == null) {
+			parser.nextToken();
+		}
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			throw new IOException("Expected an array of " + resource);
+		}
+
+		List<T> entities = new ArrayList<>();
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			entities.add(objectMapper.readValue(parser, resource.getType()));
+		}
+		return entities;
+	}
+
+	@Override
+	public String toString() {
+		return path.toString();
+	}
+}
@@ -0,0 +1,161 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The HttpCatalogSource class reads the collections of the catalog from the Studio Ghibli API.
+ * It uses the {@link CatalogHttpClient} to send GET requests to endpoints like "/films", "/people", etc.
+ * <p>
+ * The requests are conditional: the ETag and Last-Modified of the previous response are sent back, and a
+ * "304 Not Modified" answer returns the list already read. When the API answers with a full body anyway, its hash is
+ * compared with the previous one, so an unchanged collection is never parsed again.
+ * </p>
+ * <p>
+ * The API may be served by several mirrors. Each fetch tries them in the order ranked by the {@link CatalogMirrors},
+ * the fastest healthy one first, and fails over to the next one when a mirror fails. The mirrors share the total
+ * timeout of the fetch, so failing over never makes a fetch wait longer than a single call. Since the body hash is kept
+ * whichever mirror answered, failing over does not parse an unchanged collection again either.
+ * </p>
+ */
+public class HttpCatalogSource implements CatalogSource {
+
+	/**
+	 * Logger instance for logging events, info, and errors.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpCatalogSource.class);
+
+	private final CatalogHttpClient httpClient;
+	private final ObjectMapper objectMapper;
+	private final CatalogMirrors mirrors;
+	private final Map<CatalogResource<?>, Validated<?>> validated = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a new HttpCatalogSource for the given mirrors of the API.
+	 *
+	 * @param httpClient   client used to reach the Studio Ghibli API
+	 * @param objectMapper mapper used to read the responses
+	 * @param mirrors      the mirrors of the Studio Ghibli API
+	 */
+	HttpCatalogSource(CatalogHttpClient httpClient, ObjectMapper objectMapper, CatalogMirrors mirrors) {
+		this.httpClient = httpClient;
+		this.objectMapper = objectMapper;
+		this.mirrors = mirrors;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> fetch(CatalogResource<T> resource) {
+		Validated<T> previous = (Validated<T>) validated.get(resource);
+		Map<String, String> headers = new HashMap<>();
+		if (previous != null && previous.etag() != null) {
+			headers.put(HttpHeaders.IF_NONE_MATCH, previous.etag());
+		}
+		if (previous != null && previous.lastModified() != null) {
+			headers.put(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+		}
+
+		HttpResponse<byte[]> response = get(resource, headers);
+
+		if (previous != null && response.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+			LOGGER.info("{} not modified since the previous fetch", resource);
+			return previous.data();
+		}
+
+		byte[] body = response.body() == null ? new byte[0] : response.body();
+		String hash = Digests.sha256(body);
+		List<T> data;
+		if (previous != null && previous.hash().equals(hash)) {
+			LOGGER.info("{} unchanged since the previous fetch", resource);
+			data = previous.data();
+		}
+		else {
+			data = parse(resource, body);
+		}
+		validated.put(resource, new Validated<>(response.headers().firstValue(HttpHeaders.ETAG).orElse(null),
+												response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null),
+												hash,
+												data));
+		return data;
+	}
+
+	/**
+	 * Sends the request to the mirrors in their ranked order until one answers or the deadline of the fetch passes.
+	 * A mirror whose circuit is open is skipped without counting as a new failure.
+	 *
+	 * @param resource the resource to request
+	 * @param headers  the headers to send
+	 * @return the first response
+	 * @throws CatalogUpstreamException the failure of the last mirror tried, when every mirror failed
+	 */
+	private HttpResponse<byte[]> get(CatalogResource<?> resource, Map<String, String> headers) {
+		long deadline = httpClient.deadline();
+		CatalogUpstreamException failure = null;
+		for (CatalogMirrors.Mirror mirror : mirrors.ranked()) {
+			if (failure != null && System.nanoTime() >= deadline) {
+				LOGGER.warn("No time left to fail over to {} for {}", mirror.getUrl(), resource);
+				break;
+			}
+			if (failure != null) {
+				LOGGER.warn("Failing over to {} for {}: {}", mirror.getUrl(), resource, failure.getMessage());
+			}
+			long start = System.nanoTime();
+			try {
+				HttpResponse<byte[]> response = httpClient.get(resource, mirror.getUrl(), headers, deadline);
+				mirrors.onSuccess(mirror, Duration.ofNanos(System.nanoTime() - start));
+				return response;
+			}
+			catch (CatalogCircuitOpenException e) {
+				failure = e;
+			}
+			catch (CatalogUpstreamException e) {
+				mirrors.onFailure(mirror);
+				failure = e;
+			}
+		}
+		throw failure;
+	}
+
+	private <T> List<T> parse(CatalogResource<T> resource, byte[] body) {
+		if (body.length == 0) {
+			return List.of();
+		}
+		try {
+			List<T> data = objectMapper.readValue(body,
+					objectMapper.getTypeFactory().constructCollectionType(List.class, resource.getType()));
+			return List.copyOf(data);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Reading " + resource + " from " + mirrors + " failed", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return mirrors.toString();
+	}
+
+	/**
+	 * This record represents the last response read for a resource.
+	 *
+	 * @param etag         the ETag of the response, or null if the API sent none
+	 * @param lastModified the Last-Modified of the response, or null if the API sent none
+	 * @param hash         the SHA-256 hash of the body
+	 * @param data         the list read from the body
+	 * @param <T>          the model class of the resource
+	 */
+	private record Validated<T>(String etag, String lastModified, String hash, List<T> data) {
+	}
+}
@@ -0,0 +1,97 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This record represents the response body of a collection rendered ahead of time by the {@link CatalogRenderer}.
+ * Each RenderedCatalog contains the entry it was rendered from, the SHA-256 hash of its data, the UTF-8 JSON body,
+ * its gzip variant and the same body encoded in every {@link BinaryFormat}.
+ * <p>
+ * It also keeps every entity as a JSON tree, with its position by id, so pages and subsets of the fields can be cut
+ * from it without serializing the models again, and the content hash of every entity, so a new version can be
+ * compared entity by entity with the previous one.
+ * </p>
+ *
+ * @param entry     the entry the body was rendered from
+ * @param hash      the SHA-256 hash of the serialized data, which identifies the content of the collection
+ * @param json      the JSON body encoded in UTF-8
+ * @param gzip      the JSON body compressed with gzip
+ * @param binaries  the body encoded in each binary format
+ * @param nodes     the entities of the collection as JSON trees, in the order of the collection
+ * @param positions the position of each entity in the collection, keyed by id
+ * @param hashes    the SHA-256 hash of each serialized entity, keyed by id
+ */
+public record RenderedCatalog(CatalogEntry<?> entry,
+							  String hash,
+							  byte[] json,
+							  byte[] gzip,
+							  Map<BinaryFormat, byte[]> binaries,
+							  List<ObjectNode> nodes,
+							  Map<String, Integer> positions,
+							  Map<String, String> hashes) {
+
+	/**
+	 * Selects the variant of the body to write.
+	 *
+	 * @param gzipped whether the client accepts a gzip body
+	 * @return the gzip body if accepted, the plain JSON body otherwise
+	 */
+	public byte[] body(boolean gzipped) {
+		return gzipped ? gzip : json;
+	}
+
+	/**
+	 * Builds the strong ETag of a variant of the body.
+	 * Both variants share the content hash, the gzip one carries a "-gzip" suffix since its bytes differ.
+	 *
+	 * @param gzipped whether the ETag is for the gzip body
+	 * @return the quoted ETag
+	 */
+	public String etag(boolean gzipped) {
+		return "\"" + hash + (gzipped ? "-gzip\"" : "\"");
+	}
+
+	/**
+	 * Selects the body encoded in a binary format.
+	 *
+	 * @param format the format the client accepts
+	 * @return the body in that format
+	 */
+	public byte[] body(BinaryFormat format) {
+		return binaries.get(format);
+	}
+
+	/**
+	 * Builds the strong ETag of the body encoded in a binary format, the content hash with the suffix of the format.
+	 *
+	 * @param format the format of the body
+	 * @return the quoted ETag
+	 */
+	public String etag(BinaryFormat format) {
+		return format.etag(etag(false));
+	}
+
+	/**
+	 * Looks up the JSON tree of an entity by its id.
+	 *
+	 * @param id the id of the entity
+	 * @return an Optional containing the JSON tree, or an empty Optional if no entity has that id
+	 */
+	public Optional<ObjectNode> node(String id) {
+		return Optional.ofNullable(positions.get(id)).map(nodes::get);
+	}
+
+	/**
+	 * Reuses this rendering for another entry with the same content.
+	 *
+	 * @param other the entry with the same content
+	 * @return a RenderedCatalog of the other entry sharing every body of this one
+	 */
+	RenderedCatalog withEntry(CatalogEntry<?> other) {
+		return new RenderedCatalog(other, hash, json, gzip, binaries, nodes, positions, hashes);
+	}
+}
@@ -0,0 +1,107 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The SingleFlight class suppresses duplicate concurrent work for the same key.
+ * <p>
+ * The first caller for a key runs the loader, every caller arriving while it is still running waits for
+ * that same execution and receives its result or its exception, errors included. Once the execution finishes the key
+ * is released, so the next caller starts a new one.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values produced by the loader
+ */
+public class SingleFlight<K, V> {
+
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final Map<K, LongAdder> executions = new ConcurrentHashMap<>();
+	private final Map<K, LongAdder> coalesced = new ConcurrentHashMap<>();
+
+	/**
+	 * Runs the loader for the key, or waits for the execution already in flight for it.
+	 *
+	 * @param key    the key identifying the work
+	 * @param loader the work to run when no execution is in flight
+	 * @return the value produced by the shared execution
+	 * @throws RuntimeException the exception thrown by the shared execution
+	 * @throws Error            the error thrown by the shared execution
+	 */
+	public V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+		if (existing != null) {
+			counter(coalesced, key).increment();
+			return await(existing);
+		}
+
+		counter(executions, key).increment();
+		try {
+			V value = loader.get();
+			call.complete(value);
+			return value;
+		}
+		catch (RuntimeException | Error e) {
+			call.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			inFlight.remove(key, call);
+		}
+	}
+
+	/**
+	 * Checks whether an execution is running for the key.
+	 *
+	 * @param key the key identifying the work
+	 * @return true if an execution is in flight, false otherwise
+	 */
+	public boolean isInFlight(K key) {
+		return inFlight.containsKey(key);
+	}
+
+	/**
+	 * Returns how many times the loader actually ran for the key.
+	 *
+	 * @param key the key identifying the work
+	 * @return the number of executions
+	 */
+	public long getExecutions(K key) {
+		return counter(executions, key).sum();
+	}
+
+	/**
+	 * Returns how many callers joined an execution that was already in flight for the key.
+	 *
+	 * @param key the key identifying the work
+	 * @return the number of coalesced callers
+	 */
+	public long getCoalesced(K key) {
+		return counter(coalesced, key).sum();
+	}
+
+	private LongAdder counter(Map<K, LongAdder> counters, K key) {
+		return counters.computeIfAbsent(key, k -> new LongAdder());
+	}
+
+	private static <V> V await(CompletableFuture<V> call) {
+		try {
+			return call.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+}
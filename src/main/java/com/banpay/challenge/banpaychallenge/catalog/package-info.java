@@ -0,0 +1 @@
+package com.banpay.challenge.banpaychallenge.catalog;
\ No newline at end of file
@@ -1,28 +1,83 @@
 package com.banpay.challenge.banpaychallenge.controllers;
 
 
+import com.banpay.challenge.banpaychallenge.catalog.BinaryFormat;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogBundle;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogCache;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogChangeFeed;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogChangeLog;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogColumnQuery;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogColumnStore;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogExport;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogExportHttpMessageConverter;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogFacets;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogGraph;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogPage;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogRenderer;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogResource;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogSearchHit;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogSearchIndex;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogUpdateStream;
+import com.banpay.challenge.banpaychallenge.catalog.CatalogVersion;
+import com.banpay.challenge.banpaychallenge.catalog.RenderedCatalog;
 import com.banpay.challenge.banpaychallenge.models.*;
+import com.banpay.challenge.banpaychallenge.payload.request.CatalogQuery;
 import com.banpay.challenge.banpaychallenge.payload.response.MessageResponse;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * This class provides the rest controller for the role API.
  * The API roots the endpoint to "/api/role".
- * An instance of RestTemplate exists in each controller instance.
- * This template is used to forward requests to the Studio Ghibli API
- * which is specified by {@link #studioGhibliUrl}.
+ * The data of the Studio Ghibli API is served from the {@link CatalogCache},
+ * which keeps each collection in memory for its configured time to live,
+ * and written from the bodies the {@link CatalogRenderer} rendered when the collection was published.
+ * Every collection accepts the "page", "size", "cursor" and "fields" query parameters to return only part of it,
+ * conditions like "rt_score&gt;=90" with "sort" and "limit" to filter and order it, see {@link CatalogColumnQuery},
+ * and single entities are served by id from the index built with each rendering.
+ * The "expand" parameter inlines the related entities the caller is allowed to read, see {@link CatalogGraph};
+ * "/search" finds entities of the collections the caller is allowed to read, see {@link CatalogSearchIndex},
+ * "/films/facets" and its siblings return the counts and averages computed with each version, see {@link CatalogFacets},
+ * "/bundle" returns every collection the caller is allowed to read in one response, see {@link CatalogBundle},
+ * "/changes" returns the ids of the entities changed since a version of the catalog, see {@link CatalogChangeLog},
+ * and "/updates" pushes them as server-sent events whenever a new version is published, see {@link CatalogUpdateStream},
+ * and "Accept: application/x-ndjson" streams a collection as newline delimited JSON instead of a MessageResponse.
+ * Every response is also available in CBOR, Smile and MessagePack through the Accept header, see {@link BinaryFormat};
+ * whole collections are written from the binary bodies rendered with the JSON one.
+ * The handlers return a CompletableFuture run on a virtual thread, so requests waiting for the Studio Ghibli API do not
+ * hold the servlet threads.
  */
 @RestController
 @RequestMapping("/api/role")
@@ -34,122 +89,763 @@ public class RoleController {
 	private static final Logger LOGGER = LoggerFactory.getLogger(RoleController.class);
 
 	/**
-	 * The restTemplate variable is an instance of the RestTemplate class.
+	 * Header with the number of entities in the whole collection, sent with every page.
+	 */
+	private static final String TOTAL_COUNT = "X-Total-Count";
+
+	/**
+	 * Header with the cursor of the next page, sent unless the page is the last one.
+	 */
+	private static final String NEXT_CURSOR = "X-Next-Cursor";
+
+	/**
+	 * Header with the folio of a whole collection response, whose body carries the folio of the rendering it was
+	 * written from.
+	 */
+	private static final String FOLIO = "X-Folio";
+
+	/**
+	 * The maximum number of results of a search.
+	 */
+	private static final int MAX_SEARCH_RESULTS = 100;
+
+	/**
+	 * The catalogCache variable is an instance of the CatalogCache class.
+	 * <p>
+	 * It holds the collections of the Studio Ghibli API like "/films", "/people", etc. in memory
+	 * and refreshes them in the background once they expire.
+	 */
+	private final CatalogCache catalogCache;
+
+	/**
+	 * The catalogRenderer variable is an instance of the CatalogRenderer class.
 	 * <p>
-	 * You can use RestTemplate to interact with the Studio Ghibli API and retrieve data from it.
-	 * For example, you can use RestTemplate to send GET requests to endpoints like "/films", "/people", etc. and receive the corresponding data.
+	 * It keeps the response body of every collection serialized and gzipped, so a request only copies bytes.
 	 */
-	private final RestTemplate restTemplate;
-	// The URL of the Studio Ghibli API
-	@Value("${studio-ghibli.api.url}")
-	private String studioGhibliUrl;
+	private final CatalogRenderer catalogRenderer;
+
+	/**
+	 * The catalogGraph variable is an instance of the CatalogGraph class.
+	 * <p>
+	 * It replaces the URLs between collections with the entities they point to when a relation is expanded.
+	 */
+	private final CatalogGraph catalogGraph;
+
+	/**
+	 * The catalogSearchIndex variable is an instance of the CatalogSearchIndex class.
+	 * <p>
+	 * It keeps an inverted index of the titles, names and descriptions of every collection.
+	 */
+	private final CatalogSearchIndex catalogSearchIndex;
+
+	/**
+	 * The catalogColumnStore variable is an instance of the CatalogColumnStore class.
+	 * <p>
+	 * It keeps the numeric and categorical fields of every collection as primitive columns to filter and sort them.
+	 */
+	private final CatalogColumnStore catalogColumnStore;
+
+	/**
+	 * The catalogChangeLog variable is an instance of the CatalogChangeLog class.
+	 * <p>
+	 * It keeps the ids of the entities added, updated and removed by the last versions of the catalog.
+	 */
+	private final CatalogChangeLog catalogChangeLog;
+
+	/**
+	 * The catalogUpdateStream variable is an instance of the CatalogUpdateStream class.
+	 * <p>
+	 * It pushes the changes of every new version of the catalog to the subscribed clients.
+	 */
+	private final CatalogUpdateStream catalogUpdateStream;
+
+	/**
+	 * The catalogRequestExecutor variable is the executor the handlers run on.
+	 * <p>
+	 * It starts a virtual thread per request, so a request waiting for the Studio Ghibli API does not hold a servlet thread.
+	 */
+	private final Executor catalogRequestExecutor;
 
 	/**
 	 * Represents a controller for managing roles.
 	 */
 	@Autowired
-	public RoleController(RestTemplate restTemplate) {
-		this.restTemplate = restTemplate;
+	public RoleController(CatalogCache catalogCache,
+						  CatalogRenderer catalogRenderer,
+						  CatalogGraph catalogGraph,
+						  CatalogSearchIndex catalogSearchIndex,
+						  CatalogColumnStore catalogColumnStore,
+						  CatalogChangeLog catalogChangeLog,
+						  CatalogUpdateStream catalogUpdateStream,
+						  @Qualifier("catalogRequestExecutor") Executor catalogRequestExecutor) {
+		this.catalogCache = catalogCache;
+		this.catalogRenderer = catalogRenderer;
+		this.catalogGraph = catalogGraph;
+		this.catalogSearchIndex = catalogSearchIndex;
+		this.catalogColumnStore = catalogColumnStore;
+		this.catalogChangeLog = catalogChangeLog;
+		this.catalogUpdateStream = catalogUpdateStream;
+		this.catalogRequestExecutor = catalogRequestExecutor;
 	}
 
 	/**
 	 * Provides an endpoint for getting all the films.
 	 * Returns a response entity with a message and a body containing a list of films.
-	 * Utilizes an exchange operation to the "/films" endpoint of the Studio Ghibli API.
+	 * Served from the body of the cached "/films" collection rendered ahead of time.
 	 *
+	 * @param query          the page, size, cursor, fields and relations to expand requested, all optional
+	 * @param acceptEncoding the Accept-Encoding header of the request, used to choose the gzip body
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @param request        the request, whose raw query string holds the filters, the sort and the limit, and whose
+	 *                       Accept header asks for newline delimited JSON
 	 * @return ResponseEntity with the message "All films obtained" and the body containing the list of films
 	 */
 	@GetMapping("/films")
-	public ResponseEntity<MessageResponse<List<Films>>> getAllFilms() {
+	public CompletableFuture<ResponseEntity<?>> getAllFilms(@Valid CatalogQuery query,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			Authentication authentication,
+			HttpServletRequest request) {
 		LOGGER.info("Getting all films");
-		ResponseEntity<List<Films>> films = restTemplate
-				.exchange(studioGhibliUrl + "/films",
-					 HttpMethod.GET,
-					 null,
-					 new ParameterizedTypeReference<>() {
-					 });
+		return serve(CatalogResource.FILMS, query, request, acceptEncoding, authentication);
+	}
 
-		return ResponseEntity.ok(new MessageResponse<>("All films obtained", films.getBody()));
+	/**
+	 * Provides an endpoint for getting a single film by its id.
+	 * Served from the index by id of the cached "/films" collection, without reaching the Studio Ghibli API.
+	 *
+	 * @param id             the id of the film
+	 * @param expand         the relations to expand, optional
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return ResponseEntity with the message "Film obtained" and the body containing the film,
+	 * or a not found response if no film has that id
+	 */
+	@GetMapping("/films/{id}")
+	public CompletableFuture<ResponseEntity<MessageResponse<?>>> getFilmById(@PathVariable String id,
+			@RequestParam(required = false) Set<String> expand,
+			Authentication authentication) {
+		LOGGER.info("Getting film {}", id);
+		return serveOne(CatalogResource.FILMS, id, "Film", expand, authentication);
 	}
 
 	/**
 	 * Provides an endpoint for getting all the people.
 	 * Returns a response entity with a message and a body containing a list of people.
-	 * Utilizes an exchange operation to the "/people" endpoint of the Studio Ghibli API.
+	 * Served from the body of the cached "/people" collection rendered ahead of time.
 	 *
+	 * @param query          the page, size, cursor, fields and relations to expand requested, all optional
+	 * @param acceptEncoding the Accept-Encoding header of the request, used to choose the gzip body
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @param request        the request, whose raw query string holds the filters, the sort and the limit, and whose
+	 *                       Accept header asks for newline delimited JSON
 	 * @return ResponseEntity with the message "All people obtained" and the body containing the list of people
 	 */
 	@GetMapping("/people")
-	public ResponseEntity<MessageResponse<List<People>>> getAllPeople() {
+	public CompletableFuture<ResponseEntity<?>> getAllPeople(@Valid CatalogQuery query,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			Authentication authentication,
+			HttpServletRequest request) {
 		LOGGER.info("Getting all people");
-		ResponseEntity<List<People>> people = restTemplate
-				.exchange(studioGhibliUrl + "/people",
-						  HttpMethod.GET,
-						  null,
-						  new ParameterizedTypeReference<>() {
-						  });
+		return serve(CatalogResource.PEOPLE, query, request, acceptEncoding, authentication);
+	}
 
-		return ResponseEntity.ok(new MessageResponse<>("All people obtained", people.getBody()));
+	/**
+	 * Provides an endpoint for getting a single person by its id.
+	 * Served from the index by id of the cached "/people" collection, without reaching the Studio Ghibli API.
+	 *
+	 * @param id             the id of the person
+	 * @param expand         the relations to expand, optional
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return ResponseEntity with the message "Person obtained" and the body containing the person,
+	 * or a not found response if no person has that id
+	 */
+	@GetMapping("/people/{id}")
+	public CompletableFuture<ResponseEntity<MessageResponse<?>>> getPersonById(@PathVariable String id,
+			@RequestParam(required = false) Set<String> expand,
+			Authentication authentication) {
+		LOGGER.info("Getting person {}", id);
+		return serveOne(CatalogResource.PEOPLE, id, "Person", expand, authentication);
 	}
 
 	/**
 	 * Provides an endpoint for getting all the locations.
 	 * Returns a response entity with a message and a body containing a list of people.
-	 * Utilizes an exchange operation to the "/locations" endpoint of the Studio Ghibli API.
+	 * Served from the body of the cached "/locations" collection rendered ahead of time.
 	 *
+	 * @param query          the page, size, cursor, fields and relations to expand requested, all optional
+	 * @param acceptEncoding the Accept-Encoding header of the request, used to choose the gzip body
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @param request        the request, whose raw query string holds the filters, the sort and the limit, and whose
+	 *                       Accept header asks for newline delimited JSON
 	 * @return ResponseEntity with the message "All locations obtained" and the body containing the list of locations
 	 */
 	@GetMapping("/locations")
-	public ResponseEntity<MessageResponse<List<Locations>>> getAllLocations() {
+	public CompletableFuture<ResponseEntity<?>> getAllLocations(@Valid CatalogQuery query,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			Authentication authentication,
+			HttpServletRequest request) {
 		LOGGER.info("Getting all locations");
-		ResponseEntity<List<Locations>> locations = restTemplate
-				.exchange(studioGhibliUrl + "/locations",
-						  HttpMethod.GET,
-						  null,
-						  new ParameterizedTypeReference<>() {
-						  });
+		return serve(CatalogResource.LOCATIONS, query, request, acceptEncoding, authentication);
+	}
 
-		return ResponseEntity.ok(new MessageResponse<>("All locations obtained", locations.getBody()));
+	/**
+	 * Provides an endpoint for getting a single location by its id.
+	 * Served from the index by id of the cached "/locations" collection, without reaching the Studio Ghibli API.
+	 *
+	 * @param id             the id of the location
+	 * @param expand         the relations to expand, optional
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return ResponseEntity with the message "Location obtained" and the body containing the location,
+	 * or a not found response if no location has that id
+	 */
+	@GetMapping("/locations/{id}")
+	public CompletableFuture<ResponseEntity<MessageResponse<?>>> getLocationById(@PathVariable String id,
+			@RequestParam(required = false) Set<String> expand,
+			Authentication authentication) {
+		LOGGER.info("Getting location {}", id);
+		return serveOne(CatalogResource.LOCATIONS, id, "Location", expand, authentication);
 	}
 
 	/**
 	 * Provides an endpoint for getting all the species.
 	 * Returns a response entity with a message and a body containing a list of people.
-	 * Utilizes an exchange operation to the "/species" endpoint of the Studio Ghibli API.
+	 * Served from the body of the cached "/species" collection rendered ahead of time.
 	 *
+	 * @param query          the page, size, cursor, fields and relations to expand requested, all optional
+	 * @param acceptEncoding the Accept-Encoding header of the request, used to choose the gzip body
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @param request        the request, whose raw query string holds the filters, the sort and the limit, and whose
+	 *                       Accept header asks for newline delimited JSON
 	 * @return ResponseEntity with the message "All species obtained" and the body containing the list of species
 	 */
 	@GetMapping("/species")
-	public ResponseEntity<MessageResponse<List<Species>>> getAllSpecies() {
+	public CompletableFuture<ResponseEntity<?>> getAllSpecies(@Valid CatalogQuery query,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			Authentication authentication,
+			HttpServletRequest request) {
 		LOGGER.info("Getting all species");
-		ResponseEntity<List<Species>> species = restTemplate
-				.exchange(studioGhibliUrl + "/species",
-						  HttpMethod.GET,
-						  null,
-						  new ParameterizedTypeReference<>() {
-						  });
+		return serve(CatalogResource.SPECIES, query, request, acceptEncoding, authentication);
+	}
 
-		return ResponseEntity.ok(new MessageResponse<>("All species obtained", species.getBody()));
+	/**
+	 * Provides an endpoint for getting a single species by its id.
+	 * Served from the index by id of the cached "/species" collection, without reaching the Studio Ghibli API.
+	 *
+	 * @param id             the id of the species
+	 * @param expand         the relations to expand, optional
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return ResponseEntity with the message "Species obtained" and the body containing the species,
+	 * or a not found response if no species has that id
+	 */
+	@GetMapping("/species/{id}")
+	public CompletableFuture<ResponseEntity<MessageResponse<?>>> getSpeciesById(@PathVariable String id,
+			@RequestParam(required = false) Set<String> expand,
+			Authentication authentication) {
+		LOGGER.info("Getting species {}", id);
+		return serveOne(CatalogResource.SPECIES, id, "Species", expand, authentication);
 	}
 
 	/**
 	 * Provides an endpoint for getting all the vehicles.
 	 * Returns a response entity with a message and a body containing a list of people.
-	 * Utilizes an exchange operation to the "/vehicles" endpoint of the Studio Ghibli API.
+	 * Served from the body of the cached "/vehicles" collection rendered ahead of time.
 	 *
+	 * @param query          the page, size, cursor, fields and relations to expand requested, all optional
+	 * @param acceptEncoding the Accept-Encoding header of the request, used to choose the gzip body
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @param request        the request, whose raw query string holds the filters, the sort and the limit, and whose
+	 *                       Accept header asks for newline delimited JSON
 	 * @return ResponseEntity with the message "All vehicles obtained" and the body containing the list of vehicles
 	 */
 	@GetMapping("/vehicles")
-	public ResponseEntity<MessageResponse<List<Vehicles>>> getAllVehicles() {
+	public CompletableFuture<ResponseEntity<?>> getAllVehicles(@Valid CatalogQuery query,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			Authentication authentication,
+			HttpServletRequest request) {
 		LOGGER.info("Getting all vehicles");
-		ResponseEntity<List<Vehicles>> vehicles = restTemplate
-				.exchange(studioGhibliUrl + "/vehicles",
-						  HttpMethod.GET,
-						  null,
-						  new ParameterizedTypeReference<>() {
-						  });
+		return serve(CatalogResource.VEHICLES, query, request, acceptEncoding, authentication);
+	}
+
+	/**
+	 * Provides an endpoint for getting a single vehicle by its id.
+	 * Served from the index by id of the cached "/vehicles" collection, without reaching the Studio Ghibli API.
+	 *
+	 * @param id             the id of the vehicle
+	 * @param expand         the relations to expand, optional
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return ResponseEntity with the message "Vehicle obtained" and the body containing the vehicle,
+	 * or a not found response if no vehicle has that id
+	 */
+	@GetMapping("/vehicles/{id}")
+	public CompletableFuture<ResponseEntity<MessageResponse<?>>> getVehicleById(@PathVariable String id,
+			@RequestParam(required = false) Set<String> expand,
+			Authentication authentication) {
+		LOGGER.info("Getting vehicle {}", id);
+		return serveOne(CatalogResource.VEHICLES, id, "Vehicle", expand, authentication);
+	}
+
+	/**
+	 * Provides an endpoint for searching the text of the catalog.
+	 * Only the collections the caller can read are searched, so a user with the "films" role only finds films.
+	 * Served from the inverted index built when each collection is published.
+	 *
+	 * @param q              the text to search
+	 * @param limit          the maximum number of results, between 1 and 100
+	 * @param authentication the caller, whose roles limit the collections searched
+	 * @return ResponseEntity with the message "Search results obtained" and the body containing the matching entities,
+	 * the most relevant first, or a bad request if the query or the limit are not valid
+	 */
+	@GetMapping("/search")
+	public CompletableFuture<ResponseEntity<MessageResponse<List<CatalogSearchHit>>>> search(@RequestParam String q,
+			@RequestParam(defaultValue = "20") int limit,
+			Authentication authentication) {
+		LOGGER.info("Searching {}", q);
+		if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+					.body(new MessageResponse<>("Error: The limit must be between 1 and " + MAX_SEARCH_RESULTS)));
+		}
+		return async(() -> {
+			try {
+				return ResponseEntity.ok()
+						.cacheControl(CacheControl.noCache().cachePrivate())
+						.body(new MessageResponse<>("Search results obtained", catalogSearchIndex.search(q, limit, readableBy(authentication))));
+			}
+			catch (IllegalArgumentException e) {
+				return ResponseEntity.badRequest().body(new MessageResponse<>("Error: " + e.getMessage()));
+			}
+		});
+	}
+
+	/**
+	 * Provides an endpoint for getting every collection the caller can read in a single response, like the five
+	 * collections a page needs when it loads, authenticated once instead of once per collection.
+	 * The collections are served from their cached renderings; those not loaded yet are fetched from the Studio Ghibli
+	 * API concurrently, each on its own virtual thread.
+	 * The ETag follows the content of every collection bundled, so an unchanged bundle is answered with "304 Not Modified".
+	 *
+	 * @param accept         the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @param authentication the caller, whose roles select the collections bundled
+	 * @return ResponseEntity with the message "Catalog bundle obtained" and the body containing the entities of each
+	 * collection, keyed by the name of the collection
+	 */
+	@GetMapping("/bundle")
+	public CompletableFuture<ResponseEntity<MessageResponse<Map<String, List<ObjectNode>>>>> getBundle(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			Authentication authentication) {
+		LOGGER.info("Getting the catalog bundle");
+		Predicate<CatalogResource<?>> readable = readableBy(authentication);
+		Map<CatalogResource<?>, CompletableFuture<RenderedCatalog>> renderings = new LinkedHashMap<>();
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			if (readable.test(resource)) {
+				renderings.put(resource, async(() -> catalogRenderer.render(resource, catalogCache.getEntry(resource))));
+			}
+		}
+		return CompletableFuture.allOf(renderings.values().toArray(CompletableFuture[]::new)).thenApply(loaded -> {
+			Map<CatalogResource<?>, RenderedCatalog> rendered = new LinkedHashMap<>();
+			renderings.forEach((resource, rendering) -> rendered.put(resource, rendering.join()));
+			CatalogBundle bundle = CatalogBundle.of(rendered);
+			return ResponseEntity.ok()
+					.eTag(etag(bundle.etag(), accept))
+					.cacheControl(CacheControl.noCache().cachePrivate())
+					.varyBy(HttpHeaders.ACCEPT)
+					.body(new MessageResponse<>("Catalog bundle obtained", bundle.collections()));
+		});
+	}
+
+	/**
+	 * Provides an endpoint for getting the entities changed since a version of the catalog, so a client keeping a copy
+	 * of the collections only fetches the entities added or updated and drops the removed ones.
+	 * Only the collections the caller can read are listed. The token of the version to ask from next is returned with
+	 * the changes; a client without a copy yet starts from version 0.
+	 *
+	 * @param since          the token of the version of the catalog the caller holds, like "k3v9x2.5"
+	 * @param authentication the caller, whose roles limit the collections listed
+	 * @return ResponseEntity with the message "Changes obtained" and the body containing the ids added, updated and
+	 * removed in each collection, or a gone response if the changes since that version are no longer kept or the token
+	 * is of another run of the application
+	 */
+	@GetMapping("/changes")
+	public CompletableFuture<ResponseEntity<MessageResponse<CatalogChangeFeed>>> getChanges(@RequestParam String since,
+			Authentication authentication) {
+		LOGGER.info("Getting the changes since version {}", since);
+		CatalogVersion from = CatalogVersion.parse(since);
+		return async(() -> Optional.ofNullable(from)
+				.flatMap(version -> catalogChangeLog.since(version, readableBy(authentication)))
+				.map(feed -> ResponseEntity.ok()
+						.cacheControl(CacheControl.noCache().cachePrivate())
+						.varyBy(HttpHeaders.ACCEPT)
+						.body(new MessageResponse<>("Changes obtained", feed)))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.GONE)
+						.body(new MessageResponse<>("Error: The changes since version " + since
+								+ " are no longer available, fetch the whole collections"))));
+	}
+
+	/**
+	 * Provides an endpoint for subscribing to the updates of the catalog with server-sent events, instead of polling the
+	 * collections to find out whether they changed.
+	 * Each version of the catalog that changed entities of a collection the caller can read is pushed as a "catalog"
+	 * event, with the token of the version as the event id and the ids added, updated and removed as the data. A client
+	 * reconnecting with the Last-Event-ID header, or subscribing with the version it holds, first gets the changes it
+	 * missed, or a "resync" event if they are no longer kept.
+	 *
+	 * @param lastEventId    the Last-Event-ID header sent by a reconnecting client, optional
+	 * @param since          the token of the version of the catalog the caller holds, optional
+	 * @param authentication the caller, whose roles limit the collections pushed
+	 * @return ResponseEntity with the stream of events, or a service unavailable response if the server has as many
+	 * subscribers as it accepts
+	 */
+	@GetMapping("/updates")
+	public ResponseEntity<SseEmitter> getUpdates(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+			@RequestParam(required = false) String since,
+			Authentication authentication) {
+		LOGGER.info("Subscribing to the catalog updates");
+		return catalogUpdateStream.subscribe(readableBy(authentication), lastEventId, since)
+				.map(emitter -> ResponseEntity.ok()
+						.cacheControl(CacheControl.noStore())
+						.body(emitter))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+						.header(HttpHeaders.RETRY_AFTER, "30")
+						.build());
+	}
 
-		return ResponseEntity.ok(new MessageResponse<>("All vehicles obtained", vehicles.getBody()));
+	/**
+	 * Provides an endpoint for getting the aggregations of the films, like the films of each director with their average rt_score.
+	 * The aggregations are computed when the collection is published, so this is a lookup without any scan.
+	 *
+	 * @param accept the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @return ResponseEntity with the message "Facets of films obtained" and the body containing the aggregations
+	 */
+	@GetMapping("/films/facets")
+	public CompletableFuture<ResponseEntity<MessageResponse<CatalogFacets>>> getFilmsFacets(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		LOGGER.info("Getting the facets of films");
+		return serveFacets(CatalogResource.FILMS, accept);
 	}
 
+	/**
+	 * Provides an endpoint for getting the aggregations of the people, like the people of each gender or species with their average age.
+	 * The aggregations are computed when the collection is published, so this is a lookup without any scan.
+	 *
+	 * @param accept the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @return ResponseEntity with the message "Facets of people obtained" and the body containing the aggregations
+	 */
+	@GetMapping("/people/facets")
+	public CompletableFuture<ResponseEntity<MessageResponse<CatalogFacets>>> getPeopleFacets(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		LOGGER.info("Getting the facets of people");
+		return serveFacets(CatalogResource.PEOPLE, accept);
+	}
+
+	/**
+	 * Provides an endpoint for getting the aggregations of the locations, like the locations of each climate or terrain with their average surface_water.
+	 * The aggregations are computed when the collection is published, so this is a lookup without any scan.
+	 *
+	 * @param accept the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @return ResponseEntity with the message "Facets of locations obtained" and the body containing the aggregations
+	 */
+	@GetMapping("/locations/facets")
+	public CompletableFuture<ResponseEntity<MessageResponse<CatalogFacets>>> getLocationsFacets(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		LOGGER.info("Getting the facets of locations");
+		return serveFacets(CatalogResource.LOCATIONS, accept);
+	}
+
+	/**
+	 * Provides an endpoint for getting the aggregations of the species, like the species of each classification.
+	 * The aggregations are computed when the collection is published, so this is a lookup without any scan.
+	 *
+	 * @param accept the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @return ResponseEntity with the message "Facets of species obtained" and the body containing the aggregations
+	 */
+	@GetMapping("/species/facets")
+	public CompletableFuture<ResponseEntity<MessageResponse<CatalogFacets>>> getSpeciesFacets(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		LOGGER.info("Getting the facets of species");
+		return serveFacets(CatalogResource.SPECIES, accept);
+	}
+
+	/**
+	 * Provides an endpoint for getting the aggregations of the vehicles, like the vehicles of each vehicle_class with their average length.
+	 * The aggregations are computed when the collection is published, so this is a lookup without any scan.
+	 *
+	 * @param accept the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @return ResponseEntity with the message "Facets of vehicles obtained" and the body containing the aggregations
+	 */
+	@GetMapping("/vehicles/facets")
+	public CompletableFuture<ResponseEntity<MessageResponse<CatalogFacets>>> getVehiclesFacets(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		LOGGER.info("Getting the facets of vehicles");
+		return serveFacets(CatalogResource.VEHICLES, accept);
+	}
+
+	/**
+	 * Serves a collection, whole or cut to the page and fields of the query, with its relations expanded if requested.
+	 * The filters, the sort and the limit of the raw query string select and order the rows before the page is cut.
+	 *
+	 * @param resource       the resource to serve
+	 * @param query          the page, size, cursor, fields and relations to expand requested
+	 * @param request        the request, with the raw query string parsed as a {@link CatalogColumnQuery}
+	 *                       and the Accept header
+	 * @param acceptEncoding the Accept-Encoding header of the request
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return a future of the ResponseEntity with the collection, or of a bad request if the fields, the cursor or the
+	 * relations are not valid
+	 */
+	private CompletableFuture<ResponseEntity<?>> serve(CatalogResource<?> resource, CatalogQuery query, HttpServletRequest request,
+													   String acceptEncoding, Authentication authentication) {
+		String queryString = request.getQueryString();
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		return async(() -> serveNow(resource, query, queryString, accept, acceptEncoding, authentication));
+	}
+
+	/**
+	 * Serves a collection on the calling thread, see {@link #serve(CatalogResource, CatalogQuery, HttpServletRequest, String, Authentication)}.
+	 */
+	private ResponseEntity<?> serveNow(CatalogResource<?> resource, CatalogQuery query, String queryString, String accept,
+									   String acceptEncoding, Authentication authentication) {
+		RenderedCatalog rendered = catalogRenderer.render(resource, catalogCache.getEntry(resource));
+		Optional<BinaryFormat> binary = BinaryFormat.accepted(accept);
+		CatalogPage page;
+		try {
+			CatalogColumnQuery columnQuery = CatalogColumnQuery.parse(queryString);
+			if (acceptsNdjson(accept)) {
+				return serveNdjson(resource, rendered, query, columnQuery);
+			}
+			if (query.isEmpty() && columnQuery.isEmpty()) {
+				return serveWhole(rendered, binary, acceptEncoding);
+			}
+			int[] rows = columnQuery.isEmpty() ? null : catalogColumnStore.get(resource, rendered.entry()).select(columnQuery);
+			page = catalogRenderer.slice(resource, rendered, rows, query);
+			if (query.getExpand() != null) {
+				page = catalogGraph.expand(resource, page, query.getExpand(), readableBy(authentication));
+			}
+		}
+		catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest()
+					.contentType(binary.map(BinaryFormat::getMediaType).orElse(MediaType.APPLICATION_JSON))
+					.body(new MessageResponse<>("Error: " + e.getMessage()));
+		}
+		String etag = page.etag();
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.eTag(binary.map(format -> format.etag(etag)).orElse(etag))
+				.cacheControl(CacheControl.noCache().cachePrivate())
+				.varyBy(HttpHeaders.ACCEPT)
+				.header(TOTAL_COUNT, String.valueOf(page.total()));
+		if (page.nextCursor() != null) {
+			response.header(NEXT_CURSOR, page.nextCursor());
+		}
+		return response.body(new MessageResponse<>("All " + resource.getName() + " obtained", page.data()));
+	}
+
+	/**
+	 * Streams the selected rows of a collection as newline delimited JSON, one entity per line, without the
+	 * MessageResponse envelope.
+	 * The rows are filtered, sorted and limited like the JSON collection, but there are no pages, cursors or expanded
+	 * relations: the export is meant to be read to the end.
+	 * The lines are written straight to the response by the {@link CatalogExportHttpMessageConverter}, so nothing is
+	 * buffered beyond the output buffer of the connection.
+	 *
+	 * @param resource    the resource to serve
+	 * @param rendered    the rendered collection
+	 * @param query       the fields requested
+	 * @param columnQuery the filters, the sort and the limit requested
+	 * @return ResponseEntity with the rows to write
+	 * @throws IllegalArgumentException if a page, a cursor or relations are requested, or a field or column does not exist
+	 */
+	private ResponseEntity<CatalogExport> serveNdjson(CatalogResource<?> resource, RenderedCatalog rendered, CatalogQuery query,
+													  CatalogColumnQuery columnQuery) {
+		if (query.getPage() != null || query.getSize() != null || query.getCursor() != null || query.getExpand() != null) {
+			throw new IllegalArgumentException("NDJSON exports take fields, filters, sort and limit, but no page, size, cursor or expand");
+		}
+		catalogRenderer.checkFields(resource, query.getFields());
+		int[] rows = columnQuery.isEmpty() ? null : catalogColumnStore.get(resource, rendered.entry()).select(columnQuery);
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.cacheControl(CacheControl.noCache().cachePrivate())
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(new CatalogExport(rendered, rows, query.getFields()));
+	}
+
+	/**
+	 * Serves the aggregations computed with the current version of a collection.
+	 * The ETag follows the content of the collection, so unchanged facets are answered with "304 Not Modified".
+	 *
+	 * @param resource the resource to serve
+	 * @param accept   the Accept header of the request, used to tell the ETag of a binary response apart
+	 * @return a future of the ResponseEntity with the aggregations
+	 */
+	private CompletableFuture<ResponseEntity<MessageResponse<CatalogFacets>>> serveFacets(CatalogResource<?> resource, String accept) {
+		return async(() -> {
+			RenderedCatalog rendered = catalogRenderer.render(resource, catalogCache.getEntry(resource));
+			return ResponseEntity.ok()
+					.eTag(etag("\"" + rendered.hash() + "-facets\"", accept))
+					.cacheControl(CacheControl.noCache().cachePrivate())
+					.varyBy(HttpHeaders.ACCEPT)
+					.body(new MessageResponse<>("Facets of " + resource.getName() + " obtained",
+							catalogColumnStore.get(resource, rendered.entry()).getFacets()));
+		});
+	}
+
+	/**
+	 * Looks up an entity of a collection by its id, with its relations expanded if requested.
+	 *
+	 * @param resource       the resource to search
+	 * @param id             the id of the entity
+	 * @param label          the name of the entity used in the message, like "Film"
+	 * @param expand         the relations to expand, may be null
+	 * @param authentication the caller, whose roles limit the relations that can be expanded
+	 * @return a future of the ResponseEntity with the entity, of a not found response if no entity has that id,
+	 * or of a bad request if a relation does not exist
+	 */
+	private CompletableFuture<ResponseEntity<MessageResponse<?>>> serveOne(CatalogResource<?> resource, String id, String label,
+																		   Set<String> expand, Authentication authentication) {
+		return async(() -> serveOneNow(resource, id, label, expand, authentication));
+	}
+
+	/**
+	 * Looks up an entity on the calling thread, see {@link #serveOne(CatalogResource, String, String, Set, Authentication)}.
+	 */
+	private ResponseEntity<MessageResponse<?>> serveOneNow(CatalogResource<?> resource, String id, String label,
+														   Set<String> expand, Authentication authentication) {
+		Optional<ObjectNode> entity = catalogRenderer.render(resource, catalogCache.getEntry(resource)).node(id);
+		try {
+			if (expand != null) {
+				entity = entity.map(node -> catalogGraph.expand(resource, node, expand, readableBy(authentication)));
+			}
+		}
+		catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(new MessageResponse<>("Error: " + e.getMessage()));
+		}
+		return entity.<ResponseEntity<MessageResponse<?>>>map(found -> ResponseEntity.ok()
+						.cacheControl(CacheControl.noCache().cachePrivate())
+						.varyBy(HttpHeaders.ACCEPT)
+						.body(new MessageResponse<>(label + " obtained", found)))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+						.body(new MessageResponse<>("Error: " + label + " not found")));
+	}
+
+	/**
+	 * Runs a handler on a virtual thread of the catalogRequestExecutor.
+	 * The servlet thread returns to the pool as soon as the handler is submitted, so requests waiting for the Studio
+	 * Ghibli API only hold a virtual thread, and Spring MVC writes the response once the future completes.
+	 *
+	 * @param handler the handler producing the response
+	 * @param <T>     the type of the response
+	 * @return a future of the response
+	 */
+	private <T> CompletableFuture<T> async(Supplier<T> handler) {
+		return CompletableFuture.supplyAsync(handler, catalogRequestExecutor);
+	}
+
+	/**
+	 * Tells which resources of the catalog a caller can read, either as an administrator or with the role of the resource.
+	 *
+	 * @param authentication the caller
+	 * @return a predicate accepting the resources the caller can read
+	 */
+	private static Predicate<CatalogResource<?>> readableBy(Authentication authentication) {
+		Set<String> authorities = authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.toSet());
+		return resource -> authorities.contains(ERole.ROLE_ADMIN.name()) || authorities.contains(resource.getRole().name());
+	}
+
+	/**
+	 * Writes the rendered body of a whole collection, in the binary format the client prefers or as JSON gzipped when
+	 * the client accepts it. The binary bodies are not compressed: they are meant for the services of the same network,
+	 * which care more about the CPU spent decoding than about the bytes.
+	 * The response carries the ETag of the body and must be revalidated before being reused, so a client sending a
+	 * matching If-None-Match header gets a "304 Not Modified" answer without body. The bytes are shared by every request
+	 * until the data changes, folio included, so each response gets its own folio in the "X-Folio" header.
+	 *
+	 * @param rendered       the rendered collection
+	 * @param binary         the binary format preferred by the client, if any
+	 * @param acceptEncoding the Accept-Encoding header of the request
+	 * @return ResponseEntity with the rendered body
+	 */
+	private ResponseEntity<byte[]> serveWhole(RenderedCatalog rendered, Optional<BinaryFormat> binary, String acceptEncoding) {
+		String folio = UUID.randomUUID().toString();
+		if (binary.isPresent()) {
+			return ResponseEntity.ok()
+					.header(FOLIO, folio)
+					.contentType(binary.get().getMediaType())
+					.eTag(rendered.etag(binary.get()))
+					.cacheControl(CacheControl.noCache().cachePrivate())
+					.varyBy(HttpHeaders.ACCEPT)
+					.body(rendered.body(binary.get()));
+		}
+		boolean gzipped = acceptsGzip(acceptEncoding);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.header(FOLIO, folio)
+				.contentType(MediaType.APPLICATION_JSON)
+				.eTag(rendered.etag(gzipped))
+				.cacheControl(CacheControl.noCache().cachePrivate())
+				.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+		if (gzipped) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(rendered.body(gzipped));
+	}
+
+	/**
+	 * Suffixes the ETag of a response with the binary format an Accept header prefers, if any, since the bytes of a
+	 * binary response differ from the JSON ones.
+	 *
+	 * @param etag   the quoted ETag of the JSON response
+	 * @param accept the Accept header, may be null
+	 * @return the ETag of the response in the preferred format
+	 */
+	private static String etag(String etag, String accept) {
+		return BinaryFormat.accepted(accept).map(format -> format.etag(etag)).orElse(etag);
+	}
+
+	/**
+	 * Checks whether an Accept header prefers newline delimited JSON.
+	 *
+	 * @param accept the Accept header, may be null
+	 * @return true if "application/x-ndjson" is accepted with a non zero quality at least as high as the one of JSON,
+	 * false otherwise
+	 */
+	private static boolean acceptsNdjson(String accept) {
+		if (accept == null) {
+			return false;
+		}
+		double ndjson = 0;
+		double json = 0;
+		try {
+			for (MediaType type : MediaType.parseMediaTypes(accept)) {
+				if (type.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON)) {
+					ndjson = Math.max(ndjson, type.getQualityValue());
+				}
+				else if (type.includes(MediaType.APPLICATION_JSON)) {
+					json = Math.max(json, type.getQualityValue());
+				}
+			}
+		}
+		catch (InvalidMediaTypeException e) {
+			return false;
+		}
+		return ndjson > 0 && ndjson >= json;
+	}
+
+	/**
+	 * Checks whether an Accept-Encoding header allows a gzip body.
+	 *
+	 * @param acceptEncoding the Accept-Encoding header, may be null
+	 * @return true if gzip or any encoding is accepted with a non zero quality, false otherwise
+	 */
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			String name = parts[0].trim();
+			if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+				continue;
+			}
+			boolean refused = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+			return !refused;
+		}
+		return false;
+	}
 }
@@ -0,0 +1,114 @@
+package com.banpay.challenge.banpaychallenge.models;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * This entity class represents a stored version of a collection of the Studio Ghibli catalog.
+ * Each CatalogSnapshotRecord instance contains the resource name, a version, the instant it was fetched at,
+ * a hash of its content and the collection itself as a jsonb payload.
+ *
+ * The CatalogSnapshotRecord class corresponds to the "catalog_snapshots" table in the database.
+ */
+@Entity
+@Table(name = "catalog_snapshots",
+		uniqueConstraints = {
+				@UniqueConstraint(columnNames = {"resource", "version"})
+		})
+public class CatalogSnapshotRecord {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(length = 20, nullable = false)
+	private String resource;
+
+	@Column(nullable = false)
+	private Long version;
+
+	@Column(nullable = false)
+	private Instant fetchedAt;
+
+	@Column(length = 64, nullable = false)
+	private String contentHash;
+
+	@JdbcTypeCode(SqlTypes.JSON)
+	@Column(columnDefinition = "jsonb", nullable = false)
+	private String payload;
+
+	/**
+	 * Default constructor for the CatalogSnapshotRecord class.
+	 */
+	public CatalogSnapshotRecord() {
+		//
+	}
+
+	/**
+	 * Parameterized constructor for the CatalogSnapshotRecord class.
+	 *
+	 * @param resource    The name of the catalog resource
+	 * @param version     The version of the collection for that resource
+	 * @param fetchedAt   The instant the collection was fetched from the Studio Ghibli API
+	 * @param contentHash The SHA-256 hash of the payload
+	 * @param payload     The collection serialized as JSON
+	 */
+	public CatalogSnapshotRecord(String resource, Long version, Instant fetchedAt, String contentHash, String payload) {
+		this.resource = resource;
+		this.version = version;
+		this.fetchedAt = fetchedAt;
+		this.contentHash = contentHash;
+		this.payload = payload;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getResource() {
+		return resource;
+	}
+
+	public void setResource(String resource) {
+		this.resource = resource;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Instant getFetchedAt() {
+		return fetchedAt;
+	}
+
+	public void setFetchedAt(Instant fetchedAt) {
+		this.fetchedAt = fetchedAt;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(String contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	public void setPayload(String payload) {
+		this.payload = payload;
+	}
+}
@@ -0,0 +1,133 @@
+package com.banpay.challenge.banpaychallenge.payload.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * This class represents the query parameters accepted by the catalog endpoints.
+ * Each CatalogQuery instance contains the page and its size, or a cursor to continue from, the fields to return
+ * and the relations to expand.
+ * The class includes validation annotations to keep the page and the size within bounds.
+ */
+public class CatalogQuery {
+
+	/**
+	 * The size of a page when only the page or the cursor is given.
+	 */
+	public static final int DEFAULT_SIZE = 20;
+
+	@Min(value = 0, message = "The page must be zero or greater")
+	private Integer page;
+
+	@Min(value = 1, message = "The size must be between 1 and 500")
+	@Max(value = 500, message = "The size must be between 1 and 500")
+	private Integer size;
+
+	private String cursor;
+
+	private Set<String> fields;
+
+	private Set<String> expand;
+
+	/**
+	 * Checks whether the query asks for the whole collection with every field.
+	 *
+	 * @return true if no parameter was given, false otherwise
+	 */
+	public boolean isEmpty() {
+		return page == null && size == null && cursor == null && fields == null && expand == null;
+	}
+
+	/**
+	 * Gets the zero based page of this CatalogQuery.
+	 *
+	 * @return the page, or null if it was not given
+	 */
+	public Integer getPage() {
+		return page;
+	}
+
+	/**
+	 * Sets the zero based page of this CatalogQuery.
+	 *
+	 * @param page the new page
+	 */
+	public void setPage(Integer page) {
+		this.page = page;
+	}
+
+	/**
+	 * Gets the size of the page of this CatalogQuery.
+	 *
+	 * @return the size, or null if it was not given
+	 */
+	public Integer getSize() {
+		return size;
+	}
+
+	/**
+	 * Sets the size of the page of this CatalogQuery.
+	 *
+	 * @param size the new size
+	 */
+	public void setSize(Integer size) {
+		this.size = size;
+	}
+
+	/**
+	 * Gets the cursor of this CatalogQuery, as returned in the "X-Next-Cursor" header of the previous page.
+	 *
+	 * @return the cursor, or null if it was not given
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * Sets the cursor of this CatalogQuery.
+	 *
+	 * @param cursor the new cursor
+	 */
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
+	/**
+	 * Gets the fields to return of this CatalogQuery, in the order they were given.
+	 *
+	 * @return the fields, or null if every field is returned
+	 */
+	public Set<String> getFields() {
+		return fields;
+	}
+
+	/**
+	 * Sets the fields to return of this CatalogQuery.
+	 *
+	 * @param fields the new fields, like "id" and "title"
+	 */
+	public void setFields(Set<String> fields) {
+		this.fields = fields == null ? null : new LinkedHashSet<>(fields);
+	}
+
+	/**
+	 * Gets the relations to expand of this CatalogQuery, like "people" or "species".
+	 *
+	 * @return the relations, or null if none is expanded
+	 */
+	public Set<String> getExpand() {
+		return expand;
+	}
+
+	/**
+	 * Sets the relations to expand of this CatalogQuery.
+	 *
+	 * @param expand the new relations
+	 */
+	public void setExpand(Set<String> expand) {
+		this.expand = expand == null ? null : new LinkedHashSet<>(expand);
+	}
+}
@@ -6,6 +6,11 @@ import java.util.UUID;
  * This class represents a generic Message Response within the application.
  * Each MessageResponse instance contains a folio, a message, and data of a generic type.
  * The class provides abstractions to handle messages and data in a standardized way across the application.
+ * <p>
+ * The folio identifies the response it is written in, except in the whole collections of the catalog: their bodies are
+ * rendered once per version, so their folio identifies the rendering and is the same for every request until the data
+ * changes. Those responses carry a folio of their own in the "X-Folio" header.
+ * </p>
  */
 public class MessageResponse <T> {
 
@@ -34,7 +39,7 @@ public class MessageResponse <T> {
 	}
 
 	/**
-	 * Gets the folio of this MessageResponse.
+	 * Gets the folio of this MessageResponse, generated when it is created.
 	 *
 	 * @return the folio as UUID
 	 */
@@ -0,0 +1,33 @@
+package com.banpay.challenge.banpaychallenge.repository;
+
+import com.banpay.challenge.banpaychallenge.models.CatalogSnapshotRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * The CatalogSnapshotRepository interface extends the JpaRepository interface from Spring Data JPA to provide persistence layer functionalities.
+ * It stores the versions of each collection of the Studio Ghibli catalog, so the application can start and keep answering without the API.
+ */
+@Repository
+public interface CatalogSnapshotRepository extends JpaRepository<CatalogSnapshotRecord, Long> {
+
+	/**
+	 * This method finds the latest stored version of a resource.
+	 *
+	 * @param resource The name of the catalog resource
+	 * @return An Optional object containing the record with the highest version (if any).
+	 */
+	Optional<CatalogSnapshotRecord> findFirstByResourceOrderByVersionDesc(String resource);
+
+	/**
+	 * This method deletes the versions of a resource older than the given one.
+	 *
+	 * @param resource The name of the catalog resource
+	 * @param version  The oldest version to keep
+	 */
+	@Transactional
+	void deleteByResourceAndVersionLessThan(String resource, Long version);
+}
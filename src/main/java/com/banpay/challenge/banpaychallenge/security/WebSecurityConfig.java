@@ -4,6 +4,7 @@ import com.banpay.challenge.banpaychallenge.security.jwt.AuthEntryPointJwt;
 import com.banpay.challenge.banpaychallenge.security.jwt.AuthTokenFilter;
 import com.banpay.challenge.banpaychallenge.security.jwt.JwtUtils;
 import com.banpay.challenge.banpaychallenge.security.services.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +14,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,7 +23,10 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestHandler;
 import org.springframework.security.web.csrf.XorCsrfTokenRequestAttributeHandler;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 
 /**
  * The WebSecurityConfig class represents the configuration for web security in the application.
@@ -133,17 +138,34 @@ public class WebSecurityConfig {
 		http.csrf(csrf -> csrf.csrfTokenRepository(tokenRepository).csrfTokenRequestHandler(requestHandler))
 				.exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+				// The catalog sets its own Cache-Control, so its ETags can be revalidated; its handlers are asynchronous, and
+				// the default headers would be written when the first dispatch returns, before the response of the handler
+				.headers(headers -> headers
+						.cacheControl(HeadersConfigurer.CacheControlConfig::disable)
+						.addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+								new NegatedRequestMatcher(AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/role/**")),
+								new CacheControlHeadersWriter())))
 				.authorizeHttpRequests(auth -> auth
+						// The result of an asynchronous handler is written in a second dispatch of a request already authorized
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+						// The error page of a refused request is rendered in a dispatch without the token, it must keep its status
+						.dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
 						// Authetification APIs
 						.requestMatchers("/api/auth/**").permitAll()
 						.requestMatchers("/api/users/**").hasRole(ADMIN)
 						//.requestMatchers(HttpMethod.PATCH,"/api/users/**").hasRole(ADMIN)
 						// Role APIs
-						.requestMatchers(HttpMethod.GET, "/api/role/films").hasAnyRole(ADMIN, "FILMS")
-						.requestMatchers(HttpMethod.GET, "/api/role/people").hasAnyRole(ADMIN, "PEOPLE")
-						.requestMatchers(HttpMethod.GET, "/api/role/locations").hasAnyRole(ADMIN, "LOCATIONS")
-						.requestMatchers(HttpMethod.GET, "/api/role/species").hasAnyRole(ADMIN, "SPECIES")
-						.requestMatchers(HttpMethod.GET, "/api/role/vehicles").hasAnyRole(ADMIN, "VEHICLES")
+						.requestMatchers(HttpMethod.GET, "/api/role/films", "/api/role/films/**").hasAnyRole(ADMIN, "FILMS")
+						.requestMatchers(HttpMethod.GET, "/api/role/people", "/api/role/people/**").hasAnyRole(ADMIN, "PEOPLE")
+						.requestMatchers(HttpMethod.GET, "/api/role/locations", "/api/role/locations/**").hasAnyRole(ADMIN, "LOCATIONS")
+						.requestMatchers(HttpMethod.GET, "/api/role/species", "/api/role/species/**").hasAnyRole(ADMIN, "SPECIES")
+						.requestMatchers(HttpMethod.GET, "/api/role/vehicles", "/api/role/vehicles/**").hasAnyRole(ADMIN, "VEHICLES")
+						// Search filters the results by the roles of the caller
+						.requestMatchers(HttpMethod.GET, "/api/role/search").authenticated()
+						// The bundle, the changes and the updates only hold the collections the roles of the caller allow
+						.requestMatchers(HttpMethod.GET, "/api/role/bundle", "/api/role/changes", "/api/role/updates").authenticated()
+						// Actuator metrics
+						.requestMatchers("/actuator/**").hasRole(ADMIN)
 						// Get CSFR Token
 						.requestMatchers(HttpMethod.GET, "/csrf").permitAll()
 						// Swagger configuration
@@ -159,14 +181,4 @@ public class WebSecurityConfig {
 
 		return http.build();
 	}
-
-	/**
-	 * Returns a new instance of RestTemplate.
-	 *
-	 * @return A RestTemplate object.
-	 */
-	@Bean
-	public RestTemplate getRestTemplate() {
-		return new RestTemplate();
-	}
 }
\ No newline at end of file
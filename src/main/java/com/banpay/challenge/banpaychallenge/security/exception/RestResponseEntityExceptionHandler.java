@@ -1,11 +1,14 @@
 package com.banpay.challenge.banpaychallenge.security.exception;
 
+import com.banpay.challenge.banpaychallenge.catalog.CatalogUpstreamException;
 import com.banpay.challenge.banpaychallenge.payload.response.MessageResponse;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
@@ -44,4 +47,22 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
 
 		return super.handleMethodArgumentNotValid(ex, headers, status, request);
 	}
+
+	/**
+	 * Handles a failure of the Studio Ghibli API when the catalog has no copy of the collection to serve instead.
+	 * The response is a "503 Service Unavailable", with a Retry-After header when the time to wait is known, either
+	 * because the API sent one or because the circuit breaker of the resource is open.
+	 *
+	 * @param ex the exception thrown by the catalog
+	 * @return a `ResponseEntity` containing error information
+	 */
+	@ExceptionHandler(CatalogUpstreamException.class)
+	protected ResponseEntity<MessageResponse<?>> handleCatalogUpstream(CatalogUpstreamException ex) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+		if (ex.getRetryAfter().isPositive()) {
+			long seconds = (ex.getRetryAfter().toMillis() + 999) / 1000;
+			response.header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+		}
+		return response.body(new MessageResponse<>("Error: The Studio Ghibli API is unavailable"));
+	}
 }
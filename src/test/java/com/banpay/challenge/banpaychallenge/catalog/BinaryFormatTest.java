@@ -0,0 +1,113 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.payload.response.MessageResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * This class contains JUnit tests for the BinaryFormat enum and the converters of the BinaryFormatConfig class.
+ * It tests which format an Accept header prefers and that every format writes the same data as JSON.
+ */
+class BinaryFormatTest {
+
+	/**
+	 * Tests that a binary format is chosen only when the Accept header prefers it to JSON.
+	 */
+	@Test
+	void testAccepted() {
+		assertEquals(Optional.of(BinaryFormat.CBOR), BinaryFormat.accepted("application/cbor"));
+		assertEquals(Optional.of(BinaryFormat.SMILE), BinaryFormat.accepted("application/x-jackson-smile, */*"));
+		assertEquals(Optional.of(BinaryFormat.MESSAGE_PACK), BinaryFormat.accepted("*/*, application/x-msgpack"));
+		assertEquals(Optional.of(BinaryFormat.MESSAGE_PACK), BinaryFormat.accepted("application/json;q=0.5, application/msgpack"));
+
+		assertEquals(Optional.empty(), BinaryFormat.accepted(null));
+		assertEquals(Optional.empty(), BinaryFormat.accepted("*/*"));
+		assertEquals(Optional.empty(), BinaryFormat.accepted("application/json, application/cbor"));
+		assertEquals(Optional.empty(), BinaryFormat.accepted("application/cbor;q=0.5, application/json"));
+		assertEquals(Optional.empty(), BinaryFormat.accepted("application/cbor;q=0"));
+		assertEquals(Optional.empty(), BinaryFormat.accepted("not a media type"));
+	}
+
+	/**
+	 * Tests that the ETag of a binary response keeps the quotes and the weakness of the JSON one.
+	 */
+	@Test
+	void testEtag() {
+		assertEquals("\"abc-cbor\"", BinaryFormat.CBOR.etag("\"abc\""));
+		assertEquals("W/\"abc-msgpack\"", BinaryFormat.MESSAGE_PACK.etag("W/\"abc\""));
+	}
+
+	/**
+	 * Tests that JSON stays the format of a client without an Accept header, and that the converters write a response
+	 * in every format with the same content as JSON, dates included, since their mappers are configured by the same
+	 * builder.
+	 */
+	@Test
+	void testConvertersWriteEveryFormat() throws Exception {
+		BinaryFormatConfig config = new BinaryFormatConfig(builder());
+		List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+				new MappingJackson2HttpMessageConverter(builder().build()),
+				config.cborHttpMessageConverter(builder()),
+				config.smileHttpMessageConverter(builder())));
+		config.extendMessageConverters(converters);
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(new Endpoint())
+				.setMessageConverters(converters.toArray(HttpMessageConverter[]::new))
+				.build();
+		ObjectMapper objectMapper = new ObjectMapper();
+		MockHttpServletResponse plain = mvc.perform(get("/response")).andReturn().getResponse();
+		assertEquals(MediaType.APPLICATION_JSON_VALUE, plain.getContentType());
+		JsonNode json = objectMapper.readTree(plain.getContentAsByteArray());
+		assertEquals("1986-08-02", json.path("data").path("release").asText());
+
+		for (BinaryFormat format : BinaryFormat.values()) {
+			for (MediaType mediaType : format.getMediaTypes()) {
+				MockHttpServletResponse response = mvc.perform(get("/response").accept(mediaType)).andReturn().getResponse();
+				assertTrue(mediaType.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+				JsonNode decoded = new ObjectMapper(format.newFactory()).readTree(response.getContentAsByteArray());
+				assertEquals(json.path("data"), decoded.path("data"), mediaType.toString());
+				assertEquals(json.path("message"), decoded.path("message"));
+				assertTrue(decoded.path("folio").isTextual());
+			}
+		}
+	}
+
+	/**
+	 * Creates a builder writing dates as text, like the one Spring Boot configures.
+	 */
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	/**
+	 * This class answers a MessageResponse through the converters, like the controllers do.
+	 */
+	@RestController
+	static class Endpoint {
+
+		@GetMapping("/response")
+		MessageResponse<Map<String, Object>> response() {
+			return new MessageResponse<>("Film obtained",
+					Map.of("title", "Castle in the Sky", "release", LocalDate.of(1986, 8, 2), "scores", List.of(95, 92)));
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class compares how many catalog requests waiting for the Studio Ghibli API a node holds at the same time when
+ * the handlers block a servlet thread and when they return a CompletableFuture run on a virtual thread, like the
+ * handlers of the RoleController.
+ * <p>
+ * It starts a local stand-in of the API answering after a fixed delay and a web server with a small pool of servlet
+ * threads, with a blocking and an asynchronous endpoint reaching the stand-in through the {@link CatalogHttpClient}.
+ * Then it sends a burst of concurrent requests to each endpoint and prints the peak of calls in flight to the API,
+ * the time to answer the whole burst and the latency percentiles.
+ * It is not a test: run its main method with the test classpath, optionally passing the number of concurrent
+ * requests, the delay of the API in milliseconds and the number of servlet threads, by default 1000, 500 and 20.
+ * The RoleControllerAsyncTest checks the same release of the servlet thread on the real "/api/role/films".
+ * </p>
+ */
+public class CatalogAsyncBenchmark {
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args the number of concurrent requests, the delay of the API in milliseconds and the number of servlet
+	 *             threads, all optional
+	 */
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long delayMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+		int servletThreads = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		try (StubUpstream upstream = new StubUpstream().otherwise(200, "[]", delayMillis);
+			 ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkApplication.class)
+					 .run("--server.port=0",
+						  "--server.tomcat.threads.max=" + servletThreads,
+						  "--server.tomcat.accept-count=" + requests,
+						  "--spring.mvc.async.request-timeout=120s",
+						  "--spring.docker.compose.enabled=false",
+						  "--spring.main.banner-mode=off",
+						  "--benchmark.upstream=" + upstream.url());
+			 HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			System.out.printf("%d concurrent requests, API delay %d ms, %d servlet threads%n", requests, delayMillis, servletThreads);
+			System.out.printf("%-10s %12s %12s %10s %10s %10s%n", "mode", "peak calls", "burst (ms)", "p50 (ms)", "p99 (ms)", "errors");
+			for (String mode : List.of("blocking", "async")) {
+				burst(client, URI.create("http://localhost:" + port + "/" + mode), Math.min(requests, 50));
+				upstream.resetPeakInFlight();
+				Result result = burst(client, URI.create("http://localhost:" + port + "/" + mode), requests);
+				System.out.printf("%-10s %12d %12d %10d %10d %10d%n", mode, upstream.resetPeakInFlight(),
+								  result.elapsedMillis(), result.percentile(0.5), result.percentile(0.99), result.errors());
+			}
+		}
+		System.exit(0);
+	}
+
+	private static Result burst(HttpClient client, URI uri, int requests) throws InterruptedException {
+		List<Long> latencies = new ArrayList<>();
+		AtomicInteger errors = new AtomicInteger();
+		long start = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<CompletableFuture<Long>> calls = new ArrayList<>();
+			for (int i = 0; i < requests; i++) {
+				calls.add(CompletableFuture.supplyAsync(() -> {
+					long sent = System.nanoTime();
+					try {
+						HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(2)).build(),
+																  HttpResponse.BodyHandlers.discarding());
+						if (response.statusCode() != 200) {
+							errors.incrementAndGet();
+						}
+					}
+					catch (Exception e) {
+						errors.incrementAndGet();
+					}
+					return (System.nanoTime() - sent) / 1_000_000;
+				}, executor));
+			}
+			calls.forEach(call -> latencies.add(call.join()));
+		}
+		latencies.sort(null);
+		return new Result((System.nanoTime() - start) / 1_000_000, latencies, errors.get());
+	}
+
+	/**
+	 * This record represents the outcome of a burst of requests.
+	 *
+	 * @param elapsedMillis the time to answer every request
+	 * @param latencies     the latency of each request, sorted
+	 * @param errors        the number of requests that failed
+	 */
+	private record Result(long elapsedMillis, List<Long> latencies, int errors) {
+
+		long percentile(double percentile) {
+			return latencies.get((int) Math.min(latencies.size() - 1, Math.ceil(percentile * latencies.size()) - 1));
+		}
+	}
+
+	/**
+	 * This class is the web application of the benchmark, without the database and the security of the real one.
+	 * It is neither a configuration nor a controller, so the component scan of the real application, which covers
+	 * this package, does not pick it up; its endpoints are declared as a router function instead.
+	 */
+	@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class,
+										HibernateJpaAutoConfiguration.class,
+										SecurityAutoConfiguration.class,
+										UserDetailsServiceAutoConfiguration.class,
+										ManagementWebSecurityAutoConfiguration.class})
+	static class BenchmarkApplication {
+
+		private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+		/**
+		 * Declares a blocking endpoint waiting for the API on the servlet thread, and an asynchronous one waiting on a
+		 * virtual thread, releasing the servlet thread. Both go through a client without a bound on the connections,
+		 * so only the servlet threads limit the blocking mode.
+		 *
+		 * @param environment the environment holding the URL of the stand-in of the API
+		 * @return the endpoints
+		 */
+		@Bean
+		RouterFunction<ServerResponse> endpoints(Environment environment) {
+			CatalogProperties properties = new CatalogProperties();
+			properties.getHttp().setMaxConnections(100_000);
+			properties.getHttp().setTimeout(Duration.ofMinutes(2));
+			properties.getHttp().setReadTimeout(Duration.ofMinutes(2));
+			properties.getHttp().setHttp2(false);
+			CatalogHttpClient httpClient = new CatalogHttpClient(properties, new SimpleMeterRegistry());
+			URI films = URI.create(environment.getProperty("benchmark.upstream") + "/films");
+			return RouterFunctions.route()
+					.GET("/blocking", request -> ServerResponse.ok()
+							.body(String.valueOf(httpClient.get(CatalogResource.FILMS, films, Map.of()).statusCode())))
+					.GET("/async", request -> ServerResponse.async(CompletableFuture.supplyAsync(() -> ServerResponse.ok()
+							.body(String.valueOf(httpClient.get(CatalogResource.FILMS, films, Map.of()).statusCode())), executor)))
+					.build();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.People;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogBundle class.
+ * It tests that the collections are bundled in the order of the resources and that the ETag follows the collections
+ * bundled and their content.
+ */
+class CatalogBundleTest {
+
+	private final CatalogRenderer renderer = new CatalogRenderer(new ObjectMapper());
+
+	/**
+	 * Tests that the bundle holds the entities of each collection keyed by resource, in the order of the resources.
+	 */
+	@Test
+	void testCollectionsInResourceOrder() {
+		CatalogBundle bundle = CatalogBundle.of(Map.of(CatalogResource.PEOPLE, people("10"), CatalogResource.FILMS, films("1")));
+
+		assertEquals(List.of("films", "people"), List.copyOf(bundle.collections().keySet()));
+		assertEquals("1", bundle.collections().get("films").get(0).path("id").asText());
+		assertEquals("10", bundle.collections().get("people").get(0).path("id").asText());
+	}
+
+	/**
+	 * Tests that the ETag stays the same for the same content and changes with the content or the collections bundled.
+	 */
+	@Test
+	void testEtagFollowsContent() {
+		String etag = CatalogBundle.of(Map.of(CatalogResource.FILMS, films("1"), CatalogResource.PEOPLE, people("10"))).etag();
+
+		assertEquals(etag, CatalogBundle.of(Map.of(CatalogResource.FILMS, films("1"), CatalogResource.PEOPLE, people("10"))).etag());
+		assertNotEquals(etag, CatalogBundle.of(Map.of(CatalogResource.FILMS, films("2"), CatalogResource.PEOPLE, people("10"))).etag());
+		assertNotEquals(etag, CatalogBundle.of(Map.of(CatalogResource.FILMS, films("1"))).etag());
+		assertTrue(etag.startsWith("\"") && etag.endsWith("-bundle\""));
+	}
+
+	private RenderedCatalog films(String id) {
+		Films film = new Films();
+		film.setId(id);
+		return renderer.render(CatalogResource.FILMS, new CatalogEntry<>(List.of(film), Instant.now()));
+	}
+
+	private RenderedCatalog people(String id) {
+		People person = new People();
+		person.setId(id);
+		return renderer.render(CatalogResource.PEOPLE, new CatalogEntry<>(List.of(person), Instant.now()));
+	}
+}
@@ -0,0 +1,200 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains JUnit tests for the CatalogCache class.
+ * It tests that fresh collections are served from memory, that expired ones are served stale while they refresh
+ * and that the versions kept in the database are used when the API can not be reached. It also tests that the snapshots
+ * published concurrently are announced in order, and that concurrent misses sharing a fetch publish it once.
+ */
+class CatalogCacheTest {
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2024-05-13T00:00:00Z"));
+	private final List<Runnable> backgroundTasks = new ArrayList<>();
+	private CatalogClient client;
+	private CatalogStore store;
+	private CatalogCache cache;
+
+	/**
+	 * This method creates a cache with a ten minute time to live for films and a queued executor.
+	 */
+	@BeforeEach
+	void setup() {
+		CatalogProperties properties = new CatalogProperties();
+		properties.getTtl().put("films", Duration.ofMinutes(10));
+		client = mock(CatalogClient.class);
+		store = mock(CatalogStore.class);
+		when(store.load(any())).thenReturn(Optional.empty());
+		cache = new CatalogCache(client, store, properties, backgroundTasks::add, new SimpleMeterRegistry(), event -> { }, clock);
+	}
+
+	/**
+	 * Tests that a fresh collection is fetched only once.
+	 */
+	@Test
+	void testFreshCollectionIsServedFromMemory() {
+		when(client.fetch(CatalogResource.FILMS)).thenReturn(List.of(film("1")));
+
+		assertEquals("1", cache.get(CatalogResource.FILMS).get(0).getId());
+		clock.advance(Duration.ofMinutes(5));
+		assertEquals("1", cache.get(CatalogResource.FILMS).get(0).getId());
+
+		verify(client, times(1)).fetch(CatalogResource.FILMS);
+		assertTrue(backgroundTasks.isEmpty());
+	}
+
+	/**
+	 * Tests that an expired collection is served stale and replaced once the background refresh finishes.
+	 */
+	@Test
+	void testExpiredCollectionIsServedStaleWhileRefreshing() {
+		when(client.fetch(CatalogResource.FILMS)).thenReturn(List.of(film("1")), List.of(film("2")));
+
+		cache.get(CatalogResource.FILMS);
+		clock.advance(Duration.ofMinutes(11));
+
+		assertEquals("1", cache.get(CatalogResource.FILMS).get(0).getId());
+		assertEquals("1", cache.get(CatalogResource.FILMS).get(0).getId());
+		assertEquals(1, backgroundTasks.size());
+
+		backgroundTasks.get(0).run();
+		assertEquals("2", cache.get(CatalogResource.FILMS).get(0).getId());
+	}
+
+	/**
+	 * Tests that a failed refresh keeps the stale collection.
+	 */
+	@Test
+	void testFailedRefreshKeepsStaleCollection() {
+		when(client.fetch(CatalogResource.FILMS)).thenReturn(List.of(film("1"))).thenThrow(new IllegalStateException("down"));
+
+		cache.get(CatalogResource.FILMS);
+		clock.advance(Duration.ofMinutes(11));
+		cache.get(CatalogResource.FILMS);
+		backgroundTasks.get(0).run();
+
+		assertEquals("1", cache.get(CatalogResource.FILMS).get(0).getId());
+	}
+
+	/**
+	 * Tests that the versions kept in the database are published at boot and used when the API fails.
+	 */
+	@Test
+	void testStoredVersionIsUsedWhenTheApiFails() {
+		CatalogEntry<Films> stored = new CatalogEntry<>(List.of(film("stored")), clock.instant());
+		when(store.load(CatalogResource.FILMS)).thenReturn(Optional.of(stored));
+		when(client.fetch(CatalogResource.FILMS)).thenThrow(new IllegalStateException("down"));
+
+		cache.afterSingletonsInstantiated();
+		assertEquals(1, cache.getSnapshot().getVersion());
+		assertEquals("stored", cache.get(CatalogResource.FILMS).get(0).getId());
+
+		when(client.fetch(CatalogResource.PEOPLE)).thenThrow(new IllegalStateException("down"));
+		assertThrows(IllegalStateException.class, () -> cache.get(CatalogResource.PEOPLE));
+	}
+
+	/**
+	 * Tests that the snapshots published by concurrent threads are announced one at a time and in the order of their
+	 * versions, so the listeners never get a version after a newer one, even when they are slow on some versions.
+	 */
+	@Test
+	void testConcurrentPublishesAreAnnouncedInOrder() throws Exception {
+		List<Long> announced = Collections.synchronizedList(new ArrayList<>());
+		CatalogCache ordered = new CatalogCache(client, store, new CatalogProperties(), backgroundTasks::add,
+				new SimpleMeterRegistry(), event -> {
+					long version = ((CatalogPublishedEvent) event).snapshot().getVersion();
+					if (version % 2 == 1) {
+						LockSupport.parkNanos(100_000);
+					}
+					announced.add(version);
+				}, clock);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> publishers = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				publishers.add(executor.submit(() -> {
+					for (int j = 0; j < 100; j++) {
+						ordered.publish(Map.of(CatalogResource.FILMS, new CatalogEntry<>(List.of(film("1")), clock.instant())));
+					}
+				}));
+			}
+			for (Future<?> publisher : publishers) {
+				publisher.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(400, announced.size());
+		for (int i = 0; i < announced.size(); i++) {
+			assertEquals(i + 1, announced.get(i));
+		}
+	}
+
+	/**
+	 * Tests that concurrent misses of a collection share a single fetch and publish it once, so the snapshot version
+	 * goes up by one and a single event is announced however many callers joined the fetch.
+	 */
+	@Test
+	void testCoalescedMissesPublishOnce() throws Exception {
+		List<CatalogPublishedEvent> announced = Collections.synchronizedList(new ArrayList<>());
+		CatalogCache coalesced = new CatalogCache(client, store, new CatalogProperties(), backgroundTasks::add,
+				new SimpleMeterRegistry(), event -> announced.add((CatalogPublishedEvent) event), clock);
+		CountDownLatch release = new CountDownLatch(1);
+		when(client.fetch(CatalogResource.FILMS)).thenAnswer(invocation -> {
+			assertTrue(release.await(5, TimeUnit.SECONDS));
+			return List.of(film("1"));
+		});
+		long before = coalesced.getSnapshot().getVersion();
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<List<Films>>> callers = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				callers.add(executor.submit(() -> coalesced.get(CatalogResource.FILMS)));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (Future<List<Films>> caller : callers) {
+				assertEquals("1", caller.get().get(0).getId());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		verify(client, times(1)).fetch(CatalogResource.FILMS);
+		assertEquals(1, announced.size());
+		assertEquals(before + 1, coalesced.getSnapshot().getVersion());
+	}
+
+	private static Films film(String id) {
+		Films film = new Films();
+		film.setId(id);
+		return film;
+	}
+}
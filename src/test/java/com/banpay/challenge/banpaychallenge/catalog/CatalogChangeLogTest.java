@@ -0,0 +1,140 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.People;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogChangeLog class.
+ * It tests that each version records the entities added, updated and removed, that changes are merged across
+ * versions, that unchanged data records nothing, that changed versions are announced, and that versions no longer
+ * kept or of another run are refused.
+ */
+class CatalogChangeLogTest {
+
+	private CatalogProperties properties;
+	private CatalogChangeLog changeLog;
+	private CatalogSnapshot snapshot;
+	private final List<Object> events = new ArrayList<>();
+
+	/**
+	 * This method creates a change log keeping three versions.
+	 */
+	@BeforeEach
+	void setup() {
+		properties = new CatalogProperties();
+		properties.getChanges().setRetainedVersions(3);
+		changeLog = new CatalogChangeLog(new CatalogRenderer(new ObjectMapper()), properties, events::add);
+		snapshot = CatalogSnapshot.empty();
+	}
+
+	/**
+	 * Tests that the first version adds every entity and the next ones list what changed.
+	 */
+	@Test
+	void testChangesOfEachVersion() {
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"), film("2", "My Neighbor Totoro"));
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"), film("2", "My Neighbor Totoro 2"), film("3", "Porco Rosso"));
+
+		CatalogChangeFeed all = since(0, resource -> true).orElseThrow();
+		assertEquals(changeLog.version(2), all.version());
+		assertEquals(new CatalogChanges(List.of("1", "2", "3"), List.of(), List.of()), all.changes().get("films"));
+
+		CatalogChangeFeed latest = since(1, resource -> true).orElseThrow();
+		assertEquals(new CatalogChanges(List.of("3"), List.of("2"), List.of()), latest.changes().get("films"));
+		assertTrue(since(2, resource -> true).orElseThrow().changes().isEmpty());
+	}
+
+	/**
+	 * Tests that the changes of an entity across versions are merged and that a refresh with the same data records nothing.
+	 */
+	@Test
+	void testMergedChangesAndUnchangedData() {
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"), film("2", "My Neighbor Totoro"));
+		publish(CatalogResource.FILMS, film("2", "My Neighbor Totoro"), film("3", "Porco Rosso"));
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"), film("2", "My Neighbor Totoro"));
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"), film("2", "My Neighbor Totoro"));
+
+		assertEquals(List.of(1L, 2L, 3L), events.stream().map(event -> ((CatalogChangedEvent) event).version().number()).toList());
+		assertEquals(new CatalogChanges(List.of("3"), List.of(), List.of("1")),
+				((CatalogChangedEvent) events.get(1)).changes().get(CatalogResource.FILMS));
+
+		CatalogChangeFeed feed = since(1, resource -> true).orElseThrow();
+		assertEquals(changeLog.version(4), feed.version());
+		assertEquals(new CatalogChanges(List.of(), List.of("1"), List.of()), feed.changes().get("films"));
+		assertTrue(since(3, resource -> true).orElseThrow().changes().isEmpty());
+	}
+
+	/**
+	 * Tests that only the collections the caller can read are listed.
+	 */
+	@Test
+	void testReadableCollections() {
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"));
+		People sheeta = new People();
+		sheeta.setId("sheeta");
+		publish(CatalogResource.PEOPLE, sheeta);
+
+		CatalogChangeFeed feed = since(0, resource -> resource == CatalogResource.PEOPLE).orElseThrow();
+		assertEquals(Set.of("people"), feed.changes().keySet());
+	}
+
+	/**
+	 * Tests that the changes since a version no longer kept, or since a version not published yet, are refused.
+	 */
+	@Test
+	void testVersionsNoLongerKept() {
+		for (int i = 0; i < 5; i++) {
+			publish(CatalogResource.FILMS, film("1", "Castle in the Sky " + i));
+		}
+
+		assertTrue(since(1, resource -> true).isEmpty());
+		assertTrue(since(6, resource -> true).isEmpty());
+		assertEquals(List.of("1"), since(2, resource -> true).orElseThrow().changes().get("films").updated());
+	}
+
+	/**
+	 * Tests that the versions are tokens of this run of the application: a token of another run, or a bare number other
+	 * than the 0 of a client without a copy, is refused.
+	 */
+	@Test
+	void testVersionsOfAnotherRun() {
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"));
+
+		CatalogVersion current = changeLog.version(1);
+		assertEquals(current, CatalogVersion.parse(current.toString()));
+		assertTrue(changeLog.since(new CatalogVersion("previous", 1), resource -> true).isEmpty());
+		assertTrue(changeLog.since(CatalogVersion.parse("1"), resource -> true).isEmpty());
+		assertEquals(current, changeLog.since(CatalogVersion.parse("0"), resource -> true).orElseThrow().version());
+		assertNull(CatalogVersion.parse("abc.x"));
+		assertNull(CatalogVersion.parse("-1"));
+	}
+
+	private Optional<CatalogChangeFeed> since(long number, Predicate<CatalogResource<?>> readable) {
+		return changeLog.since(changeLog.version(number), readable);
+	}
+
+	private void publish(CatalogResource<?> resource, Object... entities) {
+		snapshot = snapshot.with(Map.of(resource, new CatalogEntry<>(List.of(entities), Instant.now())));
+		changeLog.onPublished(new CatalogPublishedEvent(snapshot, Set.of(resource)));
+	}
+
+	private static Films film(String id, String title) {
+		Films film = new Films();
+		film.setId(id);
+		film.setTitle(title);
+		return film;
+	}
+}
@@ -0,0 +1,135 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogCircuitBreaker class.
+ * It tests that the breaker opens on failures and on slow calls over a sliding window, rejects calls while open
+ * and lets a single probe through once the open duration has elapsed.
+ */
+class CatalogCircuitBreakerTest {
+
+	private static final Duration FAST = Duration.ofMillis(10);
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2024-05-13T00:00:00Z"));
+	private final CatalogProperties.Breaker properties = new CatalogProperties.Breaker();
+	private CatalogCircuitBreaker breaker;
+
+	/**
+	 * This method creates a breaker over a window of 10 calls, opening from 5 calls at 50% of failures.
+	 */
+	@BeforeEach
+	void setup() {
+		properties.setWindowSize(10);
+		properties.setMinimumCalls(5);
+		properties.setFailureRateThreshold(50);
+		properties.setSlowCallDuration(Duration.ofSeconds(1));
+		properties.setSlowCallRateThreshold(80);
+		properties.setOpenDuration(Duration.ofSeconds(30));
+		breaker = new CatalogCircuitBreaker("films", properties, clock);
+	}
+
+	/**
+	 * Tests that the breaker stays closed below the minimum number of calls and opens once the failure rate is reached.
+	 */
+	@Test
+	void testOpensOnFailureRate() {
+		for (int i = 0; i < 4; i++) {
+			call(true, FAST);
+		}
+		assertEquals(CatalogCircuitBreaker.State.CLOSED, breaker.getState());
+
+		call(false, FAST);
+
+		assertEquals(CatalogCircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+		assertEquals(Duration.ofSeconds(30), breaker.getRetryAfter());
+	}
+
+	/**
+	 * Tests that the oldest outcomes leave the window: 7 failures out of 15 calls open the breaker when 5 of them are
+	 * among the last 10.
+	 */
+	@Test
+	void testWindowSlides() {
+		call(true, FAST);
+		call(true, FAST);
+		for (int i = 0; i < 8; i++) {
+			call(false, FAST);
+		}
+		for (int i = 0; i < 3; i++) {
+			call(true, FAST);
+		}
+		assertEquals(CatalogCircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(30, breaker.getFailureRate());
+
+		call(true, FAST);
+		call(true, FAST);
+
+		assertEquals(CatalogCircuitBreaker.State.OPEN, breaker.getState());
+	}
+
+	/**
+	 * Tests that successful but slow calls open the breaker too.
+	 */
+	@Test
+	void testOpensOnSlowCalls() {
+		for (int i = 0; i < 10; i++) {
+			call(false, i < 2 ? FAST : Duration.ofSeconds(2));
+		}
+		assertEquals(CatalogCircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(80, breaker.getSlowCallRate());
+	}
+
+	/**
+	 * Tests that a single probe goes through once the open duration has elapsed, that a failed probe reopens the
+	 * breaker and that a successful one closes it.
+	 */
+	@Test
+	void testHalfOpenProbe() {
+		for (int i = 0; i < 5; i++) {
+			call(true, FAST);
+		}
+		clock.advance(Duration.ofSeconds(30));
+
+		assertTrue(breaker.tryAcquire());
+		assertEquals(CatalogCircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+		breaker.onResult(true, FAST);
+		assertEquals(CatalogCircuitBreaker.State.OPEN, breaker.getState());
+
+		clock.advance(Duration.ofSeconds(30));
+		assertTrue(breaker.tryAcquire());
+		breaker.onIgnored();
+		assertTrue(breaker.tryAcquire());
+		breaker.onResult(false, FAST);
+
+		assertEquals(CatalogCircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(0, breaker.getFailureRate());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	/**
+	 * Tests that a disabled breaker never rejects a call.
+	 */
+	@Test
+	void testDisabled() {
+		properties.setEnabled(false);
+		for (int i = 0; i < 10; i++) {
+			call(true, FAST);
+		}
+		assertEquals(CatalogCircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	private void call(boolean failure, Duration elapsed) {
+		assertTrue(breaker.tryAcquire());
+		breaker.onResult(failure, elapsed);
+	}
+}
@@ -0,0 +1,112 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogColumnStore and CatalogColumnQuery classes.
+ * It tests that the query string is parsed into conditions, a sort and a limit, that rows are filtered and sorted
+ * by their columns with missing values last, that unknown columns and malformed parameters are rejected, and that
+ * the facets count and average the rows of each value.
+ */
+class CatalogColumnStoreTest {
+
+	private final CatalogColumnStore store = new CatalogColumnStore(new CatalogRenderer(new ObjectMapper()));
+
+	private final CatalogEntry<Films> entry = new CatalogEntry<>(List.of(
+			film("1", "95", "1986", "Hayao Miyazaki"),
+			film("2", "97", "1988", "Isao Takahata"),
+			film("3", "78", "1988", "Hayao Miyazaki"),
+			film("4", null, "1991", "Isao Takahata"),
+			film("5", "92", "2001", "Hayao Miyazaki")), Instant.now());
+
+	/**
+	 * Tests that the query string is split into conditions, a sort and a limit, leaving the other parameters out.
+	 */
+	@Test
+	void testParse() {
+		CatalogColumnQuery query = CatalogColumnQuery.parse("rt_score%3E%3D90&sort=-release_date,title&limit=5&page=1");
+
+		assertEquals(List.of(new CatalogColumnQuery.Condition("rt_score", ">=", "90")), query.conditions());
+		assertEquals(List.of(new CatalogColumnQuery.SortKey("release_date", true),
+				new CatalogColumnQuery.SortKey("title", false)), query.sort());
+		assertEquals(5, query.limit());
+		assertTrue(CatalogColumnQuery.parse(null).isEmpty());
+		assertTrue(CatalogColumnQuery.parse("page=1&fields=id").isEmpty());
+	}
+
+	/**
+	 * Tests that rows are filtered by a numeric condition, sorted descending and cut to the limit.
+	 */
+	@Test
+	void testFilterSortAndLimit() {
+		CatalogColumns columns = store.get(CatalogResource.FILMS, entry);
+
+		int[] rows = columns.select(CatalogColumnQuery.parse("rt_score>=90&sort=-release_date&limit=2"));
+
+		assertArrayEquals(new int[]{4, 1}, rows);
+	}
+
+	/**
+	 * Tests that categorical conditions match any of the listed values, and that rows without a value sort last
+	 * in both directions while ties keep the order of the collection.
+	 */
+	@Test
+	void testCategoricalAndMissingValues() {
+		CatalogColumns columns = store.get(CatalogResource.FILMS, entry);
+
+		assertArrayEquals(new int[]{1, 3}, columns.select(CatalogColumnQuery.parse("director=isao takahata")));
+		assertArrayEquals(new int[]{2, 4, 0, 1, 3},
+				columns.select(CatalogColumnQuery.parse("sort=rt_score")));
+		assertArrayEquals(new int[]{1, 0, 4, 2, 3},
+				columns.select(CatalogColumnQuery.parse("sort=-rt_score")));
+		assertSame(columns, store.get(CatalogResource.FILMS, entry));
+	}
+
+	/**
+	 * Tests that unknown columns, unsupported operators and malformed parameters are rejected.
+	 */
+	@Test
+	void testInvalidQueries() {
+		CatalogColumns columns = store.get(CatalogResource.FILMS, entry);
+
+		assertThrows(IllegalArgumentException.class, () -> columns.select(CatalogColumnQuery.parse("foo>1")));
+		assertThrows(IllegalArgumentException.class, () -> columns.select(CatalogColumnQuery.parse("director>a")));
+		assertThrows(IllegalArgumentException.class, () -> CatalogColumnQuery.parse("rt_score"));
+		assertThrows(IllegalArgumentException.class, () -> CatalogColumnQuery.parse("limit=0"));
+	}
+
+	/**
+	 * Tests that the facets count the rows of each value, the most frequent first, and average the numeric fields over
+	 * the rows that have a value.
+	 */
+	@Test
+	void testFacets() {
+		CatalogFacets facets = store.get(CatalogResource.FILMS, entry).getFacets();
+
+		assertEquals(5, facets.total());
+		assertEquals(new CatalogFacets.Stats(4, 78, 97, 90.5), facets.stats().get("rt_score"));
+		List<CatalogFacets.Facet> directors = facets.facets().get("director");
+		assertEquals(2, directors.size());
+		assertEquals("Hayao Miyazaki", directors.get(0).value());
+		assertEquals(3, directors.get(0).count());
+		assertEquals(88.33, directors.get(0).averages().get("rt_score"));
+		assertEquals(97.0, directors.get(1).averages().get("rt_score"));
+		assertEquals(1989.5, directors.get(1).averages().get("release_date"));
+	}
+
+	private static Films film(String id, String score, String year, String director) {
+		Films film = new Films();
+		film.setId(id);
+		film.setRt_score(score);
+		film.setRelease_date(year);
+		film.setDirector(director);
+		return film;
+	}
+}
@@ -0,0 +1,109 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.payload.response.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class compares the size of a collection and the time to encode it in JSON and in every {@link BinaryFormat}.
+ * <p>
+ * It fetches the films from a local stand-in of the Studio Ghibli API, copied to the requested number of films, and
+ * prints for each format the size of the MessageResponse body, plain and gzipped, the time to encode it from the
+ * models, which a converter spends on every response that is not rendered ahead of time, and the time a client spends
+ * decoding it. Then it prints the time the {@link CatalogRenderer} takes to render the collection in every format,
+ * which whole collections only cost once per snapshot.
+ * It is not a test: run its main method with the test classpath, optionally passing the number of copies of the films
+ * and the number of iterations measured, by default 100 and 200.
+ * </p>
+ */
+public class CatalogEncodingBenchmark {
+
+	/**
+	 * Accumulates the results measured, so the JIT compiler can not drop the work.
+	 */
+	private static volatile long sink;
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args the number of copies of the films and the number of iterations measured, both optional
+	 */
+	public static void main(String[] args) throws Exception {
+		int copies = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+		ObjectMapper json = builder().build();
+		List<Films> films;
+		try (FakeGhibliApi api = new FakeGhibliApi().multiply(CatalogResource.FILMS, copies);
+			 HttpClient client = HttpClient.newHttpClient()) {
+			HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(api.url() + "/films")).build(),
+														HttpResponse.BodyHandlers.ofByteArray());
+			films = json.readerForListOf(Films.class).readValue(response.body());
+		}
+		MessageResponse<List<Films>> body = new MessageResponse<>("All films obtained", films);
+
+		System.out.printf("%d films, %d iterations%n", films.size(), iterations);
+		System.out.printf("%-10s %12s %12s %14s %14s%n", "format", "bytes", "gzip bytes", "encode (us)", "decode (us)");
+		print("json", json, body, iterations);
+		for (BinaryFormat format : BinaryFormat.values()) {
+			print(format.getSuffix(), builder().factory(format.newFactory()).build(), body, iterations);
+		}
+
+		CatalogEntry<Films> entry = new CatalogEntry<>(films, Instant.now());
+		int renders = Math.max(1, iterations / 10);
+		for (int i = 0; i < renders; i++) {
+			sink += new CatalogRenderer(json).render(CatalogResource.FILMS, entry).json().length;
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < renders; i++) {
+			sink += new CatalogRenderer(json).render(CatalogResource.FILMS, entry).json().length;
+		}
+		System.out.printf("rendering the JSON, gzip and binary bodies once per snapshot: %d us%n",
+						  (System.nanoTime() - start) / renders / 1000);
+	}
+
+	private static void print(String name, ObjectMapper mapper, MessageResponse<List<Films>> body, int iterations) throws IOException {
+		byte[] bytes = mapper.writeValueAsBytes(body);
+		for (int i = 0; i < iterations; i++) {
+			sink += mapper.writeValueAsBytes(body).length + mapper.readTree(bytes).size();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += mapper.writeValueAsBytes(body).length;
+		}
+		long encode = (System.nanoTime() - start) / iterations / 1000;
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += mapper.readTree(bytes).size();
+		}
+		long decode = (System.nanoTime() - start) / iterations / 1000;
+		System.out.printf("%-10s %12d %12d %14d %14d%n", name, bytes.length, gzip(bytes).length, encode, decode);
+	}
+
+	/**
+	 * Creates a builder writing dates as text, like the one Spring Boot configures.
+	 */
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,84 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.People;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class contains JUnit tests for the CatalogGraph class.
+ * It tests that the URLs of a relation are replaced with the entities they point to, only for readable resources.
+ */
+class CatalogGraphTest {
+
+	private static final String API = "https://ghibliapi.vercel.app";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CatalogRenderer renderer = new CatalogRenderer(objectMapper);
+	private CatalogGraph graph;
+	private ObjectNode film;
+
+	/**
+	 * This method creates a graph over a film whose people are Pazu and the generic "/people/" URL.
+	 */
+	@BeforeEach
+	void setup() {
+		People pazu = new People();
+		pazu.setId("pazu");
+		pazu.setName("Pazu");
+		Films laputa = new Films();
+		laputa.setId("laputa");
+		laputa.setPeople(List.of(API + "/people/pazu", API + "/people/"));
+
+		CatalogEntry<Films> films = new CatalogEntry<>(List.of(laputa), Instant.now());
+		CatalogCache cache = mock(CatalogCache.class);
+		when(cache.getEntry(CatalogResource.FILMS)).thenReturn(films);
+		when(cache.getEntry(CatalogResource.PEOPLE)).thenReturn(new CatalogEntry<>(List.of(pazu), Instant.now()));
+
+		graph = new CatalogGraph(cache, renderer, objectMapper);
+		film = renderer.render(CatalogResource.FILMS, films).node("laputa").orElseThrow();
+	}
+
+	/**
+	 * Tests that the people of a film are expanded and that URLs naming no single entity are kept.
+	 */
+	@Test
+	void testExpandReadableRelation() {
+		JsonNode people = graph.expand(CatalogResource.FILMS, film, Set.of("people"), resource -> true).get("people");
+
+		assertEquals("Pazu", people.get(0).get("name").asText());
+		assertEquals(API + "/people/", people.get(1).asText());
+		assertTrue(film.get("people").get(0).isTextual());
+	}
+
+	/**
+	 * Tests that a relation to a resource the caller can not read keeps its URLs.
+	 */
+	@Test
+	void testUnreadableRelationIsNotExpanded() {
+		JsonNode people = graph.expand(CatalogResource.FILMS, film, Set.of("people"),
+				resource -> resource != CatalogResource.PEOPLE).get("people");
+
+		assertEquals(API + "/people/pazu", people.get(0).asText());
+	}
+
+	/**
+	 * Tests that a relation the resource does not have is rejected.
+	 */
+	@Test
+	void testUnknownRelationIsRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> graph.expand(CatalogResource.FILMS, film, Set.of("pilot"), resource -> true));
+	}
+}
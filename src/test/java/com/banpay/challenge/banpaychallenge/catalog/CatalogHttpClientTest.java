@@ -0,0 +1,222 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogHttpClient class.
+ * It tests that calls are timed per resource and outcome, that error statuses are reported, that the total
+ * deadline cuts slow responses, that an open circuit fails fast, that transient failures are retried within
+ * the budget and that slow requests are hedged.
+ */
+class CatalogHttpClientTest {
+
+	private final StubUpstream upstream = new StubUpstream();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private CatalogHttpClient httpClient;
+
+	/**
+	 * This method stops the client and the stand-in of the API.
+	 */
+	@AfterEach
+	void tearDown() {
+		httpClient.close();
+		upstream.close();
+	}
+
+	/**
+	 * Tests that a successful call is timed with the resource and the status, and that an error status is thrown.
+	 */
+	@Test
+	void testCallsAreTimedPerResource() {
+		httpClient = new CatalogHttpClient(new CatalogProperties(), meterRegistry);
+		upstream.reply(200, "[]").reply(500, "");
+
+		assertEquals(200, httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()).statusCode());
+		CatalogUpstreamException e = assertThrows(CatalogUpstreamException.class,
+				() -> httpClient.get(CatalogResource.PEOPLE, uri("/people"), Map.of()));
+
+		assertEquals(500, e.getStatus());
+		assertEquals(1, meterRegistry.get("catalog.upstream.requests").tags("resource", "films", "outcome", "200").timer().count());
+		assertEquals(1, meterRegistry.get("catalog.upstream.requests").tags("resource", "people", "outcome", "500").timer().count());
+	}
+
+	/**
+	 * Tests that a response slower than the total timeout fails without waiting for it.
+	 */
+	@Test
+	void testTotalTimeoutCutsSlowResponses() {
+		CatalogProperties properties = new CatalogProperties();
+		properties.getHttp().setTimeout(Duration.ofMillis(200));
+		httpClient = new CatalogHttpClient(properties, meterRegistry);
+		upstream.reply(200, "[]", Map.of(), 2000);
+
+		long start = System.nanoTime();
+		CatalogUpstreamException e = assertThrows(CatalogUpstreamException.class,
+				() -> httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()));
+
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+		assertEquals(0, e.getStatus());
+		assertEquals(1, meterRegistry.get("catalog.upstream.requests").tags("outcome", "timeout").timer().count());
+	}
+
+	/**
+	 * Tests that once the breaker of a resource opens, its calls fail without reaching the API while the other
+	 * resources are still called, and that the state is published.
+	 */
+	@Test
+	void testOpenCircuitFailsFast() {
+		CatalogProperties properties = new CatalogProperties();
+		properties.getBreaker().setWindowSize(2);
+		properties.getBreaker().setMinimumCalls(2);
+		properties.getRetry().setEnabled(false);
+		httpClient = new CatalogHttpClient(properties, meterRegistry);
+		upstream.reply(500, "").reply(503, "").reply(200, "[]");
+
+		for (int i = 0; i < 2; i++) {
+			assertThrows(CatalogUpstreamException.class, () -> httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()));
+		}
+		CatalogCircuitOpenException e = assertThrows(CatalogCircuitOpenException.class,
+				() -> httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()));
+
+		assertTrue(e.getRetryAfter().compareTo(Duration.ofSeconds(30)) <= 0);
+		assertEquals(2, upstream.requests().size());
+		assertEquals(200, httpClient.get(CatalogResource.PEOPLE, uri("/people"), Map.of()).statusCode());
+		assertEquals(1, meterRegistry.get("catalog.upstream.circuit.state").tags("resource", "films", "state", "open").gauge().value());
+		assertEquals(0, meterRegistry.get("catalog.upstream.circuit.state").tags("resource", "people", "state", "open").gauge().value());
+		assertEquals(1, meterRegistry.get("catalog.upstream.requests").tags("outcome", "circuit-open").timer().count());
+	}
+
+	/**
+	 * Tests that a transient failure is retried and that a missing resource is not.
+	 */
+	@Test
+	void testTransientFailuresAreRetried() {
+		httpClient = new CatalogHttpClient(new CatalogProperties(), meterRegistry);
+		upstream.reply(503, "").reply(200, "[]").reply(404, "");
+
+		assertEquals(200, httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()).statusCode());
+		assertEquals(404, assertThrows(CatalogUpstreamException.class,
+				() -> httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of())).getStatus());
+
+		assertEquals(3, upstream.requests().size());
+		assertEquals(1, meterRegistry.get("catalog.upstream.retries").tags("result", "retried").counter().count());
+	}
+
+	/**
+	 * Tests that the Retry-After of the response is waited for, and that a call is not retried when the API asks to
+	 * wait longer than the maximum backoff.
+	 */
+	@Test
+	void testRetryAfterIsHonored() {
+		httpClient = new CatalogHttpClient(new CatalogProperties(), meterRegistry);
+		upstream.reply(429, "", Map.of("Retry-After", "1"), 0).reply(200, "[]")
+				.reply(503, "", Map.of("Retry-After", "120"), 0);
+
+		long start = System.nanoTime();
+		assertEquals(200, httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()).statusCode());
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 1000);
+
+		CatalogUpstreamException e = assertThrows(CatalogUpstreamException.class,
+				() -> httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()));
+		assertEquals(Duration.ofMinutes(2), e.getRetryAfter());
+		assertEquals(3, upstream.requests().size());
+	}
+
+	/**
+	 * Tests that the retry budget is shared by the resources: once a retry of films spends it, people is not retried.
+	 */
+	@Test
+	void testRetryBudgetIsShared() {
+		CatalogProperties properties = new CatalogProperties();
+		properties.getRetry().setBudgetCapacity(1);
+		properties.getRetry().setBudgetRatio(0);
+		httpClient = new CatalogHttpClient(properties, meterRegistry);
+		upstream.reply(502, "").reply(200, "[]").reply(502, "");
+
+		assertEquals(200, httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of()).statusCode());
+		assertEquals(502, assertThrows(CatalogUpstreamException.class,
+				() -> httpClient.get(CatalogResource.PEOPLE, uri("/people"), Map.of())).getStatus());
+
+		assertEquals(3, upstream.requests().size());
+		assertEquals(1, meterRegistry.get("catalog.upstream.retries").tags("resource", "people", "result", "budget-exhausted").counter().count());
+		assertEquals(0, meterRegistry.get("catalog.upstream.retry.budget").gauge().value());
+	}
+
+	/**
+	 * Tests that a request slower than the recent latencies gets a hedge, and that the faster response wins.
+	 */
+	@Test
+	void testSlowRequestIsHedged() {
+		httpClient = new CatalogHttpClient(hedged(5), meterRegistry);
+		upstream.reply(200, "[]").reply(200, "[\"slow\"]", Map.of(), 2000).reply(200, "[\"fast\"]");
+		httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+
+		long start = System.nanoTime();
+		HttpResponse<byte[]> response = httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+		assertEquals("[\"fast\"]", new String(response.body(), StandardCharsets.UTF_8));
+		assertEquals(3, upstream.requests().size());
+		assertEquals(1, meterRegistry.get("catalog.upstream.hedges").tags("result", "won").counter().count());
+	}
+
+	/**
+	 * Tests that a hedge that wins is recorded as the time since the first request was sent, not as its own latency:
+	 * a following request as fast as the hedge alone is not hedged, since the median of the latencies did not drop.
+	 */
+	@Test
+	void testHedgeLatencyIsMeasuredFromTheFirstRequest() {
+		CatalogProperties properties = hedged(5);
+		properties.getHedge().setPercentile(50);
+		properties.getHedge().setMinDelay(Duration.ZERO);
+		httpClient = new CatalogHttpClient(properties, meterRegistry);
+		upstream.reply(200, "[]", Map.of(), 300).reply(200, "[\"slow\"]", Map.of(), 2000).reply(200, "[\"fast\"]")
+				.reply(200, "[]", Map.of(), 50);
+		httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+		httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+
+		httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+
+		assertEquals(4, upstream.requests().size());
+		assertEquals(1, meterRegistry.get("catalog.upstream.hedges").tags("result", "sent").counter().count());
+	}
+
+	/**
+	 * Tests that no hedge is sent once the hedge budget is spent.
+	 */
+	@Test
+	void testHedgesAreCappedByTheBudget() {
+		httpClient = new CatalogHttpClient(hedged(0), meterRegistry);
+		upstream.reply(200, "[]").reply(200, "[\"slow\"]", Map.of(), 300);
+		httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+
+		HttpResponse<byte[]> response = httpClient.get(CatalogResource.FILMS, uri("/films"), Map.of());
+
+		assertEquals("[\"slow\"]", new String(response.body(), StandardCharsets.UTF_8));
+		assertEquals(2, upstream.requests().size());
+		assertEquals(1, meterRegistry.get("catalog.upstream.hedges").tags("result", "budget-exhausted").counter().count());
+	}
+
+	private static CatalogProperties hedged(int budgetCapacity) {
+		CatalogProperties properties = new CatalogProperties();
+		properties.getHedge().setEnabled(true);
+		properties.getHedge().setMinimumSamples(1);
+		properties.getHedge().setBudgetCapacity(budgetCapacity);
+		properties.getHedge().setBudgetRatio(0);
+		return properties;
+	}
+
+	private URI uri(String path) {
+		return URI.create(upstream.url() + path);
+	}
+}
@@ -0,0 +1,46 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogLatencyWindow class.
+ * It tests the percentiles by nearest rank and that only the latest latencies are kept.
+ */
+class CatalogLatencyWindowTest {
+
+	/**
+	 * Tests that no percentile is given before the minimum number of samples, and the nearest rank afterwards.
+	 */
+	@Test
+	void testPercentile() {
+		CatalogLatencyWindow window = new CatalogLatencyWindow(10, 5);
+		for (int i = 1; i <= 4; i++) {
+			window.record(Duration.ofMillis(i * 10));
+		}
+		assertNull(window.percentile(95));
+
+		window.record(Duration.ofMillis(50));
+
+		assertEquals(Duration.ofMillis(50), window.percentile(95));
+		assertEquals(Duration.ofMillis(30), window.percentile(50));
+		assertEquals(Duration.ofMillis(10), window.percentile(0));
+	}
+
+	/**
+	 * Tests that the oldest latencies leave the window once it is full.
+	 */
+	@Test
+	void testOldestLatenciesLeave() {
+		CatalogLatencyWindow window = new CatalogLatencyWindow(3, 1);
+		window.record(Duration.ofSeconds(5));
+		for (int i = 0; i < 3; i++) {
+			window.record(Duration.ofMillis(10));
+		}
+
+		assertEquals(Duration.ofMillis(10), window.percentile(100));
+	}
+}
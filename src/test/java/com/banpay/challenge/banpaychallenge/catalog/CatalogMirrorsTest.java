@@ -0,0 +1,83 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogMirrors class.
+ * It tests that the fastest healthy mirror is ranked first, that failing mirrors are demoted until their cooldown
+ * ends and that their health is published.
+ */
+class CatalogMirrorsTest {
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2024-05-13T00:00:00Z"));
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private CatalogMirrors mirrors;
+
+	/**
+	 * This method creates two mirrors, "https://primary" preferred over "http://local:8081".
+	 */
+	@BeforeEach
+	void setup() {
+		mirrors = new CatalogMirrors(List.of("https://primary", "http://local:8081/"), new CatalogProperties.Mirrors(), meterRegistry, clock);
+	}
+
+	/**
+	 * Tests that the configured order holds until latencies are known, and that the fastest mirror leads afterwards.
+	 */
+	@Test
+	void testFastestFirst() {
+		assertEquals(List.of("https://primary", "http://local:8081"), names());
+
+		mirrors.onSuccess(mirror("https://primary"), Duration.ofMillis(300));
+		assertEquals(List.of("http://local:8081", "https://primary"), names());
+
+		mirrors.onSuccess(mirror("http://local:8081"), Duration.ofMillis(20));
+		assertEquals(List.of("http://local:8081", "https://primary"), names());
+		assertEquals("http://local:8081", mirror("http://local:8081").getUrl());
+		assertEquals(0.02, meterRegistry.get("catalog.upstream.mirror.latency").tag("mirror", "http://local:8081").gauge().value(), 1e-9);
+	}
+
+	/**
+	 * Tests that a failing mirror goes last until the cooldown after its last failure has elapsed.
+	 */
+	@Test
+	void testFailingMirrorIsDemoted() {
+		mirrors.onSuccess(mirror("https://primary"), Duration.ofMillis(10));
+		mirrors.onSuccess(mirror("http://local:8081"), Duration.ofMillis(50));
+		mirrors.onFailure(mirror("https://primary"));
+		assertEquals(List.of("https://primary", "http://local:8081"), names());
+
+		mirrors.onFailure(mirror("https://primary"));
+
+		assertEquals(List.of("http://local:8081", "https://primary"), names());
+		assertEquals(0, meterRegistry.get("catalog.upstream.mirror.healthy").tag("mirror", "https://primary").gauge().value());
+
+		clock.advance(Duration.ofSeconds(30));
+		assertEquals(List.of("https://primary", "http://local:8081"), names());
+	}
+
+	/**
+	 * Tests that mirrors must be http or https URLs.
+	 */
+	@Test
+	void testInvalidMirror() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new CatalogMirrors(List.of("https://primary", "file:/tmp/dump"), new CatalogProperties.Mirrors(), meterRegistry, clock));
+	}
+
+	private List<String> names() {
+		return mirrors.ranked().stream().map(CatalogMirrors.Mirror::getUrl).toList();
+	}
+
+	private CatalogMirrors.Mirror mirror(String url) {
+		return mirrors.ranked().stream().filter(mirror -> mirror.getUrl().equals(url)).findFirst().orElseThrow();
+	}
+}
@@ -0,0 +1,74 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.People;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains JUnit tests for the CatalogRefresher class.
+ * It tests that a refresh publishes every resource in a single snapshot and that failed resources keep their entry.
+ */
+class CatalogRefresherTest {
+
+	private CatalogClient client;
+	private CatalogCache cache;
+	private CatalogRefresher refresher;
+
+	/**
+	 * This method creates a refresher that runs the fetches on the calling thread.
+	 */
+	@BeforeEach
+	void setup() {
+		CatalogProperties properties = new CatalogProperties();
+		client = mock(CatalogClient.class);
+		when(client.fetch(any())).thenReturn(List.of());
+		cache = new CatalogCache(client, mock(CatalogStore.class), properties, Runnable::run, new SimpleMeterRegistry(), event -> { }, Clock.systemUTC());
+		refresher = new CatalogRefresher(cache, properties, mock(ScheduledExecutorService.class), Runnable::run);
+	}
+
+	/**
+	 * Tests that one refresh publishes all five resources with a single version increment.
+	 */
+	@Test
+	void testRefreshPublishesOneSnapshot() {
+		Films film = new Films();
+		film.setId("1");
+		when(client.fetch(CatalogResource.FILMS)).thenReturn(List.of(film));
+
+		CatalogSnapshot snapshot = refresher.refresh();
+
+		assertEquals(1, snapshot.getVersion());
+		assertSame(snapshot, cache.getSnapshot());
+		assertEquals(List.of(film), snapshot.get(CatalogResource.FILMS).data());
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			assertNotNull(snapshot.get(resource));
+		}
+	}
+
+	/**
+	 * Tests that a resource failing to refresh keeps the entry of the previous snapshot.
+	 */
+	@Test
+	void testFailedResourceKeepsPreviousEntry() {
+		People people = new People();
+		people.setId("1");
+		when(client.fetch(CatalogResource.PEOPLE)).thenReturn(List.of(people)).thenThrow(new IllegalStateException("down"));
+
+		CatalogSnapshot first = refresher.refresh();
+		CatalogSnapshot second = refresher.refresh();
+
+		assertEquals(2, second.getVersion());
+		assertSame(first.get(CatalogResource.PEOPLE), second.get(CatalogResource.PEOPLE));
+		assertNotSame(first.get(CatalogResource.FILMS), second.get(CatalogResource.FILMS));
+	}
+}
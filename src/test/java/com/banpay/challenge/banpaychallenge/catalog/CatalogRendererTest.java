@@ -0,0 +1,185 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.payload.request.CatalogQuery;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the CatalogRenderer class.
+ * It tests that a published entry is rendered once, that unchanged content keeps its ETag, that the gzip and binary
+ * bodies hold the same JSON, that pages and fields are cut from the rendering, that entities are found by id and that
+ * rows are written as newline delimited JSON.
+ */
+class CatalogRendererTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CatalogRenderer renderer = new CatalogRenderer(objectMapper);
+
+	/**
+	 * Tests that the body encoded in each binary format decodes to the JSON body and has its own ETag.
+	 */
+	@Test
+	void testBinaryBodiesMatchJsonBody() throws IOException {
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS,
+				new CatalogEntry<>(List.of(film("1"), film("2")), Instant.now()));
+		JsonNode json = objectMapper.readTree(rendered.json());
+
+		for (BinaryFormat format : BinaryFormat.values()) {
+			JsonNode decoded = new ObjectMapper(format.newFactory()).readTree(rendered.body(format));
+			assertEquals(json, decoded, format.name());
+			assertEquals(rendered.etag(false).replace("\"", "") + "-" + format.getSuffix(),
+					rendered.etag(format).replace("\"", ""));
+		}
+		assertTrue(rendered.body(BinaryFormat.CBOR).length < rendered.json().length);
+	}
+
+	/**
+	 * Tests that the body of a published entry is reused until a new entry is published.
+	 */
+	@Test
+	void testEntryIsRenderedOnce() {
+		CatalogEntry<Films> first = new CatalogEntry<>(List.of(film("1")), Instant.now());
+		CatalogSnapshot snapshot = CatalogSnapshot.empty().with(Map.of(CatalogResource.FILMS, first));
+		renderer.onPublished(new CatalogPublishedEvent(snapshot, Set.of(CatalogResource.FILMS)));
+
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS, first);
+		assertSame(rendered, renderer.render(CatalogResource.FILMS, first));
+
+		CatalogEntry<Films> second = new CatalogEntry<>(List.of(film("2")), Instant.now());
+		assertNotSame(rendered, renderer.render(CatalogResource.FILMS, second));
+	}
+
+	/**
+	 * Tests that an entry with the same content keeps the body and the ETag, while new content changes them.
+	 */
+	@Test
+	void testUnchangedContentKeepsBodyAndEtag() {
+		RenderedCatalog first = renderer.render(CatalogResource.FILMS, new CatalogEntry<>(List.of(film("1")), Instant.now()));
+		RenderedCatalog same = renderer.render(CatalogResource.FILMS, new CatalogEntry<>(List.of(film("1")), Instant.now()));
+		RenderedCatalog changed = renderer.render(CatalogResource.FILMS, new CatalogEntry<>(List.of(film("2")), Instant.now()));
+
+		assertSame(first.json(), same.json());
+		assertEquals(first.etag(false), same.etag(false));
+		assertNotEquals(first.etag(false), first.etag(true));
+		assertNotEquals(first.etag(false), changed.etag(false));
+		assertTrue(changed.etag(true).startsWith("\"") && changed.etag(true).endsWith("-gzip\""));
+	}
+
+	/**
+	 * Tests that the gzip body decompresses to the JSON body, which carries the message and the data.
+	 */
+	@Test
+	void testGzipBodyMatchesJsonBody() throws IOException {
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS,
+				new CatalogEntry<>(List.of(film("1")), Instant.now()));
+
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(rendered.body(true)))) {
+			assertArrayEquals(rendered.body(false), gzip.readAllBytes());
+		}
+		JsonNode body = objectMapper.readTree(rendered.json());
+		assertEquals("All films obtained", body.get("message").asText());
+		assertEquals("1", body.get("data").get(0).get("id").asText());
+		assertTrue(body.hasNonNull("folio"));
+	}
+
+	/**
+	 * Tests that the pages follow each other through the cursor and keep only the requested fields.
+	 */
+	@Test
+	void testSliceByCursorWithFields() {
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS,
+				new CatalogEntry<>(List.of(film("1"), film("2"), film("3")), Instant.now()));
+		CatalogQuery query = new CatalogQuery();
+		query.setSize(2);
+		query.setFields(Set.of("id"));
+
+		CatalogPage first = renderer.slice(CatalogResource.FILMS, rendered, query);
+		assertEquals(3, first.total());
+		assertEquals(2, first.data().size());
+		assertEquals(1, first.data().get(0).size());
+		assertEquals("1", first.data().get(0).get("id").asText());
+		assertNotNull(first.nextCursor());
+
+		query.setCursor(first.nextCursor());
+		CatalogPage second = renderer.slice(CatalogResource.FILMS, rendered, query);
+		assertEquals("3", second.data().get(0).get("id").asText());
+		assertNull(second.nextCursor());
+		assertNotEquals(first.etag(), second.etag());
+	}
+
+	/**
+	 * Tests that pages are counted from zero and that unknown fields and cursors are rejected.
+	 */
+	@Test
+	void testSliceByPageAndInvalidQueries() {
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS,
+				new CatalogEntry<>(List.of(film("1"), film("2"), film("3")), Instant.now()));
+		CatalogQuery query = new CatalogQuery();
+		query.setPage(1);
+		query.setSize(2);
+		assertEquals("3", renderer.slice(CatalogResource.FILMS, rendered, query).data().get(0).get("id").asText());
+
+		query.setPage(5);
+		assertTrue(renderer.slice(CatalogResource.FILMS, rendered, query).data().isEmpty());
+
+		query.setFields(Set.of("id", "budget"));
+		assertThrows(IllegalArgumentException.class, () -> renderer.slice(CatalogResource.FILMS, rendered, query));
+
+		query.setFields(null);
+		query.setCursor("bm9wZQ");
+		assertThrows(IllegalArgumentException.class, () -> renderer.slice(CatalogResource.FILMS, rendered, query));
+	}
+
+	/**
+	 * Tests that entities are found by id and that unknown ids are reported as missing.
+	 */
+	@Test
+	void testFindById() {
+		CatalogEntry<Films> entry = new CatalogEntry<>(List.of(film("1"), film("2")), Instant.now());
+
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS, entry);
+
+		assertEquals("2", rendered.node("2").orElseThrow().get("id").asText());
+		assertTrue(rendered.node("3").isEmpty());
+	}
+
+	/**
+	 * Tests that the selected rows are written one per line in order, with only the requested fields.
+	 */
+	@Test
+	void testWriteNdjson() throws IOException {
+		CatalogEntry<Films> entry = new CatalogEntry<>(List.of(film("1"), film("2"), film("3")), Instant.now());
+		RenderedCatalog rendered = renderer.render(CatalogResource.FILMS, entry);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		renderer.writeNdjson(rendered, new int[]{2, 0}, Set.of("id"), out);
+
+		assertEquals("{\"id\":\"3\"}\n{\"id\":\"1\"}\n", out.toString(StandardCharsets.UTF_8));
+
+		out.reset();
+		renderer.writeNdjson(rendered, null, null, out);
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("2", objectMapper.readTree(lines[1]).get("id").asText());
+	}
+
+	private static Films film(String id) {
+		Films film = new Films();
+		film.setId(id);
+		return film;
+	}
+}
@@ -0,0 +1,117 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.People;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class contains JUnit tests for the CatalogSearchIndex class.
+ * It tests the ranking, the prefix and CJK matching, the filtering of the collections by the roles of the caller and
+ * the reindexing of a new version.
+ */
+class CatalogSearchIndexTest {
+
+	private static final Predicate<CatalogResource<?>> READABLE =
+			resource -> resource == CatalogResource.FILMS || resource == CatalogResource.PEOPLE;
+
+	private CatalogSearchIndex index;
+
+	/**
+	 * This method creates an index over two films and one person.
+	 */
+	@BeforeEach
+	void setup() {
+		Films laputa = film("laputa", "Castle in the Sky", "天空の城ラピュタ", "Tenkū no shiro Rapyuta",
+				"The orphan Sheeta inherited a mysterious crystal.");
+		Films howl = film("howl", "Howl's Moving Castle", "ハウルの動く城", "Hauru no Ugoku Shiro",
+				"A love story between an 18-year-old girl named Sophie and the wizard Howl.");
+		People sheeta = new People();
+		sheeta.setId("sheeta");
+		sheeta.setName("Sheeta");
+
+		CatalogCache cache = mock(CatalogCache.class);
+		when(cache.getEntry(CatalogResource.FILMS)).thenReturn(new CatalogEntry<>(List.of(laputa, howl), Instant.now()));
+		when(cache.getEntry(CatalogResource.PEOPLE)).thenReturn(new CatalogEntry<>(List.of(sheeta), Instant.now()));
+		index = new CatalogSearchIndex(cache, new CatalogRenderer(new ObjectMapper()));
+	}
+
+	/**
+	 * Tests that every term must match, the last one as a prefix, and that matches in titles rank first.
+	 */
+	@Test
+	void testRankingAndPrefix() {
+		List<CatalogSearchHit> hits = index.search("castle sk", 10, READABLE);
+		assertEquals(List.of("laputa"), hits.stream().map(CatalogSearchHit::id).toList());
+
+		hits = index.search("Sheeta", 10, READABLE);
+		assertEquals("sheeta", hits.get(0).id());
+		assertEquals("people", hits.get(0).resource());
+		assertEquals("laputa", hits.get(1).id());
+	}
+
+	/**
+	 * Tests that Japanese titles are matched by bigrams and single characters, and romanised ones without diacritics.
+	 */
+	@Test
+	void testCjkAndDiacritics() {
+		assertEquals(List.of("laputa"), index.search("天空", 10, READABLE).stream().map(CatalogSearchHit::id).toList());
+		assertEquals(2, index.search("城", 10, READABLE).size());
+		assertEquals(List.of("laputa"), index.search("TENKU", 10, READABLE).stream().map(CatalogSearchHit::id).toList());
+	}
+
+	/**
+	 * Tests that collections the caller can not read are not searched and that empty queries are rejected.
+	 */
+	@Test
+	void testRolesAndInvalidQueries() {
+		List<CatalogSearchHit> hits = index.search("sheeta", 10, resource -> resource == CatalogResource.FILMS);
+		assertEquals(List.of("films"), hits.stream().map(CatalogSearchHit::resource).distinct().toList());
+		assertThrows(IllegalArgumentException.class, () -> index.search(" ?! ", 10, READABLE));
+	}
+
+	/**
+	 * Tests that a new version is searched with the changed entities reindexed and the unchanged ones kept.
+	 */
+	@Test
+	void testNewVersionIsReindexed() {
+		Films laputa = film("laputa", "Castle in the Sky", null, null, null);
+		Films totoro = film("totoro", "My Neighbor Totoro", null, null, null);
+		CatalogEntry<Films> first = new CatalogEntry<>(List.of(laputa, totoro), Instant.now());
+		CatalogEntry<Films> second = new CatalogEntry<>(List.of(laputa, film("totoro", "Tonari no Totoro", null, null, null),
+				film("porco", "Porco Rosso", null, null, null)), Instant.now());
+		CatalogCache cache = mock(CatalogCache.class);
+		when(cache.getEntry(CatalogResource.FILMS)).thenReturn(first, second);
+		CatalogSearchIndex index = new CatalogSearchIndex(cache, new CatalogRenderer(new ObjectMapper()));
+		assertEquals(List.of("totoro"), index.search("neighbor", 10, READABLE).stream().map(CatalogSearchHit::id).toList());
+
+		index.onPublished(new CatalogPublishedEvent(CatalogSnapshot.empty().with(Map.of(CatalogResource.FILMS, second)),
+				Set.of(CatalogResource.FILMS)));
+
+		assertTrue(index.search("neighbor", 10, READABLE).isEmpty());
+		assertEquals(List.of("totoro"), index.search("tonari", 10, READABLE).stream().map(CatalogSearchHit::id).toList());
+		assertEquals(List.of("porco"), index.search("porco", 10, READABLE).stream().map(CatalogSearchHit::id).toList());
+		assertEquals(List.of("laputa"), index.search("castle", 10, READABLE).stream().map(CatalogSearchHit::id).toList());
+	}
+
+	private static Films film(String id, String title, String originalTitle, String romanised, String description) {
+		Films film = new Films();
+		film.setId(id);
+		film.setTitle(title);
+		film.setOriginal_title(originalTitle);
+		film.setOriginal_title_romanised(romanised);
+		film.setDescription(description);
+		return film;
+	}
+}
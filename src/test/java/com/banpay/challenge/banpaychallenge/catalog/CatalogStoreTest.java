@@ -0,0 +1,133 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.BanpayChallengeApplication;
+import com.banpay.challenge.banpaychallenge.models.CatalogSnapshotRecord;
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.repository.CatalogSnapshotRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains integration tests for the CatalogStore class against a PostgreSQL container.
+ * It tests that the stored versions of the catalog survive a restart of the application and that concurrent writes of
+ * a resource do not collide on a version.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CatalogStoreTest {
+
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+	/**
+	 * This method starts the PostgreSQL container before all tests.
+	 */
+	@BeforeAll
+	public static void beforeAll() {
+		postgres.start();
+	}
+
+	/**
+	 * This method stops the PostgreSQL container after all tests.
+	 */
+	@AfterAll
+	public static void afterAll() {
+		postgres.stop();
+	}
+
+	/**
+	 * This method clears the stored versions left by the previous test, since they survive the application on purpose.
+	 */
+	@BeforeEach
+	void setup() {
+		try (ConfigurableApplicationContext context = start("http://localhost:1")) {
+			context.getBean(CatalogSnapshotRepository.class).deleteAll();
+		}
+	}
+
+	/**
+	 * Tests that the films fetched by a first run of the application are served by a second run that can not reach
+	 * the API, loaded from the database before any request.
+	 */
+	@Test
+	void testStoredSnapshotSurvivesRestart() throws InterruptedException {
+		List<Films> films;
+		try (FakeGhibliApi api = new FakeGhibliApi();
+			 ConfigurableApplicationContext context = start(api.url())) {
+			films = context.getBean(CatalogCache.class).get(CatalogResource.FILMS);
+			CatalogStore store = context.getBean(CatalogStore.class);
+			for (int i = 0; i < 100 && store.load(CatalogResource.FILMS).isEmpty(); i++) {
+				Thread.sleep(50);
+			}
+		}
+		assertFalse(films.isEmpty());
+
+		try (ConfigurableApplicationContext context = start("http://localhost:1")) {
+			CatalogEntry<Films> entry = context.getBean(CatalogCache.class).getSnapshot().get(CatalogResource.FILMS);
+			assertNotNull(entry);
+			assertEquals(films, entry.data());
+		}
+	}
+
+	/**
+	 * Tests that writes of the same resource running at once take distinct versions, and that the entry fetched last
+	 * ends up as the latest version whatever order the writes ran in.
+	 */
+	@Test
+	void testConcurrentSavesTakeDistinctVersions() throws Exception {
+		try (FakeGhibliApi api = new FakeGhibliApi();
+			 ConfigurableApplicationContext context = start(api.url());
+			 ExecutorService executor = Executors.newFixedThreadPool(4)) {
+			CatalogStore store = context.getBean(CatalogStore.class);
+			List<Films> films = context.getBean(CatalogCache.class).fetch(CatalogResource.FILMS).data();
+			Instant fetchedAt = Instant.parse("2024-05-13T00:00:00Z");
+
+			List<Future<?>> saves = new ArrayList<>();
+			for (int i = 1; i <= films.size(); i++) {
+				CatalogEntry<Films> entry = new CatalogEntry<>(films.subList(0, i), fetchedAt.plusSeconds(i));
+				saves.add(executor.submit(() -> store.save(CatalogResource.FILMS, entry)));
+			}
+			for (Future<?> save : saves) {
+				save.get();
+			}
+
+			List<Long> versions = context.getBean(CatalogSnapshotRepository.class).findAll().stream()
+					.filter(record -> record.getResource().equals("films"))
+					.map(CatalogSnapshotRecord::getVersion)
+					.toList();
+			assertEquals(versions.size(), versions.stream().distinct().count());
+			Optional<CatalogEntry<Films>> latest = store.load(CatalogResource.FILMS);
+			assertTrue(latest.isPresent());
+			assertEquals(films, latest.get().data());
+		}
+	}
+
+	/**
+	 * Starts the application against the PostgreSQL container, with the periodic refresh of the catalog disabled.
+	 */
+	private static ConfigurableApplicationContext start(String apiUrl) {
+		return new SpringApplicationBuilder(BanpayChallengeApplication.class).run(
+				"--spring.profiles.active=dev",
+				"--spring.datasource.url=" + postgres.getJdbcUrl(),
+				"--spring.datasource.username=" + postgres.getUsername(),
+				"--spring.datasource.password=" + postgres.getPassword(),
+				"--spring.docker.compose.enabled=false",
+				"--server.port=0",
+				"--studio-ghibli.api.url=" + apiUrl,
+				"--studio-ghibli.api.refresh.enabled=false");
+	}
+}
@@ -0,0 +1,191 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.People;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * This class contains JUnit tests for the CatalogUpdateStream class.
+ * It tests that the changes are pushed to the subscribers that can read them, that a reconnecting client gets what it
+ * missed, that slow subscribers are dropped and that the number of subscribers is bounded.
+ */
+class CatalogUpdateStreamTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private CatalogProperties properties;
+	private CatalogChangeLog changeLog;
+	private CatalogUpdateStream stream;
+	private CatalogSnapshot snapshot;
+
+	/**
+	 * This method creates a stream fed by a change log.
+	 */
+	@BeforeEach
+	void setup() {
+		properties = new CatalogProperties();
+		properties.getChanges().setRetainedVersions(2);
+		changeLog = new CatalogChangeLog(new CatalogRenderer(new ObjectMapper()), properties, event -> {
+			if (event instanceof CatalogChangedEvent changed && stream != null) {
+				stream.onChanged(changed);
+			}
+		});
+		snapshot = CatalogSnapshot.empty();
+	}
+
+	/**
+	 * This method stops the threads of the subscribers.
+	 */
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Tests that the changes of a collection are pushed with the token of the version as id, and only to the subscribers
+	 * that can read it.
+	 */
+	@Test
+	void testChangesArePushed() throws Exception {
+		MockMvc mvc = mvc(Set.of(CatalogResource.FILMS));
+		MvcResult result = mvc.perform(get("/updates")).andExpect(request().asyncStarted()).andReturn();
+
+		publish(CatalogResource.PEOPLE, person("sheeta"));
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"));
+
+		String token = changeLog.version(2).toString();
+		String content = await(result, "\"version\":\"" + token + "\"");
+		assertTrue(content.contains("id:" + token + "\nevent:catalog\ndata:{\"resource\":\"films\",\"version\":\"" + token + "\",\"added\":[\"1\"]"));
+		assertFalse(content.contains("people"));
+		assertEquals(1, meterRegistry.get("catalog.stream.subscribers").gauge().value());
+	}
+
+	/**
+	 * Tests that a reconnecting client gets the changes since its last event, or a "resync" event once they are gone or
+	 * when its last event was sent by another run of the application.
+	 */
+	@Test
+	void testReconnectingClientCatchesUp() throws Exception {
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"));
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"), film("2", "My Neighbor Totoro"));
+		MockMvc mvc = mvc(Set.of(CatalogResource.FILMS));
+
+		MvcResult caughtUp = mvc.perform(get("/updates").header("Last-Event-ID", changeLog.version(1).toString())).andReturn();
+		assertTrue(await(caughtUp, "\"version\":\"" + changeLog.version(2) + "\"").contains("\"added\":[\"2\"]"));
+		MvcResult otherRun = mvc.perform(get("/updates").header("Last-Event-ID", "previous.1")).andReturn();
+		assertTrue(await(otherRun, "event:resync").contains("event:resync"));
+
+		publish(CatalogResource.FILMS, film("2", "My Neighbor Totoro"));
+		publish(CatalogResource.FILMS, film("3", "Porco Rosso"));
+		MvcResult resync = mvc.perform(get("/updates").header("Last-Event-ID", changeLog.version(1).toString())).andReturn();
+		assertTrue(await(resync, "event:resync").contains("event:resync"));
+	}
+
+	/**
+	 * Tests that a subscriber whose queue is full is dropped and that subscriptions beyond the maximum are refused.
+	 */
+	@Test
+	void testSlowSubscribersAndMaximum() {
+		properties.getStream().setQueueCapacity(1);
+		properties.getStream().setMaxSubscribers(1);
+		stream = new CatalogUpdateStream(changeLog, properties, command -> {
+		}, meterRegistry);
+
+		assertTrue(stream.subscribe(resource -> true, null, null).isPresent());
+		assertTrue(stream.subscribe(resource -> true, null, null).isEmpty());
+
+		publish(CatalogResource.FILMS, film("1", "Castle in the Sky"));
+		publish(CatalogResource.FILMS, film("2", "My Neighbor Totoro"));
+
+		assertEquals(1, meterRegistry.get("catalog.stream.dropped").counter().count());
+		assertEquals(0, meterRegistry.get("catalog.stream.subscribers").gauge().value());
+		assertTrue(stream.subscribe(resource -> true, null, null).isPresent());
+	}
+
+	/**
+	 * Tests that a comment is sent when there is no update for a heartbeat.
+	 */
+	@Test
+	void testHeartbeat() throws Exception {
+		properties.getStream().setHeartbeat(Duration.ofMillis(20));
+		MvcResult result = mvc(Set.of()).perform(get("/updates")).andReturn();
+
+		assertTrue(await(result, ":heartbeat").contains(":heartbeat"));
+	}
+
+	private MockMvc mvc(Set<CatalogResource<?>> readable) {
+		stream = new CatalogUpdateStream(changeLog, properties, executor, meterRegistry);
+		return MockMvcBuilders.standaloneSetup(new Endpoint(stream, readable)).build();
+	}
+
+	private void publish(CatalogResource<?> resource, Object... entities) {
+		snapshot = snapshot.with(Map.of(resource, new CatalogEntry<>(List.of(entities), Instant.now())));
+		changeLog.onPublished(new CatalogPublishedEvent(snapshot, Set.of(resource)));
+	}
+
+	private static String await(MvcResult result, String expected) throws Exception {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		String content = result.getResponse().getContentAsString();
+		while (!content.contains(expected) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			content = result.getResponse().getContentAsString();
+		}
+		return content;
+	}
+
+	private static Films film(String id, String title) {
+		Films film = new Films();
+		film.setId(id);
+		film.setTitle(title);
+		return film;
+	}
+
+	private static People person(String id) {
+		People person = new People();
+		person.setId(id);
+		return person;
+	}
+
+	/**
+	 * This class exposes the stream to MockMvc, which initializes the emitters like the RoleController does.
+	 */
+	@RestController
+	static class Endpoint {
+
+		private final CatalogUpdateStream stream;
+		private final Set<CatalogResource<?>> readable;
+
+		Endpoint(CatalogUpdateStream stream, Set<CatalogResource<?>> readable) {
+			this.stream = stream;
+			this.readable = readable;
+		}
+
+		@GetMapping("/updates")
+		SseEmitter updates(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+			return stream.subscribe(readable::contains, lastEventId, null).orElseThrow();
+		}
+	}
+}
@@ -0,0 +1,427 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * This class is a local stand-in of the Studio Ghibli API, for load tests and for reproducing incidents of the API.
+ * <p>
+ * It serves "/films", "/people", "/locations", "/species" and "/vehicles", and each entity by id, from fixture JSON:
+ * by default the dumps of the test resources, or a directory holding one dump per resource. Responses carry an ETag
+ * and answer "304 Not Modified" to a matching If-None-Match, like the API does.
+ * </p>
+ * <p>
+ * Faults are injected on every request and can be changed while it runs, so a test can start an incident halfway:
+ * </p>
+ * <ul>
+ *     <li>a {@link Latency} distribution waited before answering, for example a log-normal with rare spikes;</li>
+ *     <li>an error rate, the share of requests answered with an error status, optionally with a Retry-After;</li>
+ *     <li>a slow drip, sending the body in small chunks with a pause after each one;</li>
+ *     <li>a payload multiplier per resource, synthesizing copies of the fixtures with new ids so a resource holds
+ *     thousands of entities.</li>
+ * </ul>
+ * <p>
+ * Run its main method with the test classpath to start it standalone, then point "studio-ghibli.api.url" at it.
+ * The options are "--port=8089", "--fixtures=/path/to/dumps", "--latency=lognormal:40ms:0.8,spike:0.01:3s",
+ * "--error-rate=0.05", "--error-status=503", "--retry-after=1", "--drip=512:20ms" and "--multiply=films:1000";
+ * the latency takes "fixed:50ms", "uniform:10ms:200ms" or "lognormal:median:sigma", each optionally followed by
+ * ",spike:probability:duration".
+ * </p>
+ */
+public class FakeGhibliApi implements AutoCloseable {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpServer server;
+	private final Map<String, ArrayNode> fixtures = new HashMap<>();
+	private final Map<String, Integer> multipliers = new ConcurrentHashMap<>();
+	private final Map<String, Rendered> rendered = new ConcurrentHashMap<>();
+	private final AtomicLong requests = new AtomicLong();
+
+	private volatile Latency latency = Latency.none();
+	private volatile double errorRate;
+	private volatile int errorStatus = 503;
+	private volatile Duration retryAfter = Duration.ZERO;
+	private volatile int dripChunk;
+	private volatile Duration dripPause = Duration.ZERO;
+
+	/**
+	 * Starts the stand-in on the given port, serving the given fixtures.
+	 *
+	 * @param port     the port to listen on, 0 for a free one
+	 * @param fixtures the directory holding one dump per resource, like "films.json"
+	 */
+	public FakeGhibliApi(int port, Path fixtures) {
+		try {
+			for (CatalogResource<?> resource : CatalogResource.values()) {
+				Path dump = fixtures.resolve(resource.getName() + ".json");
+				this.fixtures.put(resource.getName(), Files.exists(dump)
+						? (ArrayNode) objectMapper.readTree(dump.toFile())
+						: objectMapper.createArrayNode());
+			}
+			server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	/**
+	 * Starts the stand-in on a free port, serving the dumps of the test resources.
+	 */
+	public FakeGhibliApi() {
+		this(0, defaultFixtures());
+	}
+
+	/**
+	 * Starts the stand-in standalone and keeps it running until the process is stopped.
+	 *
+	 * @param args the options described in the class documentation
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			String[] option = arg.replaceFirst("^--", "").split("=", 2);
+			options.put(option[0], option.length > 1 ? option[1] : "true");
+		}
+		FakeGhibliApi api = new FakeGhibliApi(Integer.parseInt(options.getOrDefault("port", "8089")),
+											  options.containsKey("fixtures") ? Path.of(options.get("fixtures")) : defaultFixtures());
+		if (options.containsKey("latency")) {
+			api.latency(Latency.parse(options.get("latency")));
+		}
+		api.errors(Double.parseDouble(options.getOrDefault("error-rate", "0")),
+				   Integer.parseInt(options.getOrDefault("error-status", "503")),
+				   Duration.ofSeconds(Long.parseLong(options.getOrDefault("retry-after", "0"))));
+		if (options.containsKey("drip")) {
+			String[] drip = options.get("drip").split(":");
+			api.drip(Integer.parseInt(drip[0]), DurationStyle.detectAndParse(drip[1]));
+		}
+		if (options.containsKey("multiply")) {
+			for (String multiplier : options.get("multiply").split(",")) {
+				String[] parts = multiplier.split(":");
+				api.multiply(CatalogResource.fromName(parts[0]).orElseThrow(), Integer.parseInt(parts[1]));
+			}
+		}
+		System.out.println("Studio Ghibli stand-in listening on " + api.url());
+		Runtime.getRuntime().addShutdownHook(new Thread(api::close));
+		new CountDownLatch(1).await();
+	}
+
+	/**
+	 * Sets the latency waited before answering each request.
+	 *
+	 * @param latency the latency distribution
+	 * @return this stand-in
+	 */
+	public FakeGhibliApi latency(Latency latency) {
+		this.latency = latency;
+		return this;
+	}
+
+	/**
+	 * Sets the share of requests answered with an error.
+	 *
+	 * @param rate       the share of requests failing, between 0 and 1
+	 * @param status     the status of the failing responses
+	 * @param retryAfter the Retry-After sent with the failing responses, zero for none
+	 * @return this stand-in
+	 */
+	public FakeGhibliApi errors(double rate, int status, Duration retryAfter) {
+		this.errorRate = rate;
+		this.errorStatus = status;
+		this.retryAfter = retryAfter;
+		return this;
+	}
+
+	/**
+	 * Sends the bodies in chunks with a pause after each one, or at once when the chunk size is 0.
+	 *
+	 * @param chunkSize the size of each chunk in bytes
+	 * @param pause     the pause after each chunk
+	 * @return this stand-in
+	 */
+	public FakeGhibliApi drip(int chunkSize, Duration pause) {
+		this.dripChunk = chunkSize;
+		this.dripPause = pause;
+		return this;
+	}
+
+	/**
+	 * Serves the given number of copies of each fixture of a resource. Copies after the first one get the id, and the
+	 * title or name, of the original with a suffix.
+	 *
+	 * @param resource   the resource
+	 * @param multiplier the number of copies, 1 for the fixtures as they are
+	 * @return this stand-in
+	 */
+	public FakeGhibliApi multiply(CatalogResource<?> resource, int multiplier) {
+		multipliers.put(resource.getName(), Math.max(1, multiplier));
+		rendered.remove(resource.getName());
+		return this;
+	}
+
+	/**
+	 * Removes every fault: no latency, no errors, no drip and no copies. The error status and the Retry-After go back
+	 * to their defaults, "503 Service Unavailable" without Retry-After.
+	 *
+	 * @return this stand-in
+	 */
+	public FakeGhibliApi reset() {
+		latency = Latency.none();
+		errorRate = 0;
+		errorStatus = 503;
+		retryAfter = Duration.ZERO;
+		dripChunk = 0;
+		dripPause = Duration.ZERO;
+		multipliers.clear();
+		rendered.clear();
+		return this;
+	}
+
+	public String url() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * Retrieves the number of requests received since the start.
+	 *
+	 * @return the number of requests
+	 */
+	public long requests() {
+		return requests.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try (exchange) {
+			pause(latency.next(ThreadLocalRandom.current()));
+			if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+				if (retryAfter.isPositive()) {
+					exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter.toSeconds()));
+				}
+				send(exchange, errorStatus, "{\"error\":\"Injected failure\"}".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+			if (!fixtures.containsKey(path[0]) || path.length > 2) {
+				send(exchange, 404, "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			Rendered body = path.length == 1 ? rendered.computeIfAbsent(path[0], this::render) : renderOne(path[0], path[1]);
+			if (body == null) {
+				send(exchange, 404, "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			exchange.getResponseHeaders().add("ETag", body.etag());
+			if (body.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			send(exchange, 200, body.bytes());
+		}
+	}
+
+	private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+		int chunk = dripChunk;
+		if (chunk <= 0) {
+			exchange.sendResponseHeaders(status, body.length);
+			exchange.getResponseBody().write(body);
+			return;
+		}
+		exchange.sendResponseHeaders(status, 0);
+		OutputStream out = exchange.getResponseBody();
+		for (int offset = 0; offset < body.length; offset += chunk) {
+			out.write(body, offset, Math.min(chunk, body.length - offset));
+			out.flush();
+			pause(dripPause);
+		}
+	}
+
+	private Rendered render(String name) {
+		ArrayNode fixture = fixtures.get(name);
+		int multiplier = multipliers.getOrDefault(name, 1);
+		ArrayNode collection = objectMapper.createArrayNode();
+		for (int copy = 0; copy < multiplier; copy++) {
+			for (JsonNode entity : fixture) {
+				collection.add(copy == 0 ? entity : copy((ObjectNode) entity, copy));
+			}
+		}
+		return rendered(collection);
+	}
+
+	private Rendered renderOne(String name, String id) {
+		for (JsonNode entity : rendered.computeIfAbsent(name, this::render).node()) {
+			if (id.equals(entity.path("id").asText())) {
+				return rendered(entity);
+			}
+		}
+		return null;
+	}
+
+	private ObjectNode copy(ObjectNode entity, int copy) {
+		ObjectNode clone = entity.deepCopy();
+		String id = entity.path("id").asText() + "-" + copy;
+		clone.put("id", id);
+		for (String label : new String[]{"title", "name"}) {
+			if (entity.hasNonNull(label)) {
+				clone.put(label, entity.get(label).asText() + " #" + copy);
+			}
+		}
+		if (entity.hasNonNull("url")) {
+			clone.put("url", entity.get("url").asText().replaceFirst("[^/]*$", id));
+		}
+		return clone;
+	}
+
+	private Rendered rendered(JsonNode node) {
+		try {
+			byte[] bytes = objectMapper.writeValueAsBytes(node);
+			return new Rendered(node, bytes, "\"" + Digests.sha256(bytes) + "\"");
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void pause(Duration duration) {
+		if (duration.isPositive()) {
+			try {
+				Thread.sleep(duration);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static Path defaultFixtures() {
+		try {
+			return Path.of(FakeGhibliApi.class.getResource("/catalog").toURI());
+		}
+		catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * This record represents a body ready to be sent, with its ETag.
+	 *
+	 * @param node  the JSON tree of the body
+	 * @param bytes the JSON body
+	 * @param etag  the strong ETag of the body
+	 */
+	private record Rendered(JsonNode node, byte[] bytes, String etag) {
+	}
+
+	/**
+	 * This interface describes a distribution of latencies.
+	 */
+	@FunctionalInterface
+	public interface Latency {
+
+		/**
+		 * Draws the latency of a request.
+		 *
+		 * @param random the source of randomness
+		 * @return the latency, never negative
+		 */
+		Duration next(RandomGenerator random);
+
+		static Latency none() {
+			return random -> Duration.ZERO;
+		}
+
+		static Latency fixed(Duration latency) {
+			return random -> latency;
+		}
+
+		/**
+		 * Draws latencies evenly between two bounds.
+		 *
+		 * @param min the lowest latency
+		 * @param max the highest latency
+		 * @return the distribution
+		 */
+		static Latency uniform(Duration min, Duration max) {
+			return random -> Duration.ofNanos(random.nextLong(min.toNanos(), max.toNanos() + 1));
+		}
+
+		/**
+		 * Draws latencies from a log-normal distribution, the usual shape of service latencies with a long tail.
+		 * With a sigma of 1 the p99 is about ten times the median.
+		 *
+		 * @param median the median latency
+		 * @param sigma  the standard deviation of the logarithm of the latency
+		 * @return the distribution
+		 */
+		static Latency logNormal(Duration median, double sigma) {
+			return random -> Duration.ofNanos((long) (median.toNanos() * Math.exp(sigma * random.nextGaussian())));
+		}
+
+		/**
+		 * Adds a spike to some of the latencies of this distribution, like a garbage collection pause or a cold start.
+		 *
+		 * @param probability the share of requests hit by the spike, between 0 and 1
+		 * @param spike       the latency added to them
+		 * @return the distribution with spikes
+		 */
+		default Latency withSpikes(double probability, Duration spike) {
+			return random -> random.nextDouble() < probability ? next(random).plus(spike) : next(random);
+		}
+
+		/**
+		 * Parses a distribution, "fixed:50ms", "uniform:10ms:200ms" or "lognormal:40ms:0.8", optionally followed by
+		 * ",spike:0.01:3s".
+		 *
+		 * @param spec the description of the distribution
+		 * @return the distribution
+		 * @throws IllegalArgumentException if the description is not understood
+		 */
+		static Latency parse(String spec) {
+			Latency latency = null;
+			for (String part : spec.split(",")) {
+				String[] args = part.trim().split(":");
+				latency = switch (args[0]) {
+					case "fixed" -> fixed(DurationStyle.detectAndParse(args[1]));
+					case "uniform" -> uniform(DurationStyle.detectAndParse(args[1]), DurationStyle.detectAndParse(args[2]));
+					case "lognormal" -> logNormal(DurationStyle.detectAndParse(args[1]), Double.parseDouble(args[2]));
+					case "spike" -> (latency == null ? none() : latency)
+							.withSpikes(Double.parseDouble(args[1]), DurationStyle.detectAndParse(args[2]));
+					default -> throw new IllegalArgumentException("Unknown latency " + part);
+				};
+			}
+			return latency == null ? none() : latency;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the FakeGhibliApi class.
+ * It tests that the fixtures are served to the HttpCatalogSource, multiplied on demand, and that the injected faults
+ * reach the client.
+ */
+class FakeGhibliApiTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final HttpClient client = HttpClient.newHttpClient();
+	private FakeGhibliApi api;
+	private CatalogHttpClient httpClient;
+	private HttpCatalogSource source;
+
+	/**
+	 * This method starts the stand-in and a source reading from it.
+	 */
+	@BeforeEach
+	void setup() {
+		api = new FakeGhibliApi();
+		httpClient = new CatalogHttpClient(new CatalogProperties(), meterRegistry);
+		source = new HttpCatalogSource(httpClient, new ObjectMapper(), new CatalogMirrors(
+				List.of(api.url()), new CatalogProperties.Mirrors(), meterRegistry, Clock.systemUTC()));
+	}
+
+	/**
+	 * This method stops the stand-in.
+	 */
+	@AfterEach
+	void tearDown() {
+		httpClient.close();
+		api.close();
+	}
+
+	/**
+	 * Tests that the fixtures are served as they are, then as many copies with distinct ids once multiplied.
+	 */
+	@Test
+	void testFixturesAndMultiplier() {
+		List<Films> films = source.fetch(CatalogResource.FILMS);
+		assertEquals(3, films.size());
+		assertTrue(films.stream().anyMatch(film -> "Castle in the Sky".equals(film.getTitle())));
+
+		api.multiply(CatalogResource.FILMS, 1000);
+		List<Films> multiplied = source.fetch(CatalogResource.FILMS);
+
+		assertEquals(3000, multiplied.size());
+		assertEquals(3000, multiplied.stream().map(Films::getId).distinct().count());
+		assertTrue(multiplied.stream().anyMatch(film -> "Castle in the Sky #999".equals(film.getTitle())));
+	}
+
+	/**
+	 * Tests that an entity is served by id and that a matching If-None-Match gets a "304 Not Modified".
+	 */
+	@Test
+	void testEntityAndNotModified() throws Exception {
+		String id = source.fetch(CatalogResource.FILMS).get(0).getId();
+
+		HttpResponse<String> first = get("/films/" + id, null);
+		HttpResponse<String> second = get("/films/" + id, first.headers().firstValue("ETag").orElseThrow());
+
+		assertEquals(200, first.statusCode());
+		assertTrue(first.body().contains(id));
+		assertEquals(304, second.statusCode());
+		assertEquals(404, get("/films/unknown", null).statusCode());
+		assertEquals(404, get("/unknown", null).statusCode());
+	}
+
+	/**
+	 * Tests that the error rate, the latency and the slow drip are applied to the responses.
+	 */
+	@Test
+	void testFaults() throws Exception {
+		api.errors(1, 503, Duration.ofSeconds(2));
+		HttpResponse<String> failed = get("/films", null);
+		assertEquals(503, failed.statusCode());
+		assertEquals("2", failed.headers().firstValue("Retry-After").orElseThrow());
+
+		api.reset().latency(FakeGhibliApi.Latency.fixed(Duration.ofMillis(100)));
+		long start = System.nanoTime();
+		assertEquals(200, get("/films", null).statusCode());
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+
+		api.reset().drip(100, Duration.ofMillis(10));
+		start = System.nanoTime();
+		HttpResponse<String> dripped = get("/films", null);
+		assertEquals(200, dripped.statusCode());
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(10L * (dripped.body().length() / 100)).toNanos());
+		assertEquals(3, source.fetch(CatalogResource.FILMS).size());
+	}
+
+	/**
+	 * Tests that the latency distributions are parsed and stay within their bounds.
+	 */
+	@Test
+	void testLatencyParse() {
+		SplittableRandom random = new SplittableRandom(42);
+		FakeGhibliApi.Latency uniform = FakeGhibliApi.Latency.parse("uniform:10ms:20ms");
+		for (int i = 0; i < 100; i++) {
+			Duration latency = uniform.next(random);
+			assertTrue(latency.compareTo(Duration.ofMillis(10)) >= 0 && latency.compareTo(Duration.ofMillis(20)) <= 0);
+		}
+		assertEquals(Duration.ofSeconds(3).plusMillis(50), FakeGhibliApi.Latency.parse("fixed:50ms,spike:1:3s").next(random));
+		assertTrue(FakeGhibliApi.Latency.parse("lognormal:40ms:0.8").next(random).isPositive());
+		assertThrows(IllegalArgumentException.class, () -> FakeGhibliApi.Latency.parse("gamma:1ms"));
+	}
+
+	private HttpResponse<String> get(String path, String etag) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(api.url() + path));
+		if (etag != null) {
+			request.header("If-None-Match", etag);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,60 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.banpay.challenge.banpaychallenge.models.Vehicles;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the FileCatalogSource class.
+ * It tests reading the catalog from a directory with one dump per resource and from a single dump file.
+ */
+class FileCatalogSourceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Tests reading every resource from a directory of dumps.
+	 */
+	@Test
+	void testDirectoryOfDumps() throws URISyntaxException {
+		FileCatalogSource source = new FileCatalogSource(fixtures(), objectMapper);
+
+		List<Films> films = source.fetch(CatalogResource.FILMS);
+		assertEquals(3, films.size());
+		assertEquals("Castle in the Sky", films.get(0).getTitle());
+		assertEquals("天空の城ラピュタ", films.get(0).getOriginal_title());
+		for (CatalogResource<?> resource : CatalogResource.values()) {
+			assertFalse(source.fetch(resource).isEmpty(), resource.getName());
+		}
+	}
+
+	/**
+	 * Tests reading resources from a single dump holding one array per resource, including a missing and an empty one.
+	 */
+	@Test
+	void testSingleDump(@TempDir Path directory) throws Exception {
+		String films = Files.readString(fixtures().resolve("films.json"));
+		Path dump = Files.writeString(directory.resolve("catalog.json"),
+				"{\"meta\": {\"source\": [1, 2]}, \"vehicles\": [], \"films\": " + films + "}");
+		FileCatalogSource source = new FileCatalogSource(dump, objectMapper);
+
+		List<Films> read = source.fetch(CatalogResource.FILMS);
+		assertEquals(List.of(objectMapper.readValue(films, Films[].class)), read);
+		List<Vehicles> vehicles = source.fetch(CatalogResource.VEHICLES);
+		assertTrue(vehicles.isEmpty());
+		assertTrue(source.fetch(CatalogResource.PEOPLE).isEmpty());
+	}
+
+	private static Path fixtures() throws URISyntaxException {
+		return Path.of(FileCatalogSourceTest.class.getResource("/catalog").toURI());
+	}
+}
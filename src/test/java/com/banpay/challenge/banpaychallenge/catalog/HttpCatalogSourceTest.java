@@ -0,0 +1,135 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.banpay.challenge.banpaychallenge.models.Films;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the HttpCatalogSource class.
+ * It tests that the requests are conditional, that an unchanged collection is not read again and that a failing
+ * mirror is failed over within the timeout of the fetch.
+ */
+class HttpCatalogSourceTest {
+
+	private static final String FILMS = "[{\"id\":\"1\",\"title\":\"Castle in the Sky\"}]";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private StubUpstream upstream;
+	private StubUpstream mirror;
+	private CatalogHttpClient httpClient;
+	private HttpCatalogSource source;
+
+	/**
+	 * This method creates a source backed by a local stand-in of the API, with a second one as its mirror.
+	 */
+	@BeforeEach
+	void setup() {
+		upstream = new StubUpstream();
+		mirror = new StubUpstream();
+		httpClient = new CatalogHttpClient(new CatalogProperties(), meterRegistry);
+		source = new HttpCatalogSource(httpClient, new ObjectMapper(), new CatalogMirrors(
+				List.of(upstream.url(), mirror.url()), new CatalogProperties.Mirrors(), meterRegistry, Clock.systemUTC()));
+	}
+
+	/**
+	 * This method stops the stand-ins of the API.
+	 */
+	@AfterEach
+	void tearDown() {
+		httpClient.close();
+		upstream.close();
+		mirror.close();
+	}
+
+	/**
+	 * Tests that the ETag of the previous response is sent back and that a "304 Not Modified" keeps the same list.
+	 */
+	@Test
+	void testNotModifiedKeepsPreviousList() {
+		upstream.reply(200, FILMS, Map.of("ETag", "\"v1\""), 0).reply(304, "");
+
+		List<Films> first = source.fetch(CatalogResource.FILMS);
+		List<Films> second = source.fetch(CatalogResource.FILMS);
+
+		assertEquals("Castle in the Sky", first.get(0).getTitle());
+		assertSame(first, second);
+		assertNull(upstream.requests().get(0).getFirst("If-None-Match"));
+		assertEquals("\"v1\"", upstream.requests().get(1).getFirst("If-None-Match"));
+	}
+
+	/**
+	 * Tests that a full response with the same body keeps the same list, while a different body is read again.
+	 */
+	@Test
+	void testIdenticalBodyIsNotParsedAgain() {
+		upstream.reply(200, FILMS).reply(200, FILMS).reply(200, "[]");
+
+		List<Films> first = source.fetch(CatalogResource.FILMS);
+		assertSame(first, source.fetch(CatalogResource.FILMS));
+		assertTrue(source.fetch(CatalogResource.FILMS).isEmpty());
+		assertEquals(3, upstream.requests().size());
+	}
+
+	/**
+	 * Tests that a failing mirror is failed over, and that its failures are published.
+	 */
+	@Test
+	void testFailover() {
+		upstream.reply(500, "");
+		mirror.reply(200, FILMS);
+
+		List<Films> films = source.fetch(CatalogResource.FILMS);
+
+		assertEquals("Castle in the Sky", films.get(0).getTitle());
+		assertEquals(1, upstream.requests().size());
+		assertEquals(1, mirror.requests().size());
+		assertTrue(meterRegistry.get("catalog.upstream.mirror.error-rate").tag("mirror", upstream.url()).gauge().value() > 0);
+	}
+
+	/**
+	 * Tests that the mirrors share the total timeout of a fetch, so a mirror that used it up is not failed over.
+	 */
+	@Test
+	void testFailoverSharesTimeout() {
+		CatalogProperties properties = new CatalogProperties();
+		properties.getHttp().setTimeout(Duration.ofMillis(200));
+		httpClient.close();
+		httpClient = new CatalogHttpClient(properties, meterRegistry);
+		source = new HttpCatalogSource(httpClient, new ObjectMapper(), new CatalogMirrors(
+				List.of(upstream.url(), mirror.url()), new CatalogProperties.Mirrors(), meterRegistry, Clock.systemUTC()));
+		upstream.reply(200, FILMS, Map.of(), 2000);
+		mirror.reply(200, FILMS, Map.of(), 2000);
+
+		long start = System.nanoTime();
+		assertThrows(CatalogUpstreamException.class, () -> source.fetch(CatalogResource.FILMS));
+
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+		assertEquals(0, mirror.requests().size());
+	}
+
+	/**
+	 * Tests that two mirrors served by the same host under different paths get their own health and circuit breakers.
+	 */
+	@Test
+	void testMirrorsOnSameHost() {
+		source = new HttpCatalogSource(httpClient, new ObjectMapper(), new CatalogMirrors(
+				List.of(upstream.url() + "/a", upstream.url() + "/b"), new CatalogProperties.Mirrors(), meterRegistry, Clock.systemUTC()));
+		upstream.reply(500, "").reply(200, FILMS);
+
+		assertEquals("Castle in the Sky", source.fetch(CatalogResource.FILMS).get(0).getTitle());
+
+		assertTrue(meterRegistry.get("catalog.upstream.mirror.error-rate").tag("mirror", upstream.url() + "/a").gauge().value() > 0);
+		assertEquals(0, meterRegistry.get("catalog.upstream.mirror.error-rate").tag("mirror", upstream.url() + "/b").gauge().value());
+		assertEquals(2, meterRegistry.get("catalog.upstream.circuit.failure-rate").tag("resource", "films").gauges().size());
+	}
+}
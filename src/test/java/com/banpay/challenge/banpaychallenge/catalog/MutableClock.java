@@ -0,0 +1,38 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when the test advances it.
+ */
+final class MutableClock extends Clock {
+
+	private Instant instant;
+
+	MutableClock(Instant instant) {
+		this.instant = instant;
+	}
+
+	void advance(Duration duration) {
+		instant = instant.plus(duration);
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return this;
+	}
+
+	@Override
+	public Instant instant() {
+		return instant;
+	}
+}
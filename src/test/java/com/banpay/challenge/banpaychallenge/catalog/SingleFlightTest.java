@@ -0,0 +1,115 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains JUnit tests for the SingleFlight class.
+ * It tests that concurrent callers for the same key share one execution and that failures, errors included, reach
+ * every caller.
+ */
+class SingleFlightTest {
+
+	private static final int CALLERS = 16;
+
+	/**
+	 * Tests that concurrent callers share a single execution of the loader and receive the same value.
+	 */
+	@Test
+	void testConcurrentCallersShareOneExecution() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < CALLERS; i++) {
+				results.add(executor.submit(() -> singleFlight.execute("films", () -> {
+					loads.incrementAndGet();
+					await(release);
+					return "value";
+				})));
+			}
+			while (singleFlight.getCoalesced("films") < CALLERS - 1) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("value", result.get());
+			}
+		}
+
+		assertEquals(1, loads.get());
+		assertEquals(1, singleFlight.getExecutions("films"));
+		assertEquals(CALLERS - 1, singleFlight.getCoalesced("films"));
+		assertFalse(singleFlight.isInFlight("films"));
+	}
+
+	/**
+	 * Tests that the key is released after a failure, so the next caller runs the loader again.
+	 */
+	@Test
+	void testFailureReleasesTheKey() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+		assertThrows(IllegalStateException.class, () -> singleFlight.execute("films", () -> {
+			throw new IllegalStateException("down");
+		}));
+		assertEquals("value", singleFlight.execute("films", () -> "value"));
+		assertEquals(2, singleFlight.getExecutions("films"));
+	}
+
+	/**
+	 * Tests that an error thrown by the loader reaches the coalesced callers instead of leaving them waiting forever.
+	 */
+	@Test
+	void testErrorReachesCoalescedCallers() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			Future<String> leader = executor.submit(() -> singleFlight.execute("films", () -> {
+				while (singleFlight.getCoalesced("films") < 1) {
+					Thread.onSpinWait();
+				}
+				throw new StackOverflowError("loader");
+			}));
+			while (!singleFlight.isInFlight("films")) {
+				Thread.onSpinWait();
+			}
+			Future<String> follower = executor.submit(() -> singleFlight.execute("films", () -> "value"));
+
+			ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+			ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(StackOverflowError.class, leaderFailure.getCause());
+			assertInstanceOf(StackOverflowError.class, followerFailure.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertFalse(singleFlight.isInFlight("films"));
+		assertEquals("value", singleFlight.execute("films", () -> "value"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.banpay.challenge.banpaychallenge.catalog;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a local HTTP server answering the requests of the tests with queued responses.
+ * Every request is recorded with its headers, so the tests can check what was sent.
+ */
+class StubUpstream implements AutoCloseable {
+
+	private final HttpServer server;
+	private final ConcurrentLinkedQueue<Reply> replies = new ConcurrentLinkedQueue<>();
+	private final List<Headers> requests = new CopyOnWriteArrayList<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+	private volatile Reply fallback = new Reply(500, "", Map.of(), 0);
+
+	/**
+	 * Starts the server on a free port.
+	 */
+	StubUpstream() {
+		try {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/", exchange -> {
+			peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			requests.add(exchange.getRequestHeaders());
+			Reply reply = replies.poll();
+			if (reply == null) {
+				reply = fallback;
+			}
+			if (reply.delayMillis() > 0) {
+				try {
+					Thread.sleep(reply.delayMillis());
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			reply.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+			byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(reply.status(), body.length == 0 ? -1 : body.length);
+			if (body.length > 0) {
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+			inFlight.decrementAndGet();
+		});
+		server.start();
+	}
+
+	/**
+	 * Queues the next response.
+	 *
+	 * @param status      the status of the response
+	 * @param body        the body of the response, empty for none
+	 * @param headers     the headers of the response
+	 * @param delayMillis the time to wait before answering
+	 * @return this server
+	 */
+	StubUpstream reply(int status, String body, Map<String, String> headers, long delayMillis) {
+		replies.add(new Reply(status, body, headers, delayMillis));
+		return this;
+	}
+
+	StubUpstream reply(int status, String body) {
+		return reply(status, body, Map.of(), 0);
+	}
+
+	/**
+	 * Sets the response sent when no response is queued, a "500 Internal Server Error" by default.
+	 *
+	 * @param status      the status of the response
+	 * @param body        the body of the response, empty for none
+	 * @param delayMillis the time to wait before answering
+	 * @return this server
+	 */
+	StubUpstream otherwise(int status, String body, long delayMillis) {
+		fallback = new Reply(status, body, Map.of(), delayMillis);
+		return this;
+	}
+
+	String url() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	List<Headers> requests() {
+		return new ArrayList<>(requests);
+	}
+
+	/**
+	 * Returns the highest number of requests answered at the same time, and starts counting again.
+	 *
+	 * @return the peak of requests in flight since the previous call
+	 */
+	int resetPeakInFlight() {
+		return peakInFlight.getAndSet(inFlight.get());
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private record Reply(int status, String body, Map<String, String> headers, long delayMillis) {
+	}
+}
@@ -0,0 +1,195 @@
+package com.banpay.challenge.banpaychallenge.controllers;
+
+import com.banpay.challenge.banpaychallenge.catalog.FakeGhibliApi;
+import com.banpay.challenge.banpaychallenge.payload.request.LoginRequest;
+import com.banpay.challenge.banpaychallenge.payload.request.SignupRequest;
+import com.banpay.challenge.banpaychallenge.security.services.UserService;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains integration tests for the asynchronous handlers of the RoleController.
+ * The application runs with a single servlet thread and the catalog is not loaded ahead, so each collection is first
+ * fetched from a slow stand-in of the Studio Ghibli API while a request waits for it. It tests that the servlet thread
+ * is released during that wait, and that the authorization of the request holds across its asynchronous dispatch.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers(disabledWithoutDocker = true)
+class RoleControllerAsyncTest {
+
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+	private static final FakeGhibliApi api = new FakeGhibliApi().latency(FakeGhibliApi.Latency.fixed(Duration.ofSeconds(2)));
+
+	private final String testUsername = "aguacate";
+	private final String testPassword = "Oaxaca06";
+	private final String testEmail = "arturo.info2@gmail.com";
+
+	@LocalServerPort
+	private Integer port;
+	@Autowired
+	private UserService userService;
+
+	/**
+	 * This method configures the properties of the PostgreSQL container connection, points the catalog at the slow
+	 * stand-in of the API without loading it ahead, and leaves a single servlet thread.
+	 */
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+		registry.add("studio-ghibli.api.url", api::url);
+		registry.add("studio-ghibli.api.refresh.enabled", () -> false);
+		registry.add("server.tomcat.threads.max", () -> 1);
+		registry.add("server.tomcat.threads.min-spare", () -> 1);
+	}
+
+	/**
+	 * This method starts the PostgreSQL container before all tests.
+	 */
+	@BeforeAll
+	public static void beforeAll() {
+		postgres.start();
+	}
+
+	/**
+	 * This method stops the PostgreSQL container and the stand-in of the API after all tests.
+	 */
+	@AfterAll
+	public static void afterAll() {
+		postgres.stop();
+		api.close();
+	}
+
+	/**
+	 * This method sets up the test environment before each test.
+	 */
+	@BeforeEach
+	public void setup() {
+		RestAssured.baseURI = "http://localhost:" + port;
+		RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
+
+		userService.deleteAllUsers();
+	}
+
+	/**
+	 * Verifies that a request waiting for the API on a cache miss does not hold the only servlet thread: another
+	 * request is answered while the first one still waits, and the first one is answered once the API is.
+	 */
+	@Test
+	void testServletThreadIsReleased() throws InterruptedException {
+		String authorizationToken = signupAndSignin("locations");
+		long before = api.requests();
+		CompletableFuture<Response> locations = CompletableFuture.supplyAsync(
+				() -> given().header("Authorization", authorizationToken).get("/api/role/locations"));
+		while (api.requests() == before) {
+			Thread.sleep(10);
+		}
+
+		given().get("/csrf")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value());
+		assertFalse(locations.isDone());
+
+		locations.join()
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("All locations obtained"));
+	}
+
+	/**
+	 * Verifies that the second dispatch of an asynchronous handler neither drops nor widens the authorization of the
+	 * request: a caller without the role of a collection is refused before the API is reached, a caller with it gets
+	 * the collection fetched on the cache miss, and the bundle fetched asynchronously only holds what the caller can read.
+	 */
+	@Test
+	void testAuthorizationHoldsAcrossAsyncDispatch() {
+		String peopleToken = signupAndSignin("people");
+		long before = api.requests();
+		given().header("Authorization", peopleToken).get("/api/role/films")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.FORBIDDEN.value());
+		given().get("/api/role/films")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.UNAUTHORIZED.value());
+		assertEquals(before, api.requests());
+
+		userService.deleteAllUsers();
+		String filmsToken = signupAndSignin("films");
+		given().header("Authorization", filmsToken).get("/api/role/bundle")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("data.keySet()", contains("films"))
+				.body("data.films", hasSize(3));
+		given().header("Authorization", filmsToken).get("/api/role/films")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("All films obtained"));
+	}
+
+	/**
+	 * Signs up the test user with the given roles besides "user" and signs it in.
+	 *
+	 * @param roles The roles of the catalog, like "films".
+	 * @return The access token obtained upon successful sign in.
+	 */
+	private String signupAndSignin(String... roles) {
+		Response csrf = given().contentType(ContentType.JSON).when().get("/csrf");
+		String csrfToken = csrf.cookie("XSRF-TOKEN");
+
+		SignupRequest signupRequest = new SignupRequest();
+		signupRequest.setUsername(testUsername);
+		signupRequest.setEmail(testEmail);
+		signupRequest.setPassword(testPassword);
+		Set<String> role = new HashSet<>(Set.of(roles));
+		role.add("user");
+		signupRequest.setRole(role);
+		given().contentType(ContentType.JSON)
+				.header("X-XSRF-TOKEN", csrfToken)
+				.cookie("XSRF-TOKEN", csrfToken)
+				.body(signupRequest)
+				.post("/api/auth/signup")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value());
+
+		return given().contentType(ContentType.JSON)
+				.header("X-XSRF-TOKEN", csrfToken)
+				.cookie("XSRF-TOKEN", csrfToken)
+				.body(new LoginRequest(testUsername, testPassword))
+				.post("/api/auth/signin")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.extract()
+				.path("accessToken");
+	}
+}
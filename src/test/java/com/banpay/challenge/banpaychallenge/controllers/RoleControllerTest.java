@@ -1,5 +1,6 @@
 package com.banpay.challenge.banpaychallenge.controllers;
 
+import com.banpay.challenge.banpaychallenge.catalog.FakeGhibliApi;
 import com.banpay.challenge.banpaychallenge.models.ERole;
 import com.banpay.challenge.banpaychallenge.models.User;
 import com.banpay.challenge.banpaychallenge.payload.request.LoginRequest;
@@ -7,9 +8,13 @@ import com.banpay.challenge.banpaychallenge.payload.request.SignupRequest;
 import com.banpay.challenge.banpaychallenge.repository.UserRepository;
 import com.banpay.challenge.banpaychallenge.security.services.RoleService;
 import com.banpay.challenge.banpaychallenge.security.services.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -20,16 +25,23 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static io.restassured.RestAssured.given;
-import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class RoleControllerTest {
 
 	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+	private static final FakeGhibliApi api = new FakeGhibliApi();
+
+	private final String castleInTheSky = "2baf70d1-42bb-4437-b551-e5fed5a87abe";
 
 	private final String adminUsername = "orutra971";
 	private final String adminPassword = "Fx97dxdyaLL!";
@@ -51,13 +63,16 @@ class RoleControllerTest {
 	private UserRepository userRepository;
 
 	/**
-	 * This method configures the properties of the PostgreSQL container connection for testing purposes.
+	 * This method configures the properties of the PostgreSQL container connection for testing purposes, points the
+	 * catalog at a local stand-in of the Studio Ghibli API and refuses every subscription to the catalog updates.
 	 */
 	@DynamicPropertySource
 	static void configureProperties(DynamicPropertyRegistry registry) {
 		registry.add("spring.datasource.url", postgres::getJdbcUrl);
 		registry.add("spring.datasource.username", postgres::getUsername);
 		registry.add("spring.datasource.password", postgres::getPassword);
+		registry.add("studio-ghibli.api.url", api::url);
+		registry.add("studio-ghibli.api.stream.max-subscribers", () -> 0);
 	}
 
 	/**
@@ -69,11 +84,12 @@ class RoleControllerTest {
 	}
 
 	/**
-	 * This method stops the PostgreSQL container after all tests.
+	 * This method stops the PostgreSQL container and the stand-in of the API after all tests.
 	 */
 	@AfterAll
 	public static void afterAll() {
 		postgres.stop();
+		api.close();
 	}
 
 	/**
@@ -302,6 +318,275 @@ class RoleControllerTest {
 				.body("message", is("All vehicles obtained"));
 	}
 
+	/**
+	 * Retrieves a single film by its id, and a not found response for an unknown id.
+	 */
+	@Test
+	void getFilmById() {
+		System.out.println("ROLE CONTROLLER TEST: getFilmById");
+
+		String authorizationToken = signupAndSignin("films");
+		authorized(authorizationToken).get("/api/role/films/" + castleInTheSky)
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("Film obtained"))
+				.body("data.title", is("Castle in the Sky"));
+		authorized(authorizationToken).get("/api/role/films/unknown")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.NOT_FOUND.value())
+				.body("message", is("Error: Film not found"));
+	}
+
+	/**
+	 * Retrieves a page of films cut to some fields, with the total count in the "X-Total-Count" header, and a bad
+	 * request for a field that does not exist.
+	 */
+	@Test
+	void getFilmsPage() {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsPage");
+
+		String authorizationToken = signupAndSignin("films");
+		authorized(authorizationToken).get("/api/role/films?page=0&size=2&fields=id,title")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.header("X-Total-Count", "3")
+				.body("data", hasSize(2))
+				.body("data[0].title", notNullValue())
+				.body("data[0].director", nullValue());
+		authorized(authorizationToken).get("/api/role/films?fields=id,budget")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.BAD_REQUEST.value());
+	}
+
+	/**
+	 * Walks the films with the cursor of the "X-Next-Cursor" header until the last page, which has no cursor.
+	 */
+	@Test
+	void getFilmsByCursor() {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsByCursor");
+
+		String authorizationToken = signupAndSignin("films");
+		Response first = authorized(authorizationToken).get("/api/role/films?size=2");
+		first.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("data", hasSize(2))
+				.header("X-Next-Cursor", notNullValue());
+
+		authorized(authorizationToken).get("/api/role/films?size=2&cursor=" + first.header("X-Next-Cursor"))
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("data", hasSize(1))
+				.header("X-Next-Cursor", nullValue());
+	}
+
+	/**
+	 * Retrieves the whole films twice: each response carries its own folio in the "X-Folio" header, and a request
+	 * sending back the ETag is answered with "304 Not Modified".
+	 */
+	@Test
+	void getFilmsNotModified() {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsNotModified");
+
+		String authorizationToken = signupAndSignin("films");
+		Response first = authorized(authorizationToken).get("/api/role/films");
+		Response second = authorized(authorizationToken).get("/api/role/films");
+		first.then().assertThat().statusCode(HttpStatus.OK.value()).header("X-Folio", notNullValue());
+		second.then().assertThat().statusCode(HttpStatus.OK.value()).header("ETag", is(first.header("ETag")));
+		assertNotEquals(first.header("X-Folio"), second.header("X-Folio"));
+
+		authorized(authorizationToken).header("If-None-Match", first.header("ETag")).get("/api/role/films")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.NOT_MODIFIED.value());
+	}
+
+	/**
+	 * Exports the films as newline delimited JSON, one film per line without the envelope.
+	 */
+	@Test
+	void getFilmsNdjson() throws IOException {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsNdjson");
+
+		String authorizationToken = signupAndSignin("films");
+		Response response = authorized(authorizationToken).accept("application/x-ndjson").get("/api/role/films?fields=id,title");
+		response.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.contentType(startsWith("application/x-ndjson"));
+
+		List<String> lines = response.asString().lines().toList();
+		assertEquals(3, lines.size());
+		JsonNode film = new ObjectMapper().readTree(lines.get(0));
+		assertTrue(film.has("title"));
+		assertFalse(film.has("director"));
+	}
+
+	/**
+	 * Retrieves the films in CBOR when the Accept header prefers it, with the same films as the JSON response.
+	 */
+	@Test
+	void getFilmsCbor() throws IOException {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsCbor");
+
+		String authorizationToken = signupAndSignin("films");
+		Response response = authorized(authorizationToken).accept("application/cbor").get("/api/role/films");
+		response.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.contentType(startsWith("application/cbor"))
+				.header("X-Folio", notNullValue());
+
+		JsonNode body = new ObjectMapper(new CBORFactory()).readTree(response.asByteArray());
+		assertEquals("All films obtained", body.path("message").asText());
+		assertEquals(3, body.path("data").size());
+	}
+
+	/**
+	 * Retrieves the facets of the films, and "304 Not Modified" when the ETag is sent back.
+	 */
+	@Test
+	void getFilmsFacets() {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsFacets");
+
+		String authorizationToken = signupAndSignin("films");
+		Response response = authorized(authorizationToken).get("/api/role/films/facets");
+		response.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("Facets of films obtained"));
+
+		authorized(authorizationToken).header("If-None-Match", response.header("ETag")).get("/api/role/films/facets")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.NOT_MODIFIED.value());
+	}
+
+	/**
+	 * Verifies that a collection is refused to a caller without its role, and to a caller without a token.
+	 */
+	@Test
+	void getFilmsWithoutRole() {
+		System.out.println("ROLE CONTROLLER TEST: getFilmsWithoutRole");
+
+		String authorizationToken = signupAndSignin("people");
+		authorized(authorizationToken).get("/api/role/films")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.FORBIDDEN.value());
+		authorized(authorizationToken).get("/api/role/films/facets")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.FORBIDDEN.value());
+		given().get("/api/role/films")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.UNAUTHORIZED.value());
+	}
+
+	/**
+	 * Searches the catalog: only the collections the caller can read are searched, and the limit is bounded.
+	 */
+	@Test
+	void search() {
+		System.out.println("ROLE CONTROLLER TEST: search");
+
+		String authorizationToken = signupAndSignin("films");
+		authorized(authorizationToken).get("/api/role/search?q=castle")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("Search results obtained"))
+				.body("data.id", hasItem(castleInTheSky))
+				.body("data.resource", everyItem(is("films")));
+		authorized(authorizationToken).get("/api/role/search?q=lusheeta")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("data", empty());
+		authorized(authorizationToken).get("/api/role/search?q=castle&limit=0")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.BAD_REQUEST.value());
+	}
+
+	/**
+	 * Retrieves the bundle of the collections the caller can read, and "304 Not Modified" when the ETag is sent back.
+	 */
+	@Test
+	void getBundle() {
+		System.out.println("ROLE CONTROLLER TEST: getBundle");
+
+		String authorizationToken = signupAndSignin("films", "people");
+		Response response = authorized(authorizationToken).get("/api/role/bundle");
+		response.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("Catalog bundle obtained"))
+				.body("data.keySet()", containsInAnyOrder("films", "people"))
+				.body("data.films", hasSize(3));
+
+		authorized(authorizationToken).header("If-None-Match", response.header("ETag")).get("/api/role/bundle")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.NOT_MODIFIED.value());
+	}
+
+	/**
+	 * Retrieves the changes of the catalog from version 0 and from the version token returned, and verifies that a
+	 * token of another run of the application or a malformed one is answered with "410 Gone".
+	 */
+	@Test
+	void getChanges() {
+		System.out.println("ROLE CONTROLLER TEST: getChanges");
+
+		String authorizationToken = signupAndSignin("films");
+		authorized(authorizationToken).get("/api/role/films").then().assertThat().statusCode(HttpStatus.OK.value());
+		Response response = authorized(authorizationToken).get("/api/role/changes?since=0");
+		response.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("message", is("Changes obtained"))
+				.body("data.version", matchesPattern("[0-9a-z]+\\.[0-9]+"))
+				.body("data.changes.keySet()", everyItem(is("films")));
+
+		String version = response.jsonPath().getString("data.version");
+		authorized(authorizationToken).get("/api/role/changes?since=" + version)
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.OK.value())
+				.body("data.since", is(version));
+		authorized(authorizationToken).get("/api/role/changes?since=previous.1")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.GONE.value());
+		authorized(authorizationToken).get("/api/role/changes?since=latest")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.GONE.value());
+	}
+
+	/**
+	 * Verifies that a subscription to the catalog updates is refused with a Retry-After once the server has as many
+	 * subscribers as it accepts, none in this test.
+	 */
+	@Test
+	void getUpdatesUnavailable() {
+		System.out.println("ROLE CONTROLLER TEST: getUpdatesUnavailable");
+
+		String authorizationToken = signupAndSignin("films");
+		authorized(authorizationToken).get("/api/role/updates")
+				.then()
+				.assertThat()
+				.statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+				.header("Retry-After", "30");
+	}
+
 	/**
 	 * Retrieves the CSRF token from the server.
 	 *
@@ -369,6 +654,36 @@ class RoleControllerTest {
 		return auth.getBody().jsonPath().get("accessToken");
 	}
 
+	/**
+	 * Signs up the test user with the given roles besides "user" and signs it in.
+	 *
+	 * @param roles The roles of the catalog, like "films".
+	 * @return The access token obtained upon successful sign in.
+	 */
+	public String signupAndSignin(String... roles) {
+		SignupRequest signupRequest = new SignupRequest();
+		signupRequest.setUsername(testUsername);
+		signupRequest.setEmail(testEmail);
+		signupRequest.setPassword(testPassword);
+		Set<String> role = new HashSet<>(Set.of(roles));
+		role.add("user");
+		signupRequest.setRole(role);
+
+		String csrfToken = getCsrf();
+		signupWithCredential(csrfToken, signupRequest);
+		return signinWithCredential(csrfToken, testUsername, testPassword);
+	}
+
+	/**
+	 * Starts a request with the given access token.
+	 *
+	 * @param authorizationToken The access token of the caller.
+	 * @return The request specification.
+	 */
+	public RequestSpecification authorized(String authorizationToken) {
+		return given().header("Authorization", authorizationToken);
+	}
+
 	public Response getStudioGhibleData(String csrfToken, String authorizationToken, String userRole) {
 		return given()
 				.contentType(ContentType.JSON)